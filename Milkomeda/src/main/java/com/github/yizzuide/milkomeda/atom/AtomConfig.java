@@ -9,10 +9,11 @@ import org.springframework.context.annotation.Import;
  *
  * @author yizzuide
  * @since 3.3.0
+ * @version 3.12.0
  * Create at 2020/04/30 15:13
  */
 @Configuration
-@Import({RedisAtomConfig.class, ZkAtomConfig.class})
+@Import({RedisAtomConfig.class, RedisTemplateAtomConfig.class, ZkAtomConfig.class})
 public class AtomConfig {
 
     @Bean
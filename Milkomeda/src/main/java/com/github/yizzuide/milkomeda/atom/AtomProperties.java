@@ -12,6 +12,7 @@ import java.time.temporal.ChronoUnit;
  *
  * @author yizzuide
  * @since 3.3.0
+ * @version 3.12.0
  * Create at 2020/04/30 15:26
  */
 @Data
@@ -38,6 +39,13 @@ public class AtomProperties {
          * 使用集群方案
          */
         private boolean useCluster = false;
+
+        /**
+         * 看门狗续期的锁租期（加锁时没有设置租期时使用，只在REDIS_TEMPLATE策略有效），每1/3租期续期一次
+         * @since 3.12.0
+         */
+        @DurationUnit(ChronoUnit.MILLIS)
+        private Duration lockWatchdogTimeout = Duration.ofSeconds(30);
     }
 
     @Data
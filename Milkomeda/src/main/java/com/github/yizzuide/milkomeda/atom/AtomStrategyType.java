@@ -5,9 +5,15 @@ package com.github.yizzuide.milkomeda.atom;
  *
  * @author yizzuide
  * @since 3.3.0
+ * @version 3.12.0
  * Create at 2020/04/30 15:26
  */
 public enum AtomStrategyType {
     REDIS,
-    ZK
+    ZK,
+    /**
+     * 基于RedisTemplate的轻量实现（不依赖Redisson）
+     * @since 3.12.0
+     */
+    REDIS_TEMPLATE
 }
@@ -0,0 +1,315 @@
+package com.github.yizzuide.milkomeda.atom;
+
+import com.github.yizzuide.milkomeda.util.RedisScriptRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.lang.NonNull;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Collections;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * RedisTemplateAtom
+ * 基于RedisTemplate的轻量分布式锁，复用应用的Redis连接，不需要创建Redisson的连接池和线程 <br>
+ * 使用 <code>SET NX PX</code> 加锁，value为持有者token，通过lua脚本比较token后解锁；没有设置租期时由共享的看门狗线程续期；
+ * 每个锁使用单独的解锁消息通道，只有本节点有线程等待该锁时才订阅，解锁时唤醒本节点所有等待该锁的线程，不需要自旋重试 <br>
+ * 注意：锁为单key的排它锁，同一线程可重入，公平锁和读写锁都按排它锁处理
+ *
+ * @author yizzuide
+ * @since 3.12.0
+ * Create at 2026/10/18 21:40
+ */
+@Slf4j
+public class RedisTemplateAtom implements Atom, MessageListener, DisposableBean {
+
+    /**
+     * 解锁消息通道前缀（通道名为前缀 + 锁key）
+     */
+    static final String UNLOCK_CHANNEL_PREFIX = "mk_atom_unlock_channel:";
+
+    // 订阅后第一次等待的最大时间（单位：ms），订阅是异步生效的，防止错过生效前的解锁消息时等待到锁过期
+    private static final long FIRST_WAIT_TIME = 100;
+
+    private final StringRedisTemplate redisTemplate;
+
+    /**
+     * 解锁消息监听容器
+     */
+    private final RedisMessageListenerContainer listenerContainer;
+
+    /**
+     * 看门狗续期的锁租期（单位：ms）
+     */
+    private final long watchdogTimeout;
+
+    /**
+     * 当前节点的持有者id
+     */
+    private final String clientId = UUID.randomUUID().toString();
+
+    /**
+     * 当前节点持有的锁（key -> 锁）
+     */
+    private final Map<String, RedisLock> heldLocks = new ConcurrentHashMap<>();
+
+    /**
+     * 等待锁的线程（key -> 等待者）
+     */
+    private final Map<String, LockWaiter> waiters = new ConcurrentHashMap<>();
+
+    /**
+     * 共享的看门狗线程
+     */
+    private final ScheduledExecutorService watchdog;
+
+    public RedisTemplateAtom(StringRedisTemplate redisTemplate, RedisMessageListenerContainer listenerContainer, Duration watchdogTimeout) {
+        this.redisTemplate = redisTemplate;
+        this.listenerContainer = listenerContainer;
+        this.watchdogTimeout = watchdogTimeout.toMillis();
+        this.watchdog = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "atom-watchdog");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long renewInterval = Math.max(1, this.watchdogTimeout / 3);
+        this.watchdog.scheduleWithFixedDelay(this::renewLocks, renewInterval, renewInterval, TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public AtomLockInfo lock(String keyPath, Duration leaseTime, AtomLockType type, boolean readOnly) throws InterruptedException {
+        RedisLock lock = acquire(keyPath, -1, leaseTime.toMillis());
+        return AtomLockInfo.builder().isLocked(true).lock(lock).build();
+    }
+
+    @Override
+    public AtomLockInfo tryLock(String keyPath, AtomLockType type, boolean readOnly) throws InterruptedException {
+        RedisLock lock = acquire(keyPath, 0, -1);
+        return AtomLockInfo.builder().isLocked(lock != null).lock(lock).build();
+    }
+
+    @Override
+    public AtomLockInfo tryLock(String keyPath, Duration waitTime, Duration leaseTime, AtomLockType type, boolean readOnly) throws InterruptedException {
+        RedisLock lock = acquire(keyPath, Math.max(0, waitTime.toMillis()), leaseTime.toMillis());
+        return AtomLockInfo.builder().isLocked(lock != null).lock(lock).build();
+    }
+
+    @Override
+    public void unlock(Object lock) {
+        RedisLock redisLock = (RedisLock) lock;
+        if (!isLocked(redisLock)) {
+            throw new IllegalMonitorStateException("Attempt to unlock lock, not locked by current thread: " + redisLock.key);
+        }
+        if (--redisLock.holdCount > 0) {
+            return;
+        }
+        heldLocks.remove(redisLock.key, redisLock);
+        Long released = redisTemplate.execute(RedisScriptRegistry.get("atom_unlock.lua", Long.class),
+                Collections.singletonList(redisLock.key), redisLock.token, getUnlockChannel(redisLock.key));
+        if (released == null || released == 0) {
+            log.warn("Atom lock has expired before unlock with key: {}", redisLock.key);
+        }
+    }
+
+    @Override
+    public boolean isLocked(Object lock) {
+        RedisLock redisLock = (RedisLock) lock;
+        return redisLock.thread == Thread.currentThread() && redisLock.holdCount > 0;
+    }
+
+    @Override
+    public void onMessage(@NonNull Message message, byte[] pattern) {
+        // 唤醒本节点所有等待该锁的线程，获取失败的线程会在锁的剩余租期内继续等待
+        waiters.computeIfPresent(new String(message.getBody(), StandardCharsets.UTF_8), (key, waiter) -> {
+            waiter.latch.release(waiter.refCount);
+            return waiter;
+        });
+    }
+
+    @Override
+    public void destroy() {
+        watchdog.shutdownNow();
+    }
+
+    /**
+     * 获取锁
+     * @param keyPath   键路径
+     * @param waitTime  等待时间（单位：ms），-1为一直等待
+     * @param leaseTime 租期（单位：ms），小于等于0时由看门狗续期
+     * @return  获取失败返回null
+     * @throws InterruptedException 等待被打断
+     */
+    private RedisLock acquire(String keyPath, long waitTime, long leaseTime) throws InterruptedException {
+        // 可重入
+        RedisLock held = heldLocks.get(keyPath);
+        if (held != null && held.thread == Thread.currentThread()) {
+            held.holdCount++;
+            return held;
+        }
+        RedisLock lock = new RedisLock(keyPath, clientId + ":" + Thread.currentThread().getId(), leaseTime <= 0);
+        long internalLeaseTime = lock.watchdog ? watchdogTimeout : leaseTime;
+        Long ttl = tryAcquire(lock, internalLeaseTime);
+        if (ttl == null) {
+            return onAcquired(lock);
+        }
+        if (waitTime == 0) {
+            return null;
+        }
+        long deadline = waitTime < 0 ? Long.MAX_VALUE : System.currentTimeMillis() + waitTime;
+        LockWaiter waiter = subscribe(keyPath);
+        boolean firstWait = true;
+        try {
+            while (true) {
+                // 订阅后重新获取一次，防止错过订阅前的解锁消息
+                ttl = tryAcquire(lock, internalLeaseTime);
+                if (ttl == null) {
+                    return onAcquired(lock);
+                }
+                long remaining = deadline - System.currentTimeMillis();
+                if (remaining <= 0) {
+                    return null;
+                }
+                // 最多等待到锁过期，防止持有者崩溃或解锁消息丢失时一直等待
+                long wait = Math.min(remaining, ttl > 0 ? ttl : internalLeaseTime);
+                if (firstWait) {
+                    wait = Math.min(wait, FIRST_WAIT_TIME);
+                    firstWait = false;
+                }
+                waiter.latch.tryAcquire(wait, TimeUnit.MILLISECONDS);
+            }
+        } finally {
+            unsubscribe(keyPath);
+        }
+    }
+
+    /**
+     * 尝试获取一次锁
+     * @param lock      锁
+     * @param leaseTime 租期（单位：ms）
+     * @return  获取成功返回null，否则返回锁的剩余租期
+     */
+    private Long tryAcquire(RedisLock lock, long leaseTime) {
+        return redisTemplate.execute(RedisScriptRegistry.get("atom_lock.lua", Long.class),
+                Collections.singletonList(lock.key), lock.token, String.valueOf(leaseTime));
+    }
+
+    private RedisLock onAcquired(RedisLock lock) {
+        lock.holdCount = 1;
+        heldLocks.put(lock.key, lock);
+        return lock;
+    }
+
+    /**
+     * 第一个等待者订阅锁的解锁通道（在compute中订阅和取消订阅，保证同一个锁的订阅操作有序）
+     * @param keyPath   键路径
+     * @return  等待者
+     */
+    private LockWaiter subscribe(String keyPath) {
+        return waiters.compute(keyPath, (key, waiter) -> {
+            if (waiter == null) {
+                waiter = new LockWaiter();
+                listenerContainer.addMessageListener(this, new ChannelTopic(getUnlockChannel(key)));
+            }
+            waiter.refCount++;
+            return waiter;
+        });
+    }
+
+    /**
+     * 最后一个等待者取消订阅锁的解锁通道
+     * @param keyPath   键路径
+     */
+    private void unsubscribe(String keyPath) {
+        waiters.computeIfPresent(keyPath, (key, waiter) -> {
+            if (--waiter.refCount > 0) {
+                return waiter;
+            }
+            listenerContainer.removeMessageListener(this, new ChannelTopic(getUnlockChannel(key)));
+            return null;
+        });
+    }
+
+    private static String getUnlockChannel(String keyPath) {
+        return UNLOCK_CHANNEL_PREFIX + keyPath;
+    }
+
+    /**
+     * 看门狗续期当前节点持有的锁
+     */
+    private void renewLocks() {
+        for (RedisLock lock : heldLocks.values()) {
+            if (!lock.watchdog) {
+                continue;
+            }
+            try {
+                Long renewed = redisTemplate.execute(RedisScriptRegistry.get("atom_renew.lua", Long.class),
+                        Collections.singletonList(lock.key), lock.token, String.valueOf(watchdogTimeout));
+                if (renewed == null || renewed == 0) {
+                    // 锁已经释放或过期，不再续期
+                    lock.watchdog = false;
+                    log.warn("Atom lock renew fail because lock has expired with key: {}", lock.key);
+                }
+            } catch (Exception e) {
+                log.warn("Atom lock renew error with key: {}, msg: {}", lock.key, e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * 线程绑定的锁对象
+     */
+    static class RedisLock {
+        /**
+         * 锁key
+         */
+        final String key;
+        /**
+         * 持有者token
+         */
+        final String token;
+        /**
+         * 持有线程
+         */
+        final Thread thread = Thread.currentThread();
+        /**
+         * 是否由看门狗续期
+         */
+        volatile boolean watchdog;
+        /**
+         * 重入次数（只有持有线程修改）
+         */
+        volatile int holdCount;
+
+        RedisLock(String key, String token, boolean watchdog) {
+            this.key = key;
+            this.token = token;
+            this.watchdog = watchdog;
+        }
+    }
+
+    /**
+     * 锁的等待者
+     */
+    static class LockWaiter {
+        /**
+         * 解锁信号
+         */
+        final Semaphore latch = new Semaphore(0);
+        /**
+         * 等待线程数（在ConcurrentHashMap.compute中修改）
+         */
+        int refCount;
+    }
+}
@@ -0,0 +1,51 @@
+package com.github.yizzuide.milkomeda.atom;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.autoconfigure.AutoConfigureAfter;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.data.redis.RedisAutoConfiguration;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+
+/**
+ * RedisTemplateAtomConfig
+ * 基于RedisTemplate的分布式锁配置，复用应用的Redis连接
+ *
+ * @author yizzuide
+ * @since 3.12.0
+ * Create at 2026/10/18 21:40
+ */
+@Configuration
+@AutoConfigureAfter(RedisAutoConfiguration.class)
+@EnableConfigurationProperties(AtomProperties.class)
+@ConditionalOnProperty(prefix = "milkomeda.atom", name = "strategy", havingValue = "REDIS_TEMPLATE")
+public class RedisTemplateAtomConfig {
+
+    /**
+     * 解锁消息监听容器的Bean名（与应用的监听容器区分，可定义同名Bean替换）
+     */
+    public static final String LISTENER_CONTAINER_NAME = "atomRedisMessageListenerContainer";
+
+    @Autowired
+    private AtomProperties props;
+
+    @Bean
+    public RedisTemplateAtom atom(StringRedisTemplate redisTemplate, @Qualifier(LISTENER_CONTAINER_NAME) RedisMessageListenerContainer listenerContainer) {
+        return new RedisTemplateAtom(redisTemplate, listenerContainer, props.getRedis().getLockWatchdogTimeout());
+    }
+
+    @Bean(LISTENER_CONTAINER_NAME)
+    @ConditionalOnMissingBean(name = LISTENER_CONTAINER_NAME)
+    public RedisMessageListenerContainer atomRedisMessageListenerContainer(RedisConnectionFactory connectionFactory) {
+        // 解锁通道在有等待者时才订阅
+        RedisMessageListenerContainer container = new RedisMessageListenerContainer();
+        container.setConnectionFactory(connectionFactory);
+        return container;
+    }
+}
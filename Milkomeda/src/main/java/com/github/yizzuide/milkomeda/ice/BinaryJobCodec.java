@@ -0,0 +1,135 @@
+package com.github.yizzuide.milkomeda.ice;
+
+import com.fasterxml.jackson.databind.JavaType;
+import com.github.yizzuide.milkomeda.util.JSONUtil;
+
+import java.io.*;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.InflaterInputStream;
+
+/**
+ * BinaryJobCodec
+ * 紧凑的二进制任务编解码器<br>
+ * 格式：版本号(1byte) + 标识(1byte，第1位为是否压缩) + 数据；
+ * 数据：id + topic + delay + ttr + retryCount + priority + status + body(JSON)，数值使用变长编码<br>
+ * JSON格式的首字节为'{'，通过版本号区分，所以可以解码旧版本的JSON任务
+ *
+ * @author yizzuide
+ * @since 3.12.0
+ * Create at 2026/10/18 15:20
+ */
+public class BinaryJobCodec implements JobCodec {
+
+    /**
+     * 格式版本号
+     */
+    static final byte VERSION = 1;
+
+    /**
+     * 压缩标识
+     */
+    private static final byte FLAG_COMPRESSED = 1;
+
+    /**
+     * 数据超过该字节数时压缩，小于等于0不压缩
+     */
+    private final int compressThreshold;
+
+    public BinaryJobCodec(int compressThreshold) {
+        this.compressThreshold = compressThreshold;
+    }
+
+    @Override
+    public byte[] encode(Job<?> job) {
+        try {
+            ByteArrayOutputStream payload = new ByteArrayOutputStream(128);
+            DataOutputStream out = new DataOutputStream(payload);
+            out.writeUTF(job.getId());
+            out.writeUTF(job.getTopic());
+            writeVarLong(out, job.getDelay());
+            writeVarLong(out, job.getTtr());
+            writeVarLong(out, job.getRetryCount());
+            writeVarLong(out, job.getPriority());
+            // 使用枚举名（不受枚举顺序调整影响），空字符串为null
+            out.writeUTF(job.getStatus() == null ? "" : job.getStatus().name());
+            JSONUtil.mapper.writeValue((OutputStream) out, job.getBody());
+            out.flush();
+
+            boolean compressed = compressThreshold > 0 && payload.size() > compressThreshold;
+            ByteArrayOutputStream result = new ByteArrayOutputStream(payload.size() + 2);
+            result.write(VERSION);
+            result.write(compressed ? FLAG_COMPRESSED : 0);
+            if (compressed) {
+                try (DeflaterOutputStream deflaterOut = new DeflaterOutputStream(result, new Deflater(Deflater.BEST_SPEED))) {
+                    payload.writeTo(deflaterOut);
+                }
+            } else {
+                payload.writeTo(result);
+            }
+            return result.toByteArray();
+        } catch (IOException e) {
+            throw new IllegalArgumentException("Ice encode job " + job.getId() + " error: " + e.getMessage(), e);
+        }
+    }
+
+    @Override
+    public <T> Job<T> decode(byte[] data, JavaType jobType) {
+        try {
+            // 旧版本的JSON格式
+            if (!isBinary(data)) {
+                return JSONUtil.mapper.readValue(data, jobType);
+            }
+            InputStream in = new ByteArrayInputStream(data, 2, data.length - 2);
+            if ((data[1] & FLAG_COMPRESSED) != 0) {
+                in = new InflaterInputStream(in);
+            }
+            DataInputStream dataIn = new DataInputStream(in);
+            Job<T> job = new Job<>();
+            job.setId(dataIn.readUTF());
+            job.setTopic(dataIn.readUTF());
+            job.setDelay(readVarLong(dataIn));
+            job.setTtr(readVarLong(dataIn));
+            job.setRetryCount((int) readVarLong(dataIn));
+            job.setPriority((int) readVarLong(dataIn));
+            String status = dataIn.readUTF();
+            job.setStatus(status.isEmpty() ? null : JobStatus.valueOf(status));
+            JavaType bodyType = jobType.containedTypeOrUnknown(0);
+            job.setBody(JSONUtil.mapper.readValue((InputStream) dataIn, bodyType));
+            return job;
+        } catch (IOException e) {
+            throw new IllegalArgumentException("Ice decode job error: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * 是否为二进制格式
+     * @param data  编码后的数据
+     * @return  true为二进制格式
+     */
+    static boolean isBinary(byte[] data) {
+        return data.length > 1 && data[0] == VERSION;
+    }
+
+    private static void writeVarLong(DataOutputStream out, long value) throws IOException {
+        // ZigZag编码，支持负数
+        long v = (value << 1) ^ (value >> 63);
+        while ((v & ~0x7FL) != 0) {
+            out.writeByte((int) ((v & 0x7F) | 0x80));
+            v >>>= 7;
+        }
+        out.writeByte((int) v);
+    }
+
+    private static long readVarLong(DataInputStream in) throws IOException {
+        long v = 0;
+        int shift = 0;
+        byte b;
+        do {
+            b = in.readByte();
+            v |= (long) (b & 0x7F) << shift;
+            shift += 7;
+        } while ((b & 0x80) != 0);
+        return (v >>> 1) ^ -(v & 1);
+    }
+}
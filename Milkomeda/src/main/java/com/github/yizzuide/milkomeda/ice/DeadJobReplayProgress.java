@@ -0,0 +1,70 @@
+package com.github.yizzuide.milkomeda.ice;
+
+import lombok.Data;
+
+/**
+ * DeadJobReplayProgress
+ * Dead queue重放进度
+ *
+ * @author yizzuide
+ * @since 3.12.0
+ * Create at 2026/10/18 14:05
+ */
+@Data
+public class DeadJobReplayProgress {
+    /**
+     * 需要重放的总数（包含上次中断前已重放的个数）
+     */
+    private long total;
+
+    /**
+     * 已重放个数
+     */
+    private long replayed;
+
+    /**
+     * 本次重放开始时间
+     */
+    private long startTime = System.currentTimeMillis();
+
+    /**
+     * 本次重放的个数（用于限速）
+     */
+    private long currentReplayed;
+
+    /**
+     * 是否完成
+     */
+    private boolean finished;
+
+    /**
+     * 增加已重放个数
+     * @param count 个数
+     */
+    void increase(int count) {
+        this.replayed += count;
+        this.currentReplayed += count;
+    }
+
+    /**
+     * 根据限速等待
+     * @param rateLimit 每秒重放个数，小于等于0不限速
+     * @return  线程被中断返回false
+     */
+    boolean await(long rateLimit) {
+        if (rateLimit <= 0) {
+            return true;
+        }
+        long waitTime = currentReplayed * 1000 / rateLimit - (System.currentTimeMillis() - startTime);
+        if (waitTime <= 0) {
+            return true;
+        }
+        try {
+            Thread.sleep(waitTime);
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+}
@@ -1,12 +1,14 @@
 package com.github.yizzuide.milkomeda.ice;
 
 import java.util.List;
+import java.util.function.Consumer;
 
 /**
  * DeadQueue
  *
  * @author yizzuide
  * @since 3.0.8
+ * @version 3.12.0
  * Create at 2020/04/17 00:40
  */
 public interface DeadQueue {
@@ -37,4 +39,36 @@ public interface DeadQueue {
      * @return DelayJob数组
      */
     List<DelayJob> popALL();
+
+    /**
+     * 分批重放Dead queue的Job到延迟桶（中断后再次调用可继续重放剩余的Job）
+     *
+     * @param delayBucket   延迟桶
+     * @param batchSize     每批个数
+     * @param rateLimit     每秒重放个数，小于等于0不限速
+     * @param listener      进度监听（可为null）
+     * @return  本次重放个数
+     * @since 3.12.0
+     */
+    default long replay(DelayBucket delayBucket, int batchSize, long rateLimit, Consumer<DeadJobReplayProgress> listener) {
+        DeadJobReplayProgress progress = new DeadJobReplayProgress();
+        List<DelayJob> delayJobs = pop(batchSize);
+        while (delayJobs != null && !delayJobs.isEmpty()) {
+            delayBucket.add(delayJobs);
+            progress.increase(delayJobs.size());
+            progress.setTotal(progress.getReplayed());
+            if (listener != null) {
+                listener.accept(progress);
+            }
+            if (delayJobs.size() < batchSize || !progress.await(rateLimit)) {
+                break;
+            }
+            delayJobs = pop(batchSize);
+        }
+        progress.setFinished(!Thread.currentThread().isInterrupted());
+        if (listener != null) {
+            listener.accept(progress);
+        }
+        return progress.getCurrentReplayed();
+    }
 }
@@ -7,6 +7,7 @@ import java.util.List;
  *
  * @author yizzuide
  * @since 1.15.0
+ * @version 3.12.0
  * Create at 2019/11/16 16:03
  */
 public interface DelayBucket {
@@ -38,4 +39,12 @@ public interface DelayBucket {
      * @param delayJob  DelayJob
      */
     void remove(Integer index, DelayJob delayJob);
+
+    /**
+     * 从所有桶中移除延时任务（用于不知道任务所在桶时）
+     *
+     * @param delayJobs DelayJob列表
+     * @since 3.12.0
+     */
+    void remove(List<DelayJob> delayJobs);
 }
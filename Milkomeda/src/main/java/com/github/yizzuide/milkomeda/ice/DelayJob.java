@@ -13,7 +13,7 @@ import java.io.Serializable;
  *
  * @author yizzuide
  * @since 1.15.0
- * @version 3.8.0
+ * @version 3.12.0
  * Create at 2019/11/16 15:30
  */
 @Data
@@ -41,6 +41,13 @@ class DelayJob implements Serializable {
      */
     private int retryCount;
 
+    /**
+     * 优先级（从任务池中的任务获取，不需要存储）
+     * @since 3.12.0
+     */
+    @JsonIgnore
+    private transient int priority;
+
     /**
      * 使用高效的字符串行压缩方式（用于兼容旧方式的状态记录）
      */
@@ -52,6 +59,7 @@ class DelayJob implements Serializable {
         this.jodId = job.getId();
         this.delayTime = System.currentTimeMillis() + job.getDelay();
         this.topic = job.getTopic();
+        this.priority = job.getPriority();
     }
 
     /**
@@ -84,6 +92,24 @@ class DelayJob implements Serializable {
         return delayJob;
     }
 
+    /**
+     * 从准备队列的字符串行获取进入准备队列的时间
+     * @param simple    字符串行
+     * @return  进入准备队列的时间，没有记录返回-1
+     * @since 3.12.0
+     */
+    public static long parseReadyTime(String simple) {
+        // 旧版本JSON格式
+        if (simple.startsWith("{")) {
+            return -1;
+        }
+        String[] parts = StringUtils.delimitedListToStringArray(simple, "#");
+        if (parts.length < 3) {
+            return -1;
+        }
+        return Long.parseLong(parts[2]);
+    }
+
     /**
      * 兼容新旧方式从字符串构造
      * @param str           对象字符串
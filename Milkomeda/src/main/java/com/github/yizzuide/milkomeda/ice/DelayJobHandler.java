@@ -18,7 +18,7 @@ import java.util.List;
  *
  * @author yizzuide
  * @since 1.15.0
- * @version 3.2.0
+ * @version 3.12.0
  * Create at 2019/11/16 17:30
  */
 @Slf4j
@@ -74,10 +74,20 @@ public class DelayJobHandler implements Runnable, ApplicationListener<IceInstanc
 
     @Override
     public void run() {
+        handle();
+    }
+
+    /**
+     * 处理延迟桶里最早到期的任务
+     * @return  处理了一个到期任务返回0；最早的任务未到期返回它的到期时间；延迟桶为空返回-1；
+     * 其它节点处理中或出现异常时返回下一次建议的轮询时间
+     * @since 3.12.0
+     */
+    long handle() {
         // 延迟桶处理锁住资源，防止同一桶索引分布式并发执行时出现相同记录问题
         if (props.isEnableJobTimerDistributed()) {
             boolean hasObtainLock = RedisUtil.setIfAbsent(this.lockKey, props.getJobTimerLockTimeoutSeconds().getSeconds(), redisTemplate);
-            if (!hasObtainLock) return;
+            if (!hasObtainLock) return System.currentTimeMillis() + props.getDelayBucketPollRate().toMillis();
         }
 
         DelayJob delayJob = null;
@@ -85,13 +95,13 @@ public class DelayJobHandler implements Runnable, ApplicationListener<IceInstanc
             delayJob = delayBucket.poll(index);
             // 没有任务
             if (delayJob == null) {
-                return;
+                return -1;
             }
 
             // 延时任务的延迟时间还没到
             long currentTime = System.currentTimeMillis();
             if (delayJob.getDelayTime() > currentTime) {
-                return;
+                return delayJob.getDelayTime();
             }
 
             // 获取超时任务（包括延迟超时和TTR超时）
@@ -100,7 +110,7 @@ public class DelayJobHandler implements Runnable, ApplicationListener<IceInstanc
             if (job == null) {
                 // 移除TTR超时检测任务
                 delayBucket.remove(index, delayJob);
-                return;
+                return 0;
             }
             JobStatus status = job.getStatus();
             if (JobStatus.RESERVED.equals(status)) {
@@ -110,9 +120,11 @@ public class DelayJobHandler implements Runnable, ApplicationListener<IceInstanc
                 // 延时任务
                 processDelayJob(delayJob, job);
             }
+            return 0;
         } catch (Exception e) {
             log.error("Ice Timer处理延迟Job {} 异常：{}", delayJob != null ?
                     delayJob.getJodId()  : "[任务数据获取失败]", e.getMessage(), e);
+            return System.currentTimeMillis() + props.getDelayBucketPollRate().toMillis();
         } finally {
             if (props.isEnableJobTimerDistributed()) {
                 // 删除Lock
@@ -132,6 +144,10 @@ public class DelayJobHandler implements Runnable, ApplicationListener<IceInstanc
         }
         int currentRetryCount = delayJob.getRetryCount() + 1;
         log.warn("Ice处理TTR的Job {}，当前重试次数为{}", delayJob.getJodId(), currentRetryCount);
+        IceMetrics metrics = IceHolder.getMetrics();
+        if (metrics != null) {
+            metrics.recordTtrRedelivery(job.getTopic());
+        }
         // 检测重试次数过载
         boolean overload = delayJob.getRetryCount() >= job.getRetryCount();
         // 过载处理标识
@@ -225,6 +241,7 @@ public class DelayJobHandler implements Runnable, ApplicationListener<IceInstanc
             job.setStatus(JobStatus.READY);
             jobPool.push(job);
             // 设置到待处理任务
+            delayJob.setPriority(job.getPriority());
             readyQueue.push(delayJob);
             // 移除delayBucket中的任务
             delayBucket.remove(index, delayJob);
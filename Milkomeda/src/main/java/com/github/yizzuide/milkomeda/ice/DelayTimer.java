@@ -1,19 +1,26 @@
 package com.github.yizzuide.milkomeda.ice;
 
+import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.context.event.ApplicationStartedEvent;
 import org.springframework.context.ApplicationListener;
 import org.springframework.lang.NonNull;
 import org.springframework.scheduling.concurrent.ThreadPoolTaskScheduler;
 
+import java.util.Date;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.atomic.AtomicBoolean;
+
 /**
  * DelayTimer
+ * 延迟桶轮询（开启自适应轮询时，每次轮询后等待到最早的任务到期时间）
  *
  * @author yizzuide
  * @since 1.15.0
- * @version 3.8.0
+ * @version 3.12.0
  * Create at 2019/11/16 18:57
  */
+@Slf4j
 public class DelayTimer implements ApplicationListener<ApplicationStartedEvent> {
 
     @Autowired
@@ -25,8 +32,97 @@ public class DelayTimer implements ApplicationListener<ApplicationStartedEvent>
     @Autowired
     private DelegatingDelayJobHandler delegatingDelayJobHandler;
 
+    @Autowired
+    private JobPool jobPool;
+
+    /**
+     * 每个延迟桶每次轮询最多处理的任务数
+     */
+    private static final int MAX_JOBS_PER_BUCKET = 100;
+
+    private final Object scheduleLock = new Object();
+
+    private final AtomicBoolean polling = new AtomicBoolean(false);
+
+    /**
+     * 轮询中有新的唤醒请求
+     */
+    private volatile boolean pollAgain;
+
+    private ScheduledFuture<?> nextPollFuture;
+
+    private long nextPollTime = Long.MAX_VALUE;
+
     @Override
     public void onApplicationEvent(@NonNull ApplicationStartedEvent event) {
-        taskScheduler.scheduleWithFixedDelay(delegatingDelayJobHandler, props.getDelayBucketPollRate());
+        if (props.isEnableAdaptiveDelayTimer()) {
+            IceHolder.setDelayTimer(this);
+            schedule(System.currentTimeMillis());
+        } else {
+            taskScheduler.scheduleWithFixedDelay(delegatingDelayJobHandler, props.getDelayBucketPollRate());
+        }
+        // 定时清除过期的任务元数据
+        taskScheduler.scheduleWithFixedDelay(() -> {
+            try {
+                long count = jobPool.removeExpired();
+                if (count > 0) {
+                    log.info("Ice 清除过期Job个数：{}", count);
+                }
+            } catch (Exception e) {
+                log.error("Ice remove expired jobs error: {}", e.getMessage(), e);
+            }
+        }, props.getJobExpireSweepRate());
+    }
+
+    /**
+     * 有任务添加到延迟桶时提前唤醒
+     * @param delayTime 任务到期时间
+     */
+    void wakeUp(long delayTime) {
+        schedule(Math.max(delayTime, System.currentTimeMillis()));
+    }
+
+    private void poll() {
+        synchronized (scheduleLock) {
+            nextPollFuture = null;
+            nextPollTime = Long.MAX_VALUE;
+        }
+        // 上一次轮询未结束，结束后再轮询一次
+        if (!polling.compareAndSet(false, true)) {
+            pollAgain = true;
+            return;
+        }
+        long now = System.currentTimeMillis();
+        long nextTime;
+        try {
+            pollAgain = false;
+            nextTime = delegatingDelayJobHandler.handleDueJobs(MAX_JOBS_PER_BUCKET);
+        } catch (Exception e) {
+            log.error("Ice delay timer poll error: {}", e.getMessage(), e);
+            nextTime = now + props.getDelayBucketPollRate().toMillis();
+        } finally {
+            polling.set(false);
+        }
+        long maxTime = System.currentTimeMillis() + props.getDelayBucketMaxPollInterval().toMillis();
+        if (pollAgain) {
+            nextTime = System.currentTimeMillis();
+        } else if (nextTime == -1 || nextTime > maxTime) {
+            nextTime = maxTime;
+        }
+        schedule(nextTime);
+    }
+
+    private void schedule(long time) {
+        synchronized (scheduleLock) {
+            // 已有更早的轮询
+            if (nextPollFuture != null && nextPollTime <= time) {
+                return;
+            }
+            if (nextPollFuture != null) {
+                nextPollFuture.cancel(false);
+            }
+            nextPollTime = time;
+            nextPollFuture = taskScheduler.schedule(this::poll, new Date(time));
+        }
     }
 }
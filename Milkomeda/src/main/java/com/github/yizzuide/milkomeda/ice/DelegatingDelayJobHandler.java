@@ -18,6 +18,7 @@ import java.util.List;
  *
  * @author yizzuide
  * @since 3.8.0
+ * @version 3.12.0
  * Create at 2020/06/11 11:24
  */
 public class DelegatingDelayJobHandler implements Runnable, InitializingBean {
@@ -43,12 +44,40 @@ public class DelegatingDelayJobHandler implements Runnable, InitializingBean {
     // 使用Moon来轮询延迟桶
     private Moon<DelayJobHandler> iceDelayBucketMoon;
 
+    // 所有延迟桶处理器
+    private List<DelayJobHandler> delayJobHandlers;
+
     @Override
     public void run() {
         DelayJobHandler delayJobHandler = Moon.getPhase("ice-delay-bucket", iceDelayBucketMoon);
         delayJobHandler.run();
     }
 
+    /**
+     * 处理所有延迟桶里已到期的任务
+     * @param maxJobsPerBucket  每个桶本次最多处理的任务数
+     * @return  下一次需要轮询的时间，-1表示所有桶为空
+     * @since 3.12.0
+     */
+    long handleDueJobs(int maxJobsPerBucket) {
+        long nextTime = -1;
+        for (DelayJobHandler delayJobHandler : delayJobHandlers) {
+            int count = 0;
+            long result;
+            while ((result = delayJobHandler.handle()) == 0 && ++count < maxJobsPerBucket) {
+                // 继续处理已到期的任务
+            }
+            // 还有未处理的到期任务，需要立即再次轮询
+            if (result == 0) {
+                result = System.currentTimeMillis();
+            }
+            if (result > 0 && (nextTime == -1 || result < nextTime)) {
+                nextTime = result;
+            }
+        }
+        return nextTime;
+    }
+
     @SuppressWarnings("unchecked")
     @Override
     public void afterPropertiesSet() throws Exception {
@@ -69,5 +98,6 @@ public class DelegatingDelayJobHandler implements Runnable, InitializingBean {
         moon.setMoonStrategy(strategy);
         moon.add(delayJobHandlers.toArray(new DelayJobHandler[0]));
         iceDelayBucketMoon = moon;
+        this.delayJobHandlers = delayJobHandlers;
     }
 }
@@ -32,6 +32,10 @@ import java.lang.annotation.*;
  *               task-topic-pop-max-size: 5
  *               # 消费轮询间隔（默认5s）
  *               task-execute-rate: 2s
+ *               # 每个Topic的消费并发线程数（默认为1）
+ *               task-topic-concurrency: 2
+ *               # 开启背压模式，处理中的Job数达到task-topic-max-in-flight时停止拉取
+ *               enable-task-backpressure: true
  *            </pre>
  *        </dd>
  *        <dt>配置为单体应用（服务端+消费端）</dt>
@@ -66,7 +70,7 @@ import java.lang.annotation.*;
  *
  * @author yizzuide
  * @since 1.15.0
- * @version 1.16.0
+ * @version 3.12.0
  * Create at 2019/11/16 17:24
  */
 @Documented
@@ -74,6 +78,6 @@ import java.lang.annotation.*;
 @Target({ElementType.TYPE})
 @Inherited
 @EnableScheduling
-@Import({IceConfig.class, IceScheduleConfig.class})
+@Import({IceConfig.class, IceScheduleConfig.class, IceMetricsConfig.class})
 public @interface EnableIce {
 }
@@ -12,6 +12,7 @@ import java.lang.annotation.*;
  * @author yizzuide
  * @since 1.15.2
  * @since 1.16.0
+ * @version 3.12.0
  * Create at 2019/11/21 11:20
  */
 @Documented
@@ -19,6 +20,6 @@ import java.lang.annotation.*;
 @Target({ElementType.TYPE})
 @Inherited
 @EnableScheduling
-@Import({IceClientConfig.class, IceScheduleConfig.class})
+@Import({IceClientConfig.class, IceScheduleConfig.class, IceMetricsConfig.class})
 public @interface EnableIceClient {
 }
@@ -11,7 +11,7 @@ import java.lang.annotation.*;
  *
  * @author yizzuide
  * @since 1.15.2
- * @version 1.16.0
+ * @version 3.12.0
  * Create at 2019/11/21 10:57
  */
 @Documented
@@ -19,6 +19,6 @@ import java.lang.annotation.*;
 @Target({ElementType.TYPE})
 @Inherited
 @EnableScheduling
-@Import(IceServerConfig.class)
+@Import({IceServerConfig.class, IceMetricsConfig.class})
 public @interface EnableIceServer {
 }
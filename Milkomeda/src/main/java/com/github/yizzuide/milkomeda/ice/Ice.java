@@ -1,6 +1,10 @@
 package com.github.yizzuide.milkomeda.ice;
 
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.JavaType;
+
 import java.time.Duration;
+import java.util.Collection;
 import java.util.List;
 
 /**
@@ -9,7 +13,7 @@ import java.util.List;
  *
  * @author yizzuide
  * @since 1.15.0
- * @version 3.0.9
+ * @version 3.12.0
  * Create at 2019/11/16 15:11
  */
 public interface Ice {
@@ -40,6 +44,27 @@ public interface Ice {
      */
     <T> void add(String id, String topic, T body, Duration delay);
 
+    /**
+     * 批量添加延迟任务（已存在的任务会被忽略）<br>
+     * 注意：会修改传入的Job，id会与topic合并，状态设置为 {@link JobStatus#DELAY}
+     * @param jobs  任务列表
+     * @return  新添加的任务id
+     * @since 3.12.0
+     */
+    @SuppressWarnings("rawtypes")
+    List<String> addAll(Collection<Job> jobs);
+
+    /**
+     * 批量添加延迟任务（已存在的任务会被忽略）<br>
+     * 注意：会修改传入的Job，mergeIdWithTopic为true时id会与topic合并，状态设置为 {@link JobStatus#DELAY}
+     * @param jobs              任务列表
+     * @param mergeIdWithTopic  是否把Job的topic合并进id
+     * @return  新添加的任务id
+     * @since 3.12.0
+     */
+    @SuppressWarnings("rawtypes")
+    List<String> addAll(Collection<Job> jobs, boolean mergeIdWithTopic);
+
     /**
      * 添加延迟任务（job的id会与topic合并）
      * @param id    任务id
@@ -91,6 +116,39 @@ public interface Ice {
      */
     <T> List<Job<T>> pop(String topic, int count);
 
+    /**
+     * 批量取出待处理任务，业务数据直接从存储数据解码为指定类型（不需要再次转换）
+     * @param topic     任务分组
+     * @param count     批量数
+     * @param jobType   任务类型（如：Job&lt;Product&gt;）
+     * @param <T>       业务数据
+     * @return List
+     * @since 3.12.0
+     */
+    <T> List<Job<T>> pop(String topic, int count, JavaType jobType);
+
+    /**
+     * 批量取出待处理任务，业务数据直接从存储数据解码为指定类型
+     * @param topic     任务分组
+     * @param count     批量数
+     * @param bodyType  业务数据类型
+     * @param <T>       业务数据
+     * @return List
+     * @since 3.12.0
+     */
+    <T> List<Job<T>> pop(String topic, int count, Class<T> bodyType);
+
+    /**
+     * 批量取出待处理任务，业务数据直接从存储数据解码为指定类型（用于业务数据为泛型的情况）
+     * @param topic     任务分组
+     * @param count     批量数
+     * @param jobType   任务类型引用（如：<code>new TypeReference&lt;Job&lt;List&lt;Product&gt;&gt;&gt;() {}</code>）
+     * @param <T>       业务数据
+     * @return List
+     * @since 3.12.0
+     */
+    <T> List<Job<T>> pop(String topic, int count, TypeReference<Job<T>> jobType);
+
     /**
      * 完成任务
      * @param jobs    任务列表
@@ -104,6 +162,15 @@ public interface Ice {
      */
     void finish(Object... jobIds);
 
+    /**
+     * 按每个任务的处理结果完成任务（没有结果的任务视为成功）
+     * @param jobs      任务列表
+     * @param results   处理结果
+     * @param <T>   业务数据
+     * @since 3.12.0
+     */
+    <T> void finish(List<Job<T>> jobs, Collection<JobResult> results);
+
     /**
      * 删除任务
      * @param jobs    任务列表
@@ -18,7 +18,7 @@ import org.springframework.data.redis.core.RedisTemplate;
  *
  * @author yizzuide
  * @since 1.15.2
- * @since 3.0.8
+ * @version 3.12.0
  * Create at 2019/11/21 11:16
  */
 @Import(MilkomedaContextConfig.class)
@@ -35,6 +35,15 @@ public class IceBasicConfig {
     @Autowired
     private IceProperties props;
 
+    @Bean
+    @ConditionalOnMissingBean(JobCodec.class)
+    public JobCodec jobCodec() {
+        if (props.getJobCodecType() == JobCodecType.BINARY) {
+            return new BinaryJobCodec(props.getJobCompressThreshold());
+        }
+        return new JsonJobCodec();
+    }
+
     @Bean
     @ConditionalOnMissingBean(JobPool.class)
     public JobPool jobPool() {
@@ -52,6 +61,9 @@ public class IceBasicConfig {
     @Bean
     @ConditionalOnMissingBean(ReadyQueue.class)
     public ReadyQueue readyQueue() {
+        if (props.getReadyQueueType() == ReadyQueueType.STREAM) {
+            return new RedisStreamReadyQueue(props);
+        }
         return new RedisReadyQueue(props);
     }
 
@@ -1,13 +1,18 @@
 package com.github.yizzuide.milkomeda.ice;
 
+import com.fasterxml.jackson.databind.JavaType;
+import com.fasterxml.jackson.databind.type.TypeFactory;
 import com.github.yizzuide.milkomeda.universe.context.AopContextHolder;
 import com.github.yizzuide.milkomeda.universe.metadata.HandlerMetaData;
+import com.github.yizzuide.milkomeda.util.JSONUtil;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.context.ApplicationListener;
 import org.springframework.context.event.ContextRefreshedEvent;
+import org.springframework.core.ResolvableType;
 import org.springframework.lang.NonNull;
 
+import java.lang.reflect.Method;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -17,7 +22,7 @@ import java.util.Map;
  *
  * @author yizzuide
  * @since 1.15.0
- * @version 3.0.7
+ * @version 3.12.0
  * Create at 2019/11/17 18:40
  */
 @Slf4j
@@ -29,6 +34,10 @@ public class IceContext implements ApplicationListener<ContextRefreshedEvent> {
 
     private static Map<String, List<HandlerMetaData>> topicTtrOverloadMap = new HashMap<>();
 
+    /**
+     * Topic监听器的任务类型（注册时解析一次，取出任务时直接解码为该类型）
+     */
+    private static Map<String, JavaType> topicJobTypeMap = new HashMap<>();
 
     @Autowired
     private IceProperties props;
@@ -47,6 +56,55 @@ public class IceContext implements ApplicationListener<ContextRefreshedEvent> {
             IceTtrOverloadListener iceTtrOverloadListener = (IceTtrOverloadListener) annotation;
             return iceTtrOverloadListener.value();
         }, !props.isMultiTopicListenerPerHandler());
+
+        Map<String, JavaType> jobTypeMap = new HashMap<>();
+        topicMap.forEach((topic, metaDataList) -> jobTypeMap.put(topic, resolveJobType(metaDataList)));
+        topicJobTypeMap = jobTypeMap;
+    }
+
+    /**
+     * 解析Topic监听器的任务类型
+     * @param metaDataList  监听器列表
+     * @return  多个监听器的业务数据类型不同时返回默认类型（业务数据为Map）
+     */
+    private static JavaType resolveJobType(List<HandlerMetaData> metaDataList) {
+        TypeFactory typeFactory = JSONUtil.mapper.getTypeFactory();
+        JavaType bodyType = null;
+        for (HandlerMetaData metaData : metaDataList) {
+            Method method = metaData.getMethod();
+            // 没有参数的监听器不使用业务数据
+            if (method.getParameterCount() == 0) {
+                continue;
+            }
+            ResolvableType resolvableBodyType = resolveBodyType(ResolvableType.forMethodParameter(method, 0));
+            JavaType handlerBodyType = typeFactory.constructType(resolvableBodyType.resolve() == null ? Object.class : resolvableBodyType.getType());
+            if (bodyType != null && !bodyType.equals(handlerBodyType)) {
+                bodyType = null;
+                break;
+            }
+            bodyType = handlerBodyType;
+        }
+        if (bodyType == null || bodyType.isMapLikeType() || bodyType.hasRawClass(Object.class)) {
+            bodyType = typeFactory.constructType(Object.class);
+        }
+        return typeFactory.constructParametricType(Job.class, bodyType);
+    }
+
+    /**
+     * 从方法参数类型中解析业务数据类型（支持：T、Job&lt;T&gt;、List&lt;T&gt;、List&lt;Job&lt;T&gt;&gt;）
+     * @param parameterType 方法参数类型
+     * @return  业务数据类型
+     */
+    private static ResolvableType resolveBodyType(ResolvableType parameterType) {
+        Class<?> parameterClazz = parameterType.resolve(Object.class);
+        if (parameterClazz == List.class) {
+            parameterType = parameterType.getGeneric(0);
+            parameterClazz = parameterType.resolve(Object.class);
+        }
+        if (parameterClazz == Job.class) {
+            return parameterType.getGeneric(0);
+        }
+        return parameterType;
     }
 
     static Map<String, List<HandlerMetaData>> getTopicMap() {
@@ -60,4 +118,8 @@ public class IceContext implements ApplicationListener<ContextRefreshedEvent> {
     static Map<String, List<HandlerMetaData>> getTopicTtrOverloadMap() {
         return topicTtrOverloadMap;
     }
+
+    static JavaType getTopicJobType(String topic) {
+        return topicJobTypeMap.get(topic);
+    }
 }
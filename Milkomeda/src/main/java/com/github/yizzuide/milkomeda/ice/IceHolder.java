@@ -2,10 +2,8 @@ package com.github.yizzuide.milkomeda.ice;
 
 import com.github.yizzuide.milkomeda.universe.context.ApplicationContextHolder;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.util.CollectionUtils;
 
-import java.util.List;
-import java.util.stream.Collectors;
+import java.util.function.Consumer;
 
 /**
  * IceHolder
@@ -13,7 +11,7 @@ import java.util.stream.Collectors;
  *
  * @author yizzuide
  * @since 3.0.0
- * @version 3.1.0
+ * @version 3.12.0
  * Create at 2020/04/09 14:03
  */
 @Slf4j
@@ -25,6 +23,10 @@ public class IceHolder {
 
     private static DelayBucket delayBucket;
 
+    private static IceMetrics metrics;
+
+    private static DelayTimer delayTimer;
+
     static void setIce(Ice ice) {
         IceHolder.ice = ice;
     }
@@ -37,6 +39,34 @@ public class IceHolder {
         IceHolder.delayBucket = delayBucket;
     }
 
+    static void setMetrics(IceMetrics metrics) {
+        IceHolder.metrics = metrics;
+    }
+
+    static void setDelayTimer(DelayTimer delayTimer) {
+        IceHolder.delayTimer = delayTimer;
+    }
+
+    /**
+     * 本地添加任务到延迟桶后唤醒自适应轮询（未开启时忽略）
+     * @param delayTime 任务到期时间
+     * @since 3.12.0
+     */
+    static void wakeDelayTimer(long delayTime) {
+        if (delayTimer != null) {
+            delayTimer.wakeUp(delayTime);
+        }
+    }
+
+    /**
+     * 获取Ice指标采集器（未开启时返回null）
+     * @return  IceMetrics
+     * @since 3.12.0
+     */
+    static IceMetrics getMetrics() {
+        return metrics;
+    }
+
     /**
      * 获取Ice实现
      * @return  Ice
@@ -60,24 +90,29 @@ public class IceHolder {
      * @since 3.0.8
      */
     public static void activeDeadJobs() {
-        int retrieveCount = 10;
-        List<DelayJob> delayJobs = deadQueue.pop(retrieveCount);
-        if (CollectionUtils.isEmpty(delayJobs)) {
-            return;
-        }
-        int count = 0;
-        while (!CollectionUtils.isEmpty(delayJobs)) {
-            log.info("Ice 正在Dead Queue恢复延迟作业Jobs {}", delayJobs.stream().map(DelayJob::getJodId).collect(Collectors.toList()));
-            delayBucket.add(delayJobs);
-            count += delayJobs.size();
-            // 如果恢复完成，退出
-            if (delayJobs.size() != retrieveCount) {
-                break;
+        replayDeadJobs(progress -> {
+            if (progress.isFinished()) {
+                if (progress.getReplayed() > 0) {
+                    log.info("Ice 完成从Dead Queue恢复Job到延迟队列总个数：{}", progress.getReplayed());
+                }
+                return;
             }
-            delayJobs = deadQueue.pop(retrieveCount);
-        }
+            log.info("Ice 正在Dead Queue恢复延迟作业Jobs，进度：{}/{}", progress.getReplayed(), progress.getTotal());
+        });
+    }
+
+    /**
+     * 分批重放Dead Queue的Job到延迟队列（按配置的批大小和速率，中断后再次调用可继续重放）
+     * @param listener  进度监听
+     * @return  本次重放个数
+     * @since 3.12.0
+     */
+    public static long replayDeadJobs(Consumer<DeadJobReplayProgress> listener) {
+        IceProperties props = ApplicationContextHolder.get().getBean(IceProperties.class);
+        long count = deadQueue.replay(delayBucket, props.getDeadQueueReplayBatchSize(), props.getDeadQueueReplayRate(), listener);
         if (count > 0) {
-            log.info("Ice 完成从Dead Queue恢复Job到延迟队列总个数：{}", count);
+            wakeDelayTimer(System.currentTimeMillis());
         }
+        return count;
     }
 }
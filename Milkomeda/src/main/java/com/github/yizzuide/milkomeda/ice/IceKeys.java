@@ -0,0 +1,63 @@
+package com.github.yizzuide.milkomeda.ice;
+
+/**
+ * IceKeys
+ * Redis集群模式下的Key布局：按任务id把任务划分到多个分区（分区数等于延迟桶数），
+ * 同一分区的延迟桶、任务池分片、准备队列使用相同的Hash Tag，保证落在同一个Slot，多Key操作和脚本只访问同一Slot
+ *
+ * @author yizzuide
+ * @since 3.12.0
+ * Create at 2026/10/18 16:20
+ */
+final class IceKeys {
+
+    private IceKeys() {
+    }
+
+    /**
+     * 是否使用集群Key布局
+     * @param props IceProperties
+     * @return  true为集群Key布局
+     */
+    static boolean isCluster(IceProperties props) {
+        return props.isEnableClusterKeys();
+    }
+
+    /**
+     * 获取分区数量
+     * @param props IceProperties
+     * @return  集群Key布局时为延迟桶数，否则为1
+     */
+    static int getPartitionCount(IceProperties props) {
+        return isCluster(props) ? props.getDelayBucketCount() : 1;
+    }
+
+    /**
+     * 根据任务id获取分区
+     * @param jobId 任务id
+     * @param count 分区数量
+     * @return  分区索引
+     */
+    static int getPartition(String jobId, int count) {
+        return (jobId.hashCode() & Integer.MAX_VALUE) % count;
+    }
+
+    /**
+     * 获取分区的Hash Tag
+     * @param instanceName  实例名（默认实例为null）
+     * @param partition     分区索引
+     * @return  Hash Tag，如：{ice:0}、{ice:product:0}
+     */
+    static String getTag(String instanceName, int partition) {
+        return "{ice:" + (instanceName == null ? "" : instanceName + ":") + partition + "}";
+    }
+
+    /**
+     * 获取非默认的实例名
+     * @param instanceName  实例名
+     * @return  默认实例返回null
+     */
+    static String nonDefaultInstanceName(String instanceName) {
+        return IceProperties.DEFAULT_INSTANCE_NAME.equals(instanceName) ? null : instanceName;
+    }
+}
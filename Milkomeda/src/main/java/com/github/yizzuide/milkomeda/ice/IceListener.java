@@ -6,11 +6,12 @@ import java.lang.annotation.*;
 
 /**
  * IceListener
- * Topic监听器注解
+ * Topic监听器注解<br>
+ * 监听方法可以返回重新入队的 Job 或 List&lt;Job&gt;，也可以返回每个任务的处理结果 JobResult 或 List&lt;JobResult&gt;
  *
  * @author yizzuide
  * @since 1.15.0
- * @version 1.16.0
+ * @version 3.12.0
  * Create at 2019/11/17 17:29
  */
 @Documented
@@ -0,0 +1,221 @@
+package com.github.yizzuide.milkomeda.ice;
+
+import com.github.yizzuide.milkomeda.util.RedisScriptRegistry;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationStartedEvent;
+import org.springframework.context.ApplicationListener;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.redis.core.RedisOperations;
+import org.springframework.data.redis.core.SessionCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.lang.NonNull;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskScheduler;
+import org.springframework.util.CollectionUtils;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * IceMetrics
+ * Ice队列指标采集（通过Micrometer暴露）<br>
+ * 定时使用管道批量采样：延迟桶已到期未转移数（ZCOUNT）、准备队列长度（LLEN；Stream为未投递的消息数，已投递未确认的消息数单独统计）、
+ * 准备队列最早Job等待时长、Dead queue大小（SCARD）；
+ * 同时记录Topic处理器的耗时、成功/失败次数以及TTR重试次数
+ *
+ * @author yizzuide
+ * @since 3.12.0
+ * Create at 2026/10/18 13:20
+ */
+@Slf4j
+public class IceMetrics implements ApplicationListener<ApplicationStartedEvent> {
+
+    private static final String PREFIX = "ice.";
+
+    @Autowired
+    private IceProperties props;
+
+    @Autowired
+    private StringRedisTemplate redisTemplate;
+
+    @Autowired
+    private DelayBucket delayBucket;
+
+    @Autowired
+    private ReadyQueue readyQueue;
+
+    @Autowired
+    private DeadQueue deadQueue;
+
+    @SuppressWarnings("SpringJavaInjectionPointsAutowiringInspection")
+    @Autowired
+    private ThreadPoolTaskScheduler taskScheduler;
+
+    private final ObjectProvider<MeterRegistry> registryProvider;
+
+    /**
+     * 应用启动后获取的MeterRegistry
+     */
+    private volatile MeterRegistry registry;
+
+    /**
+     * Stream准备队列指标脚本
+     */
+    @SuppressWarnings("rawtypes")
+    private final RedisScript<List> streamMetricsScript = RedisScriptRegistry.get("ice_stream_metrics.lua", List.class);
+
+    /**
+     * 采样值（指标名+标签 -> 值）
+     */
+    private final Map<String, AtomicLong> sampledValues = new ConcurrentHashMap<>();
+
+    public IceMetrics(ObjectProvider<MeterRegistry> registryProvider) {
+        this.registryProvider = registryProvider;
+    }
+
+    @Override
+    public void onApplicationEvent(@NonNull ApplicationStartedEvent event) {
+        registry = registryProvider.getIfAvailable();
+        if (registry == null) {
+            log.warn("Ice metrics is disabled because no MeterRegistry found.");
+            return;
+        }
+        IceHolder.setMetrics(this);
+        taskScheduler.scheduleWithFixedDelay(() -> {
+            try {
+                sample();
+            } catch (Exception e) {
+                log.error("Ice metrics sample error: {}", e.getMessage(), e);
+            }
+        }, props.getMetricsSampleRate());
+    }
+
+    /**
+     * 管道批量采样队列状态
+     */
+    @SuppressWarnings("unchecked")
+    public void sample() {
+        if (registry == null) {
+            return;
+        }
+        long now = System.currentTimeMillis();
+        List<String> bucketNames = delayBucket instanceof RedisDelayBucket ?
+                ((RedisDelayBucket) delayBucket).getBucketNames() : Collections.emptyList();
+        List<String> topics = getTopics();
+        List<Object> results = redisTemplate.executePipelined(new SessionCallback<Object>() {
+            @Override
+            public <K, V> Object execute(@NonNull RedisOperations<K, V> operations) throws DataAccessException {
+                // 已到期但未转移到准备队列的Job数
+                for (String bucketName : bucketNames) {
+                    operations.opsForZSet().count((K) bucketName, 0, now);
+                }
+                if (readyQueue instanceof RedisReadyQueue) {
+                    for (String topic : topics) {
+                        // 每个优先级一个队列
+                        for (String key : ((RedisReadyQueue) readyQueue).getKeys(topic)) {
+                            operations.opsForList().size((K) key);
+                            operations.opsForList().index((K) key, 0);
+                        }
+                    }
+                }
+                if (deadQueue instanceof RedisDeadQueue) {
+                    operations.opsForSet().size((K) ((RedisDeadQueue) deadQueue).getDeadQueueKey());
+                }
+                return null;
+            }
+        });
+
+        int i = 0;
+        for (int b = 0; b < bucketNames.size(); b++) {
+            gauge("bucket.due", Tags.of("bucket", String.valueOf(b))).set(toLong(results.get(i++)));
+        }
+        if (readyQueue instanceof RedisStreamReadyQueue) {
+            // 只统计未投递的消息，已投递未确认的消息单独统计（脚本使用EVALSHA，不放入管道）
+            for (String topic : topics) {
+                // 未投递数，已投递未确认数，最早未投递消息的添加时间
+                List<Long> streamMetrics = redisTemplate.execute(streamMetricsScript,
+                        Collections.singletonList(((RedisStreamReadyQueue) readyQueue).getKey(topic)), RedisStreamReadyQueue.GROUP);
+                Tags tags = Tags.of("topic", topic);
+                long oldestReadyTime = streamMetrics == null ? -1 : streamMetrics.get(2);
+                gauge("ready.size", tags).set(streamMetrics == null ? 0 : streamMetrics.get(0));
+                gauge("ready.pending", tags).set(streamMetrics == null ? 0 : streamMetrics.get(1));
+                gauge("ready.oldest.age", tags).set(oldestReadyTime == -1 ? 0 : Math.max(0, now - oldestReadyTime));
+            }
+        } else if (readyQueue instanceof RedisReadyQueue) {
+            for (String topic : topics) {
+                int keyCount = ((RedisReadyQueue) readyQueue).getKeys(topic).size();
+                long size = 0;
+                long oldestReadyTime = -1;
+                for (int k = 0; k < keyCount; k++) {
+                    size += toLong(results.get(i++));
+                    long readyTime = getOldestReadyTime(results.get(i++));
+                    if (readyTime != -1 && (oldestReadyTime == -1 || readyTime < oldestReadyTime)) {
+                        oldestReadyTime = readyTime;
+                    }
+                }
+                Tags tags = Tags.of("topic", topic);
+                gauge("ready.size", tags).set(size);
+                gauge("ready.oldest.age", tags).set(oldestReadyTime == -1 ? 0 : Math.max(0, now - oldestReadyTime));
+            }
+        }
+        if (deadQueue instanceof RedisDeadQueue) {
+            gauge("dead.size", Tags.empty()).set(toLong(results.get(i)));
+        }
+    }
+
+    /**
+     * 记录Topic处理器执行结果
+     * @param topic     任务分组
+     * @param jobCount  处理的Job数
+     * @param nanos     耗时（单位：ns）
+     * @param success   是否成功
+     */
+    public void recordHandle(String topic, int jobCount, long nanos, boolean success) {
+        String outcome = success ? "success" : "failure";
+        registry.timer(PREFIX + "handler.duration", "topic", topic, "outcome", outcome).record(nanos, TimeUnit.NANOSECONDS);
+        registry.counter(PREFIX + "handler.jobs", "topic", topic, "outcome", outcome).increment(jobCount);
+    }
+
+    /**
+     * 记录TTR重试
+     * @param topic 任务分组
+     */
+    public void recordTtrRedelivery(String topic) {
+        registry.counter(PREFIX + "job.ttr.redelivery", "topic", topic).increment();
+    }
+
+    private AtomicLong gauge(String name, Tags tags) {
+        String id = name + tags;
+        return sampledValues.computeIfAbsent(id, k -> registry.gauge(PREFIX + name, tags, new AtomicLong(0)));
+    }
+
+    private List<String> getTopics() {
+        Set<String> topics = new LinkedHashSet<>(IceContext.getTopicMap().keySet());
+        if (!CollectionUtils.isEmpty(props.getMetricsTopics())) {
+            topics.addAll(props.getMetricsTopics());
+        }
+        return new ArrayList<>(topics);
+    }
+
+    @SuppressWarnings("rawtypes")
+    private long getOldestReadyTime(Object result) {
+        if (result == null) {
+            return -1;
+        }
+        // List: jobId#retryCount#readyTime
+        if (result instanceof String) {
+            return DelayJob.parseReadyTime((String) result);
+        }
+        return -1;
+    }
+
+    private long toLong(Object result) {
+        return result instanceof Number ? ((Number) result).longValue() : 0;
+    }
+}
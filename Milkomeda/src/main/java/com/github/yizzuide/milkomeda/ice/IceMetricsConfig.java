@@ -0,0 +1,28 @@
+package com.github.yizzuide.milkomeda.ice;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnClass;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * IceMetricsConfig
+ * Ice指标配置（需要引入Micrometer）
+ *
+ * @author yizzuide
+ * @since 3.12.0
+ * Create at 2026/10/18 13:46
+ */
+@Configuration
+@ConditionalOnClass(MeterRegistry.class)
+@ConditionalOnProperty(prefix = "milkomeda.ice", name = "enable-metrics", havingValue = "true")
+public class IceMetricsConfig {
+
+    @Bean
+    public IceMetrics iceMetrics(ObjectProvider<MeterRegistry> meterRegistryProvider) {
+        // 通过@Import导入时，Micrometer的自动配置还没有注册MeterRegistry，延迟到应用启动后获取
+        return new IceMetrics(meterRegistryProvider);
+    }
+}
@@ -6,13 +6,14 @@ import org.springframework.boot.convert.DurationUnit;
 
 import java.time.Duration;
 import java.time.temporal.ChronoUnit;
+import java.util.List;
 
 /**
  * IceProperties
  *
  * @author yizzuide
  * @since 1.15.0
- * @version 3.11.0
+ * @version 3.12.0
  * Create at 2019/11/16 19:02
  */
 @Data
@@ -32,6 +33,40 @@ class IceProperties {
     @DurationUnit(ChronoUnit.SECONDS)
     private Duration jobExpire = Duration.ofDays(7);
 
+    /**
+     * 任务池分片数量（根据任务id分散到多个Hash，避免单个大Key）<br>
+     * 注意：修改分片数量后，已存在的任务将无法读取
+     * @since 3.12.0
+     */
+    private int jobPoolShardCount = 1;
+
+    /**
+     * 使用Redis集群兼容的Key布局（按任务id分区，同一分区的延迟桶、任务池分片、准备队列使用相同的Hash Tag）<br>
+     * 开启后分区数为延迟桶数量，jobPoolShardCount配置无效；仅对LIST类型的准备队列分区，
+     * 注意：开启或关闭后，已存在的任务将无法读取
+     * @since 3.12.0
+     */
+    private boolean enableClusterKeys = false;
+
+    /**
+     * 任务池存储的编码类型（解码时兼容所有类型，可以随时切换）
+     * @since 3.12.0
+     */
+    private JobCodecType jobCodecType = JobCodecType.JSON;
+
+    /**
+     * 二进制编码时，数据超过该字节数进行压缩（小于等于0不压缩）
+     * @since 3.12.0
+     */
+    private int jobCompressThreshold = 1024;
+
+    /**
+     * 过期任务清除间隔（单位：s）
+     * @since 3.12.0
+     */
+    @DurationUnit(ChronoUnit.SECONDS)
+    private Duration jobExpireSweepRate = Duration.ofSeconds(60);
+
     /**
      * 开启作业Timer（仅作为消费端使用时需要设置为false）<br>
      * 注意：使用 {@link EnableIceServer} 时，设置为false无效
@@ -46,6 +81,12 @@ class IceProperties {
      */
     @DurationUnit(ChronoUnit.SECONDS)
     private Duration jobTimerLockTimeoutSeconds = Duration.ofSeconds(60);
+    /**
+     * 准备队列实现类型（使用STREAM时需要Redis 6.2+）
+     * @since 3.12.0
+     */
+    private ReadyQueueType readyQueueType = ReadyQueueType.LIST;
+
     /**
      * 延迟分桶数量
      */
@@ -55,6 +96,17 @@ class IceProperties {
      */
     @DurationUnit(ChronoUnit.MILLIS)
     private Duration delayBucketPollRate = Duration.ofMillis(5000);
+    /**
+     * 开启自适应轮询（根据延迟桶里最早的到期时间等待，本地添加更早的任务时提前唤醒）
+     * @since 3.12.0
+     */
+    private boolean enableAdaptiveDelayTimer = false;
+    /**
+     * 自适应轮询的最大等待时间（单位：ms），用于发现其它节点添加的任务
+     * @since 3.12.0
+     */
+    @DurationUnit(ChronoUnit.MILLIS)
+    private Duration delayBucketMaxPollInterval = Duration.ofMillis(30000);
     /**
      * 任务执行超时时间（单位：ms）
      */
@@ -98,6 +150,43 @@ class IceProperties {
      */
     private int taskTopicPopMaxSize = 10;
 
+    /**
+     * 任务优先级数量（默认为1，不区分优先级；仅支持LIST类型的准备队列）
+     * @since 3.12.0
+     */
+    private int jobPriorityLevels = 1;
+
+    /**
+     * 批量消费时每个优先级的保底权重（下标为优先级），防止低优先级任务饥饿（未设置时按优先级从高到低严格消费）<br>
+     * 如：[1, 2, 7]表示每批至少分配10%给优先级0，20%给优先级1，70%给优先级2，不足时由高优先级补充
+     * @since 3.12.0
+     */
+    private List<Integer> jobPriorityWeights;
+
+    /**
+     * 每个Topic的消费并发线程数（每个Topic使用独立的线程池，互不影响）
+     * @since 3.12.0
+     */
+    private int taskTopicConcurrency = 1;
+
+    /**
+     * 每个Topic消费线程池的等待队列大小（以批次为单位，队列满时暂停拉取）
+     * @since 3.12.0
+     */
+    private int taskTopicQueueSize = 16;
+
+    /**
+     * 开启背压模式（处理中的Job数达到 {@link #taskTopicMaxInFlight} 时停止拉取）
+     * @since 3.12.0
+     */
+    private boolean enableTaskBackpressure = false;
+
+    /**
+     * 背压模式下每个Topic处理中的最大Job数
+     * @since 3.12.0
+     */
+    private int taskTopicMaxInFlight = 100;
+
     /**
      * 任务执行间隔（单位：ms）
      */
@@ -115,9 +204,40 @@ class IceProperties {
      */
     private boolean multiTopicListenerPerHandler = false;
 
+    /**
+     * 开启队列指标采集（需要引入Micrometer）
+     * @since 3.12.0
+     */
+    private boolean enableMetrics = false;
+
+    /**
+     * 队列指标采样间隔（单位：ms）
+     * @since 3.12.0
+     */
+    @DurationUnit(ChronoUnit.MILLIS)
+    private Duration metricsSampleRate = Duration.ofMillis(10000);
+
+    /**
+     * 需要采样准备队列的Topic（消费端已注册的监听Topic会自动加入）
+     * @since 3.12.0
+     */
+    private List<String> metricsTopics;
+
     /**
      * TTR超时后是否放入到Dead queue
      * @see IceTtrOverloadListener
      */
     private boolean enableRetainToDeadQueueWhenTtrOverload = false;
+
+    /**
+     * Dead queue重放时每批的个数
+     * @since 3.12.0
+     */
+    private int deadQueueReplayBatchSize = 100;
+
+    /**
+     * Dead queue重放速率（每秒个数，小于等于0不限速）
+     * @since 3.12.0
+     */
+    private long deadQueueReplayRate = 0;
 }
@@ -1,73 +1,82 @@
 package com.github.yizzuide.milkomeda.ice;
 
-import com.github.yizzuide.milkomeda.universe.metadata.HandlerMetaData;
-import com.github.yizzuide.milkomeda.util.ReflectUtil;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.autoconfigure.AutoConfigureAfter;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.boot.autoconfigure.task.TaskSchedulingAutoConfiguration;
+import org.springframework.boot.autoconfigure.task.TaskSchedulingProperties;
+import org.springframework.boot.context.event.ApplicationStartedEvent;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.ApplicationListener;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.lang.NonNull;
 import org.springframework.scheduling.concurrent.ThreadPoolTaskScheduler;
-import org.springframework.util.CollectionUtils;
 
-import java.lang.reflect.Method;
+import java.time.Duration;
+import java.util.ArrayList;
 import java.util.List;
-import java.util.Map;
+import java.util.Set;
 
 /**
  * IceScheduleConfig
  *
  * @author yizzuide
  * @since 1.15.0
- * @version 3.0.9
+ * @version 3.12.0
  * Create at 2019/11/17 17:00
  */
 @Slf4j
 @Configuration
 @AutoConfigureAfter(TaskSchedulingAutoConfiguration.class)
 @ConditionalOnProperty(prefix = "milkomeda.ice", name = "enable-task", havingValue = "true")
-public class IceScheduleConfig {
+@EnableConfigurationProperties(TaskSchedulingProperties.class)
+public class IceScheduleConfig implements ApplicationListener<ApplicationStartedEvent>, DisposableBean {
+
+    // 没有配置 spring.task.scheduling.shutdown.await-termination-period 时的等待时间
+    private static final Duration DEFAULT_AWAIT_TERMINATION_PERIOD = Duration.ofSeconds(60);
+
+    @Autowired
+    private Ice ice;
 
     @Autowired
-    @SuppressWarnings({"unchecked", "SpringJavaInjectionPointsAutowiringInspection", "rawtypes"})
-    public void config(Ice ice, IceProperties props, ThreadPoolTaskScheduler taskScheduler) {
-        taskScheduler.scheduleAtFixedRate(() -> IceContext.getTopicMap().keySet().forEach(topic -> {
-            List<Job<Map<String, Object>>> jobs = ice.pop(topic, props.getTaskTopicPopMaxSize());
-            if (CollectionUtils.isEmpty(jobs)) return;
+    private IceProperties props;
 
-            List<HandlerMetaData> metaDataList = IceContext.getTopicMap().get(topic);
-            Object resultData = null;
-            try {
-                for (HandlerMetaData metaData : metaDataList) {
-                    Method method = metaData.getMethod();
-                    List<Job> jobList = (List) jobs;
-                    Object result = ReflectUtil.invokeWithWrapperInject(metaData.getTarget(), method, jobList, Job.class, Job::getBody, Job::setBody);
-                    if (result != null) {
-                        resultData = result;
-                    }
-                }
+    @Autowired
+    private TaskSchedulingProperties taskSchedulingProperties;
 
-                // 标记完成，清除元数据
-                ice.finish(jobs);
+    private final List<TopicJobHandler> topicJobHandlers = new ArrayList<>();
+
+    /**
+     * Topic拉取调度器（每个Topic一个调度线程，不与共享的taskScheduler竞争）
+     */
+    private ThreadPoolTaskScheduler pollScheduler;
+
+    @Override
+    public void onApplicationEvent(@NonNull ApplicationStartedEvent event) {
+        Set<String> topics = IceContext.getTopicMap().keySet();
+        Duration awaitTerminationPeriod = taskSchedulingProperties.getShutdown().getAwaitTerminationPeriod();
+        if (awaitTerminationPeriod == null) {
+            awaitTerminationPeriod = DEFAULT_AWAIT_TERMINATION_PERIOD;
+        }
+        pollScheduler = new ThreadPoolTaskScheduler();
+        pollScheduler.setPoolSize(Math.max(1, topics.size()));
+        pollScheduler.setThreadNamePrefix("ice-poll-");
+        pollScheduler.initialize();
+        // 每个Topic独立调度，一个Topic的拉取或处理阻塞不会影响其它Topic
+        for (String topic : topics) {
+            TopicJobHandler topicJobHandler = new TopicJobHandler(topic, ice, props, awaitTerminationPeriod);
+            topicJobHandlers.add(topicJobHandler);
+            pollScheduler.scheduleAtFixedRate(topicJobHandler, props.getTaskExecuteRate());
+        }
+    }
 
-                // 是否有重新入队
-                if (resultData == null) {
-                    return;
-                }
-                if (resultData instanceof Job) {
-                    ice.add((Job) resultData);
-                    return;
-                }
-                if (resultData instanceof List) {
-                    List<Job> rePushJobs = (List<Job>) resultData;
-                    for (Job rePushJob : rePushJobs) {
-                        ice.add(rePushJob);
-                    }
-                }
-            } catch (Exception e) {
-                log.error("Ice schedule error: {}", e.getMessage(), e);
-            }
-        }), props.getTaskExecuteRate());
+    @Override
+    public void destroy() {
+        if (pollScheduler != null) {
+            pollScheduler.shutdown();
+        }
+        topicJobHandlers.forEach(TopicJobHandler::shutdown);
     }
 }
@@ -1,5 +1,6 @@
 package com.github.yizzuide.milkomeda.ice;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.databind.annotation.JsonSerialize;
 import com.fasterxml.jackson.databind.ser.std.ToStringSerializer;
 import lombok.Data;
@@ -13,6 +14,7 @@ import java.io.Serializable;
  *
  * @author yizzuide
  * @since 1.15.0
+ * @version 3.12.0
  * Create at 2019/11/16 12:00
  */
 @Data
@@ -40,6 +42,17 @@ public class Job<T> implements Serializable {
      * 初始重试次数
      */
     private int retryCount;
+    /**
+     * 优先级（值越大越优先，范围：0 ~ milkomeda.ice.job-priority-levels - 1）
+     * @since 3.12.0
+     */
+    private int priority;
+    /**
+     * 当前TTR重试次数（取出任务时设置，用于处理结果时定位延迟桶中的TTR检测记录）
+     * @since 3.12.0
+     */
+    @JsonIgnore
+    private transient int currentRetryCount;
     /**
      * 业务数据
      */
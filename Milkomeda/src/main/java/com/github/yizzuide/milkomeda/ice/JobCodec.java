@@ -0,0 +1,30 @@
+package com.github.yizzuide.milkomeda.ice;
+
+import com.fasterxml.jackson.databind.JavaType;
+
+/**
+ * JobCodec
+ * 任务编解码器（用于任务池存储），解码时需要兼容其它编码格式，方便切换编码方式
+ *
+ * @author yizzuide
+ * @since 3.12.0
+ * Create at 2026/10/18 15:10
+ */
+public interface JobCodec {
+
+    /**
+     * 编码任务
+     * @param job   任务
+     * @return  编码后的数据
+     */
+    byte[] encode(Job<?> job);
+
+    /**
+     * 解码任务
+     * @param data      编码后的数据
+     * @param jobType   任务类型（包含业务数据类型）
+     * @param <T>       业务数据类型
+     * @return  任务
+     */
+    <T> Job<T> decode(byte[] data, JavaType jobType);
+}
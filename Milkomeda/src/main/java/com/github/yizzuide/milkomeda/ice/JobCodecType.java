@@ -0,0 +1,21 @@
+package com.github.yizzuide.milkomeda.ice;
+
+/**
+ * JobCodecType
+ * 任务编码类型
+ *
+ * @author yizzuide
+ * @since 3.12.0
+ * Create at 2026/10/18 15:12
+ */
+public enum JobCodecType {
+    /**
+     * JSON格式（兼容旧版本）
+     */
+    JSON,
+
+    /**
+     * 紧凑的二进制格式（支持超过阈值时压缩）
+     */
+    BINARY
+}
@@ -1,15 +1,17 @@
 package com.github.yizzuide.milkomeda.ice;
 
 import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.JavaType;
 
 import java.util.List;
+import java.util.stream.Collectors;
 
 /**
  * JobPool
  *
  * @author yizzuide
  * @since 1.15.0
- * @version  3.0.0
+ * @version 3.12.0
  * Create at 2019/11/16 15:42
  */
 public interface JobPool {
@@ -27,6 +29,18 @@ public interface JobPool {
      */
     <T> void push(List<Job<T>> jobs);
 
+    /**
+     * 添加不存在的任务（已存在的任务不会被覆盖）
+     * @param jobs  任务列表
+     * @return  新添加的任务
+     * @since 3.12.0
+     */
+    default List<Job<?>> pushIfAbsent(List<? extends Job<?>> jobs) {
+        List<Job<?>> acceptedJobs = jobs.stream().filter(job -> !exists(job.getId())).collect(Collectors.toList());
+        acceptedJobs.forEach(this::push);
+        return acceptedJobs;
+    }
+
     /**
      * 任务是否存在
      * @param jobId 任务id
@@ -62,6 +76,27 @@ public interface JobPool {
      */
     <T> List<Job<T>> getByType(List<String> jobIds, TypeReference<Job<T>> typeReference, int count);
 
+    /**
+     * 获取任务，直接从存储数据解码为指定类型
+     * @param jobId     任务id
+     * @param jobType   任务类型（如：Job&lt;Product&gt;）
+     * @param <T>       实体类型
+     * @return Job
+     * @since 3.12.0
+     */
+    <T> Job<T> getByType(String jobId, JavaType jobType);
+
+    /**
+     * 批量获取任务，直接从存储数据解码为指定类型
+     * @param jobIds    任务id列表
+     * @param jobType   任务类型（如：Job&lt;Product&gt;）
+     * @param count     批量数
+     * @param <T>       实体类型
+     * @return Job
+     * @since 3.12.0
+     */
+    <T> List<Job<T>> getByType(List<String> jobIds, JavaType jobType, int count);
+
     /**
      * 批量获取任务
      * @param jobIds 任务id列表
@@ -76,4 +111,13 @@ public interface JobPool {
      * @param jobIds 任务id
      */
     void remove(Object... jobIds);
+
+    /**
+     * 移除已过期的任务
+     * @return 移除的个数
+     * @since 3.12.0
+     */
+    default long removeExpired() {
+        return 0;
+    }
 }
@@ -0,0 +1,63 @@
+package com.github.yizzuide.milkomeda.ice;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Duration;
+
+/**
+ * JobResult
+ * 单个任务的处理结果，Topic监听器返回 JobResult 或 List&lt;JobResult&gt; 时按结果分别处理（没有结果的任务视为成功）
+ *
+ * @author yizzuide
+ * @since 3.12.0
+ * Create at 2026/10/18 15:55
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class JobResult {
+    /**
+     * 任务id
+     */
+    private String jobId;
+
+    /**
+     * 结果类型
+     */
+    private JobResultType type;
+
+    /**
+     * 重试延迟时间，单位ms
+     */
+    private long retryDelay;
+
+    /**
+     * 处理成功
+     * @param job   任务
+     * @return  JobResult
+     */
+    public static JobResult ack(Job<?> job) {
+        return new JobResult(job.getId(), JobResultType.ACK, 0);
+    }
+
+    /**
+     * 延迟后重试
+     * @param job   任务
+     * @param delay 延迟时间
+     * @return  JobResult
+     */
+    public static JobResult retryAfter(Job<?> job, Duration delay) {
+        return new JobResult(job.getId(), JobResultType.RETRY, delay.toMillis());
+    }
+
+    /**
+     * 放入Dead queue（需要时可以通过 {@link IceHolder#activeDeadJobs()} 重新激活）
+     * @param job   任务
+     * @return  JobResult
+     */
+    public static JobResult dead(Job<?> job) {
+        return new JobResult(job.getId(), JobResultType.DEAD, 0);
+    }
+}
@@ -0,0 +1,26 @@
+package com.github.yizzuide.milkomeda.ice;
+
+/**
+ * JobResultType
+ * 任务处理结果类型（同一任务有多个结果时，取序号大的）
+ *
+ * @author yizzuide
+ * @since 3.12.0
+ * Create at 2026/10/18 15:52
+ */
+public enum JobResultType {
+    /**
+     * 处理成功，清除任务
+     */
+    ACK,
+
+    /**
+     * 延迟后重试
+     */
+    RETRY,
+
+    /**
+     * 放入Dead queue
+     */
+    DEAD
+}
@@ -0,0 +1,42 @@
+package com.github.yizzuide.milkomeda.ice;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JavaType;
+import com.github.yizzuide.milkomeda.util.JSONUtil;
+
+import java.io.IOException;
+
+/**
+ * JsonJobCodec
+ * JSON格式的任务编解码器
+ *
+ * @author yizzuide
+ * @since 3.12.0
+ * Create at 2026/10/18 15:16
+ */
+public class JsonJobCodec implements JobCodec {
+
+    private final BinaryJobCodec binaryJobCodec = new BinaryJobCodec(0);
+
+    @Override
+    public byte[] encode(Job<?> job) {
+        try {
+            return JSONUtil.mapper.writeValueAsBytes(job);
+        } catch (JsonProcessingException e) {
+            throw new IllegalArgumentException("Ice encode job " + job.getId() + " error: " + e.getMessage(), e);
+        }
+    }
+
+    @Override
+    public <T> Job<T> decode(byte[] data, JavaType jobType) {
+        // 从二进制格式切换回来时的兼容
+        if (BinaryJobCodec.isBinary(data)) {
+            return binaryJobCodec.decode(data, jobType);
+        }
+        try {
+            return JSONUtil.mapper.readValue(data, jobType);
+        } catch (IOException e) {
+            throw new IllegalArgumentException("Ice decode job error: " + e.getMessage(), e);
+        }
+    }
+}
@@ -7,7 +7,7 @@ import java.util.List;
  *
  * @author yizzuide
  * @since 1.15.0
- * @version 1.15.2
+ * @version 3.12.0
  * Create at 2019/11/16 17:04
  */
 public interface ReadyQueue {
@@ -38,4 +38,33 @@ public interface ReadyQueue {
      * @return ready queue size
      */
     long size(String topic);
+
+    /**
+     * 是否支持消费确认（支持时由准备队列自身检测TTR超时，消费时不再通过延迟桶模拟重新投递）
+     * @return  支持返回true
+     * @since 3.12.0
+     */
+    default boolean isAckSupported() {
+        return false;
+    }
+
+    /**
+     * 确认消费完成
+     * @param jobIds    任务id列表
+     * @since 3.12.0
+     */
+    default void ack(Object... jobIds) {
+    }
+
+    /**
+     * 回收已超过TTR未确认的延迟任务（回收后由延迟桶进行TTR重试处理）
+     * @param topic     任务分组
+     * @param minIdle   最小空闲时间（单位：ms）
+     * @param count     最大回收数
+     * @return  超时的延迟任务
+     * @since 3.12.0
+     */
+    default List<DelayJob> reclaim(String topic, long minIdle, int count) {
+        return null;
+    }
 }
@@ -0,0 +1,21 @@
+package com.github.yizzuide.milkomeda.ice;
+
+/**
+ * ReadyQueueType
+ * 准备队列实现类型
+ *
+ * @author yizzuide
+ * @since 3.12.0
+ * Create at 2026/10/18 11:05
+ */
+public enum ReadyQueueType {
+    /**
+     * 基于Redis List（TTR通过延迟桶模拟重新投递）
+     */
+    LIST,
+
+    /**
+     * 基于Redis Streams消费组（原生消费确认，需要Redis 6.2+）
+     */
+    STREAM
+}
@@ -2,25 +2,40 @@ package com.github.yizzuide.milkomeda.ice;
 
 import com.github.yizzuide.milkomeda.universe.context.ApplicationContextHolder;
 import com.github.yizzuide.milkomeda.util.JSONUtil;
+import com.github.yizzuide.milkomeda.util.RedisUtil;
+import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.InitializingBean;
 import org.springframework.context.event.EventListener;
 import org.springframework.data.redis.core.BoundSetOperations;
+import org.springframework.data.redis.core.Cursor;
+import org.springframework.data.redis.core.ScanOptions;
 import org.springframework.data.redis.core.StringRedisTemplate;
 import org.springframework.util.CollectionUtils;
 
+import java.io.IOException;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Set;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
 
 /**
  * RedisDeadQueue
+ * Dead queue（重放时使用SSCAN游标分批读取，避免一次加载全部Job）
  *
  * @author yizzuide
  * @since 3.0.8
+ * @version 3.12.0
  * Create at 2020/04/17 00:51
  */
+@Slf4j
 public class RedisDeadQueue implements DeadQueue, InitializingBean {
 
+    /**
+     * 重放进度记录字段
+     */
+    private static final String FIELD_REPLAYED = "replayed";
+
     private StringRedisTemplate redisTemplate;
 
     private String deadQueueKey = "ice:dead_queue";
@@ -65,6 +80,77 @@ public class RedisDeadQueue implements DeadQueue, InitializingBean {
         return members.stream().map(s -> JSONUtil.parse(s, DelayJob.class)).collect(Collectors.toList());
     }
 
+    @Override
+    public long replay(DelayBucket delayBucket, int batchSize, long rateLimit, Consumer<DeadJobReplayProgress> listener) {
+        String deadQueueKey = this.deadQueueKey;
+        String replayKey = getReplayKey(deadQueueKey);
+        DeadJobReplayProgress progress = new DeadJobReplayProgress();
+        // 继续上次中断的进度
+        Object lastReplayed = redisTemplate.opsForHash().get(replayKey, FIELD_REPLAYED);
+        progress.setReplayed(lastReplayed == null ? 0 : Long.parseLong(lastReplayed.toString()));
+        Long size = redisTemplate.opsForSet().size(deadQueueKey);
+        progress.setTotal(progress.getReplayed() + (size == null ? 0 : size));
+        if (size == null || size == 0) {
+            finishReplay(replayKey, progress, listener);
+            return 0;
+        }
+
+        ScanOptions scanOptions = ScanOptions.scanOptions().count(batchSize).build();
+        // 移除已重放的成员不会影响SSCAN遍历剩余的成员
+        try (Cursor<String> cursor = redisTemplate.opsForSet().scan(deadQueueKey, scanOptions)) {
+            List<String> members = new ArrayList<>(batchSize);
+            while (cursor.hasNext()) {
+                members.add(cursor.next());
+                if (members.size() < batchSize && cursor.hasNext()) {
+                    continue;
+                }
+                replayBatch(delayBucket, deadQueueKey, replayKey, members);
+                progress.increase(members.size());
+                members.clear();
+                if (listener != null) {
+                    listener.accept(progress);
+                }
+                if (!progress.await(rateLimit)) {
+                    log.warn("Ice dead queue replay interrupted, replayed {}/{}.", progress.getReplayed(), progress.getTotal());
+                    return progress.getCurrentReplayed();
+                }
+            }
+        } catch (IOException e) {
+            log.error("Ice dead queue replay close cursor error: {}", e.getMessage(), e);
+        }
+        finishReplay(replayKey, progress, listener);
+        return progress.getCurrentReplayed();
+    }
+
+    /**
+     * 使用管道将一批Job放入延迟桶，并从Dead queue移除
+     */
+    private void replayBatch(DelayBucket delayBucket, String deadQueueKey, String replayKey, List<String> members) {
+        List<DelayJob> delayJobs = members.stream().map(s -> JSONUtil.parse(s, DelayJob.class)).collect(Collectors.toList());
+        RedisUtil.batchOps(() -> {
+            // 先添加再移除，中断时最多重复添加（ZADD对相同成员是幂等的）
+            delayBucket.add(delayJobs);
+            redisTemplate.opsForSet().remove(deadQueueKey, members.toArray());
+            redisTemplate.opsForHash().increment(replayKey, FIELD_REPLAYED, members.size());
+        }, redisTemplate);
+    }
+
+    private void finishReplay(String replayKey, DeadJobReplayProgress progress, Consumer<DeadJobReplayProgress> listener) {
+        redisTemplate.delete(replayKey);
+        progress.setFinished(true);
+        if (listener != null) {
+            listener.accept(progress);
+        }
+    }
+
+    private String getReplayKey(String deadQueueKey) {
+        return deadQueueKey + ":replay";
+    }
+
+    String getDeadQueueKey() {
+        return deadQueueKey;
+    }
+
     private BoundSetOperations<String, String> getDeadQueue(String key) {
         return redisTemplate.boundSetOps(key);
     }
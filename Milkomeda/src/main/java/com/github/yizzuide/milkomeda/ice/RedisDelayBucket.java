@@ -2,6 +2,7 @@ package com.github.yizzuide.milkomeda.ice;
 
 import com.github.yizzuide.milkomeda.universe.context.ApplicationContextHolder;
 import com.github.yizzuide.milkomeda.util.JSONUtil;
+import com.github.yizzuide.milkomeda.util.RedisUtil;
 import org.springframework.beans.factory.InitializingBean;
 import org.springframework.context.ApplicationListener;
 import org.springframework.data.redis.core.BoundZSetOperations;
@@ -12,6 +13,7 @@ import org.springframework.util.CollectionUtils;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.stream.Collectors;
@@ -22,7 +24,7 @@ import java.util.stream.Collectors;
  *
  * @author yizzuide
  * @since 1.15.0
- * @version 3.8.0
+ * @version 3.12.0
  * Create at 2019/11/16 16:17
  */
 public class RedisDelayBucket implements DelayBucket, InitializingBean, ApplicationListener<IceInstanceChangeEvent> {
@@ -40,30 +42,48 @@ public class RedisDelayBucket implements DelayBucket, InitializingBean, Applicat
 
     public RedisDelayBucket(IceProperties props) {
         this.props = props;
+        initBucketNames(IceKeys.nonDefaultInstanceName(props.getInstanceName()));
+    }
+
+    private void initBucketNames(String instanceName) {
+        bucketNames.clear();
         for (int i = 0; i < props.getDelayBucketCount(); i++) {
-            if (IceProperties.DEFAULT_INSTANCE_NAME.equals(props.getInstanceName())) {
+            if (IceKeys.isCluster(props)) {
+                bucketNames.add("ice:bucket:" + IceKeys.getTag(instanceName, i));
+            } else if (instanceName == null) {
                 bucketNames.add("ice:bucket" + i);
             } else {
-                bucketNames.add("ice:bucket" + i + ":" + props.getInstanceName());
+                bucketNames.add("ice:bucket" + i + ":" + instanceName);
             }
         }
     }
 
     @Override
     public void add(DelayJob delayJob) {
-        String bucketName = getCurrentBucketName();
+        String bucketName = IceKeys.isCluster(props) ?
+                bucketNames.get(IceKeys.getPartition(delayJob.getJodId(), bucketNames.size())) : getCurrentBucketName();
         BoundZSetOperations<String, String> bucket = getBucket(bucketName);
         bucket.add(delayJob.toSimple(), delayJob.getDelayTime());
     }
 
     @Override
     public void add(List<DelayJob> delayJobs) {
+        // 集群Key布局时，按任务所在分区放入对应的桶
+        if (IceKeys.isCluster(props)) {
+            Map<Integer, List<DelayJob>> partitionJobs = delayJobs.stream()
+                    .collect(Collectors.groupingBy(delayJob -> IceKeys.getPartition(delayJob.getJodId(), bucketNames.size())));
+            RedisUtil.batchOps(() -> partitionJobs.forEach((partition, jobs) -> getBucket(bucketNames.get(partition)).add(toTuples(jobs))), redisTemplate);
+            return;
+        }
         String bucketName = getCurrentBucketName();
         BoundZSetOperations<String, String> bucket = getBucket(bucketName);
-        Set<ZSetOperations.TypedTuple<String>> delayJobSet = delayJobs.stream()
+        bucket.add(toTuples(delayJobs));
+    }
+
+    private Set<ZSetOperations.TypedTuple<String>> toTuples(List<DelayJob> delayJobs) {
+        return delayJobs.stream()
                 .map(delayJob -> new DefaultTypedTuple<>(delayJob.toSimple(), (double) delayJob.getDelayTime()))
                 .collect(Collectors.toSet());
-        bucket.add(delayJobSet);
     }
 
     @SuppressWarnings("unchecked")
@@ -96,6 +116,21 @@ public class RedisDelayBucket implements DelayBucket, InitializingBean, Applicat
         bucket.remove(JSONUtil.serialize(delayJob));
     }
 
+    @Override
+    public void remove(List<DelayJob> delayJobs) {
+        Object[] members = delayJobs.stream().map(DelayJob::toSimple).toArray();
+        RedisUtil.batchOps(() -> bucketNames.forEach(bucketName -> redisTemplate.opsForZSet().remove(bucketName, members)), redisTemplate);
+    }
+
+    /**
+     * 获得所有桶名
+     *
+     * @return 桶名列表
+     */
+    List<String> getBucketNames() {
+        return bucketNames;
+    }
+
     /**
      * 获得桶的ZSet
      *
@@ -124,9 +159,6 @@ public class RedisDelayBucket implements DelayBucket, InitializingBean, Applicat
     @Override
     public void onApplicationEvent(IceInstanceChangeEvent event) {
         String instanceName = event.getSource().toString();
-        bucketNames.clear();
-        for (int i = 0; i < props.getDelayBucketCount(); i++) {
-            bucketNames.add("ice:bucket" + i + ":" + instanceName);
-        }
+        initBucketNames(instanceName);
     }
 }
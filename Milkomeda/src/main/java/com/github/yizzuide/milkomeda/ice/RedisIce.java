@@ -1,7 +1,9 @@
 package com.github.yizzuide.milkomeda.ice;
 
 import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.JavaType;
 import com.github.yizzuide.milkomeda.universe.polyfill.RedisPolyfill;
+import com.github.yizzuide.milkomeda.util.JSONUtil;
 import com.github.yizzuide.milkomeda.util.RedisUtil;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -10,8 +12,7 @@ import org.springframework.data.redis.core.StringRedisTemplate;
 import org.springframework.util.CollectionUtils;
 
 import java.time.Duration;
-import java.util.Collections;
-import java.util.List;
+import java.util.*;
 import java.util.stream.Collectors;
 
 /**
@@ -20,12 +21,27 @@ import java.util.stream.Collectors;
  *
  * @author yizzuide
  * @since 1.15.0
- * @version 3.0.9
+ * @version 3.12.0
  * Create at 2019/11/16 15:20
  */
 @Slf4j
 public class RedisIce implements Ice, ApplicationListener<IceInstanceChangeEvent> {
 
+    /**
+     * 确认队列中元数据已删除的任务时，一次拉取的最大轮数
+     */
+    private static final int MAX_POP_ROUNDS = 10;
+
+    /**
+     * 批量添加时每次写入延迟桶的最大任务数
+     */
+    private static final int ADD_BATCH_SIZE = 500;
+
+    /**
+     * 默认任务类型（业务数据解码为Map）
+     */
+    private static final JavaType DEFAULT_JOB_TYPE = JSONUtil.mapper.getTypeFactory().constructType(new TypeReference<Job<Object>>() {});
+
     @Autowired
     private JobPool jobPool;
 
@@ -35,6 +51,9 @@ public class RedisIce implements Ice, ApplicationListener<IceInstanceChangeEvent
     @Autowired
     private ReadyQueue readyQueue;
 
+    @Autowired
+    private DeadQueue deadQueue;
+
     @Autowired
     private StringRedisTemplate redisTemplate;
 
@@ -65,10 +84,49 @@ public class RedisIce implements Ice, ApplicationListener<IceInstanceChangeEvent
             return;
         }
         job.setStatus(JobStatus.DELAY);
+        DelayJob delayJob = new DelayJob(job);
         RedisUtil.batchOps(() -> {
             jobPool.push(job);
-            delayBucket.add(new DelayJob(job));
+            delayBucket.add(delayJob);
         }, redisTemplate);
+        IceHolder.wakeDelayTimer(delayJob.getDelayTime());
+    }
+
+    @SuppressWarnings("rawtypes")
+    @Override
+    public List<String> addAll(Collection<Job> jobs) {
+        return addAll(jobs, true);
+    }
+
+    @SuppressWarnings("rawtypes")
+    @Override
+    public List<String> addAll(Collection<Job> jobs, boolean mergeIdWithTopic) {
+        if (CollectionUtils.isEmpty(jobs)) {
+            return Collections.emptyList();
+        }
+        List<Job<?>> jobList = new ArrayList<>(jobs.size());
+        for (Job<?> job : jobs) {
+            if (mergeIdWithTopic) {
+                job.setId(job.getTopic() + "-" + job.getId());
+            }
+            job.setStatus(JobStatus.DELAY);
+            jobList.add(job);
+        }
+        // 批量去重写入任务池
+        List<Job<?>> acceptedJobs = jobPool.pushIfAbsent(jobList);
+        if (CollectionUtils.isEmpty(acceptedJobs)) {
+            return Collections.emptyList();
+        }
+        // 按桶数分批，每批一次ZADD写入一个桶（限制每批大小，防止单次ZADD过大）
+        int bucketBatchSize = Math.min(ADD_BATCH_SIZE, (acceptedJobs.size() + props.getDelayBucketCount() - 1) / props.getDelayBucketCount());
+        RedisUtil.batchOps(() -> {
+            for (int i = 0; i < acceptedJobs.size(); i += bucketBatchSize) {
+                List<Job<?>> bucketJobs = acceptedJobs.subList(i, Math.min(i + bucketBatchSize, acceptedJobs.size()));
+                delayBucket.add(bucketJobs.stream().map(DelayJob::new).collect(Collectors.toList()));
+            }
+        }, redisTemplate);
+        IceHolder.wakeDelayTimer(System.currentTimeMillis() + acceptedJobs.stream().mapToLong(Job::getDelay).min().orElse(0));
+        return acceptedJobs.stream().map(Job::getId).collect(Collectors.toList());
     }
 
     @Override
@@ -93,14 +151,29 @@ public class RedisIce implements Ice, ApplicationListener<IceInstanceChangeEvent
 
     @Override
     public <T> Job<T> pop(String topic) {
+        return pop(topic, DEFAULT_JOB_TYPE);
+    }
+
+    /**
+     * 取出待处理任务
+     * @param topic     任务分组
+     * @param jobType   任务类型
+     * @param <T>       业务数据
+     * @return  Job
+     */
+    private <T> Job<T> pop(String topic, JavaType jobType) {
+        if (readyQueue.isAckSupported()) {
+            List<Job<T>> jobs = pop(topic, 1, jobType);
+            return CollectionUtils.isEmpty(jobs) ? null : jobs.get(0);
+        }
         DelayJob delayJob = readyQueue.pop(topic);
         if (delayJob == null) {
             return null;
         }
-        Job<T> job = jobPool.getByType(delayJob.getJodId(), new TypeReference<Job<T>>(){});
+        Job<T> job = jobPool.getByType(delayJob.getJodId(), jobType);
         // 元数据已经删除，则取下一个
         if (job == null) {
-            job = pop(topic);
+            job = pop(topic, jobType);
             return job;
         }
 
@@ -108,23 +181,44 @@ public class RedisIce implements Ice, ApplicationListener<IceInstanceChangeEvent
         RedisUtil.batchOps(() -> {
             // 设置为处理中状态
             mJob.setStatus(JobStatus.RESERVED);
+            mJob.setCurrentRetryCount(delayJob.getRetryCount());
             // 更新延迟时间为TTR
             delayJob.setDelayTime(System.currentTimeMillis() + mJob.getTtr());
             jobPool.push(mJob);
             delayBucket.add(delayJob);
         }, redisTemplate);
+        IceHolder.wakeDelayTimer(delayJob.getDelayTime());
         return mJob;
     }
 
     @Override
     public <T> List<Job<T>> pop(String topic, int count) {
+        return pop(topic, count, DEFAULT_JOB_TYPE);
+    }
+
+    @Override
+    public <T> List<Job<T>> pop(String topic, int count, Class<T> bodyType) {
+        return pop(topic, count, JSONUtil.mapper.getTypeFactory().constructParametricType(Job.class, bodyType));
+    }
+
+    @Override
+    public <T> List<Job<T>> pop(String topic, int count, TypeReference<Job<T>> jobType) {
+        return pop(topic, count, JSONUtil.mapper.getTypeFactory().constructType(jobType));
+    }
+
+    @Override
+    public <T> List<Job<T>> pop(String topic, int count, JavaType jobType) {
+        if (jobType == null) jobType = DEFAULT_JOB_TYPE;
         // 获取个数小于1或空队列直接返回
         if (count < 1 || readyQueue.size(topic) == 0) return null;
+        // 支持消费确认的准备队列，不需要通过延迟桶模拟TTR
+        if (readyQueue.isAckSupported()) return popWithAck(topic, count, jobType);
         // 如果只取1个时，直接使用pop（保证原子性）
-        if (count == 1) return Collections.singletonList(pop(topic));
+        if (count == 1) return Collections.singletonList(pop(topic, jobType));
 
-        // 使用SetNX锁住资源，防止多线程并发执行，造成重复消费问题
-        boolean hasObtainLock = RedisUtil.setIfAbsent(this.lockKey, props.getTaskPopCountLockTimeoutSeconds().getSeconds(), redisTemplate);
+        // 使用SetNX锁住资源，防止多线程并发执行，造成重复消费问题（按Topic加锁，各Topic之间不互相竞争）
+        String topicLockKey = this.lockKey + ":" + topic;
+        boolean hasObtainLock = RedisUtil.setIfAbsent(topicLockKey, props.getTaskPopCountLockTimeoutSeconds().getSeconds(), redisTemplate);
         if (!hasObtainLock) return null;
 
         List<Job<T>> jobList;
@@ -134,10 +228,10 @@ public class RedisIce implements Ice, ApplicationListener<IceInstanceChangeEvent
                 return null;
             }
             List<String> jobIds = delayJobList.stream().map(DelayJob::getJodId).collect(Collectors.toList());
-            jobList = jobPool.getByType(jobIds, new TypeReference<Job<T>>(){}, count);
+            jobList = jobPool.getByType(jobIds, jobType, count);
             // 元数据已经删除，则取下一个
             if (CollectionUtils.isEmpty(jobList)) {
-                jobList = pop(topic, count);
+                jobList = pop(topic, count, jobType);
                 return jobList;
             }
             List<Job<T>> mJobList = jobList;
@@ -149,17 +243,84 @@ public class RedisIce implements Ice, ApplicationListener<IceInstanceChangeEvent
                     // 更新延迟时间为TTR
                     DelayJob delayJob = delayJobList.get(i);
                     delayJob.setDelayTime(System.currentTimeMillis() + mJob.getTtr());
+                    mJob.setCurrentRetryCount(delayJob.getRetryCount());
                 }
                 jobPool.push(mJobList);
                 delayBucket.add(delayJobList);
             }, redisTemplate);
+            IceHolder.wakeDelayTimer(delayJobList.stream().mapToLong(DelayJob::getDelayTime).min().orElse(System.currentTimeMillis()));
         } finally {
             // 删除Lock
-            RedisPolyfill.redisDelete(redisTemplate, this.lockKey);
+            RedisPolyfill.redisDelete(redisTemplate, topicLockKey);
         }
         return jobList;
     }
 
+    /**
+     * 从支持消费确认的准备队列批量取出任务
+     * @param topic 任务分组
+     * @param count 批量数
+     * @param jobType 任务类型
+     * @param <T>   业务数据
+     * @return List
+     */
+    private <T> List<Job<T>> popWithAck(String topic, int count, JavaType jobType) {
+        // 超过TTR未确认的任务交由延迟桶做TTR重试处理
+        List<DelayJob> ttrDelayJobs = readyQueue.reclaim(topic, props.getTtr().toMillis(), count);
+        if (!CollectionUtils.isEmpty(ttrDelayJobs)) {
+            reserveTtrJobs(ttrDelayJobs);
+        }
+        List<DelayJob> delayJobList = null;
+        List<Job<T>> jobList = null;
+        // 元数据已经删除，确认后取下一批（限制次数，防止大量无效消息时长时间占用调度线程）
+        for (int i = 0; i < MAX_POP_ROUNDS && CollectionUtils.isEmpty(jobList); i++) {
+            delayJobList = readyQueue.pop(topic, count);
+            if (CollectionUtils.isEmpty(delayJobList)) {
+                return null;
+            }
+            List<String> jobIds = delayJobList.stream().map(DelayJob::getJodId).collect(Collectors.toList());
+            jobList = jobPool.getByType(jobIds, jobType, count);
+            if (CollectionUtils.isEmpty(jobList)) {
+                readyQueue.ack(jobIds.toArray());
+            }
+        }
+        if (CollectionUtils.isEmpty(jobList)) {
+            return null;
+        }
+        Map<String, Integer> retryCountMap = delayJobList.stream().collect(Collectors.toMap(DelayJob::getJodId, DelayJob::getRetryCount, (c1, c2) -> c1));
+        jobList.forEach(job -> job.setCurrentRetryCount(retryCountMap.getOrDefault(job.getId(), 0)));
+        return jobList;
+    }
+
+    /**
+     * 将TTR超时的任务设置为处理中，并添加到延迟桶立即进行TTR处理
+     * @param ttrDelayJobs  TTR超时的延迟任务
+     */
+    @SuppressWarnings("rawtypes")
+    private void reserveTtrJobs(List<DelayJob> ttrDelayJobs) {
+        List<Job> ttrJobs = new ArrayList<>();
+        List<DelayJob> validDelayJobs = new ArrayList<>();
+        for (DelayJob ttrDelayJob : ttrDelayJobs) {
+            Job job = jobPool.get(ttrDelayJob.getJodId());
+            // 元数据已删除（已完成）
+            if (job == null) {
+                continue;
+            }
+            job.setStatus(JobStatus.RESERVED);
+            ttrDelayJob.setDelayTime(System.currentTimeMillis());
+            ttrJobs.add(job);
+            validDelayJobs.add(ttrDelayJob);
+        }
+        if (ttrJobs.isEmpty()) {
+            return;
+        }
+        RedisUtil.batchOps(() -> {
+            ttrJobs.forEach(jobPool::push);
+            delayBucket.add(validDelayJobs);
+        }, redisTemplate);
+        IceHolder.wakeDelayTimer(System.currentTimeMillis());
+    }
+
     @Override
     public <T> void finish(List<Job<T>> jobs) {
         delete(jobs);
@@ -170,6 +331,65 @@ public class RedisIce implements Ice, ApplicationListener<IceInstanceChangeEvent
         delete(jobIds);
     }
 
+    @Override
+    public <T> void finish(List<Job<T>> jobs, Collection<JobResult> results) {
+        // 合并同一任务的多个结果
+        Map<String, JobResult> resultMap = new HashMap<>();
+        for (JobResult result : results) {
+            resultMap.merge(result.getJobId(), result, (r1, r2) -> {
+                if (r1.getType() != r2.getType()) {
+                    return r1.getType().compareTo(r2.getType()) > 0 ? r1 : r2;
+                }
+                return r1.getRetryDelay() >= r2.getRetryDelay() ? r1 : r2;
+            });
+        }
+        List<Object> ackJobIds = new ArrayList<>();
+        List<Job<T>> reAddJobs = new ArrayList<>();
+        List<DelayJob> ttrDelayJobs = new ArrayList<>();
+        List<DelayJob> retryDelayJobs = new ArrayList<>();
+        List<DelayJob> deadDelayJobs = new ArrayList<>();
+        long now = System.currentTimeMillis();
+        for (Job<T> job : jobs) {
+            JobResult result = resultMap.get(job.getId());
+            if (result == null || result.getType() == JobResultType.ACK) {
+                ackJobIds.add(job.getId());
+                continue;
+            }
+            // 延迟桶中的TTR检测记录
+            DelayJob ttrDelayJob = new DelayJob(job);
+            ttrDelayJob.setRetryCount(job.getCurrentRetryCount());
+            ttrDelayJobs.add(ttrDelayJob);
+            job.setStatus(JobStatus.DELAY);
+            reAddJobs.add(job);
+            if (result.getType() == JobResultType.RETRY) {
+                ttrDelayJob.setDelayTime(now + result.getRetryDelay());
+                retryDelayJobs.add(ttrDelayJob);
+            } else {
+                DelayJob deadDelayJob = new DelayJob(job);
+                deadDelayJob.setDelayTime(job.getDelay());
+                deadDelayJobs.add(deadDelayJob);
+            }
+        }
+        RedisUtil.batchOps(() -> {
+            if (!ackJobIds.isEmpty()) {
+                jobPool.remove(ackJobIds.toArray());
+            }
+            if (!reAddJobs.isEmpty()) {
+                jobPool.push(reAddJobs);
+                // 清除TTR检测记录，防止重新投递
+                delayBucket.remove(ttrDelayJobs);
+            }
+            if (!retryDelayJobs.isEmpty()) {
+                delayBucket.add(retryDelayJobs);
+            }
+            deadDelayJobs.forEach(deadQueue::add);
+            readyQueue.ack(jobs.stream().map(Job::getId).toArray());
+        }, redisTemplate);
+        if (!retryDelayJobs.isEmpty()) {
+            IceHolder.wakeDelayTimer(retryDelayJobs.stream().mapToLong(DelayJob::getDelayTime).min().orElse(now));
+        }
+    }
+
     @Override
     public <T> void delete(List<Job<T>> jobs) {
         List<String> jobIds = jobs.stream().map(Job::getId).collect(Collectors.toList());
@@ -179,6 +399,7 @@ public class RedisIce implements Ice, ApplicationListener<IceInstanceChangeEvent
     @Override
     public void delete(Object... jobIds) {
         jobPool.remove(jobIds);
+        readyQueue.ack(jobIds);
     }
 
     @Override
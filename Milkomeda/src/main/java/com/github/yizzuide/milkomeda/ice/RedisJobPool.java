@@ -1,115 +1,275 @@
 package com.github.yizzuide.milkomeda.ice;
 
 import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.JavaType;
 import com.github.yizzuide.milkomeda.universe.context.ApplicationContextHolder;
 import com.github.yizzuide.milkomeda.util.JSONUtil;
+import com.github.yizzuide.milkomeda.util.RedisScriptRegistry;
+import com.github.yizzuide.milkomeda.util.RedisUtil;
+import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.InitializingBean;
 import org.springframework.context.ApplicationListener;
 import org.springframework.dao.DataAccessException;
-import org.springframework.data.redis.core.BoundHashOperations;
+import org.springframework.data.redis.core.Cursor;
 import org.springframework.data.redis.core.RedisOperations;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.ScanOptions;
 import org.springframework.data.redis.core.SessionCallback;
 import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.data.redis.serializer.RedisSerializer;
 import org.springframework.lang.NonNull;
 import org.springframework.util.CollectionUtils;
-import org.springframework.util.StringUtils;
 
-import java.util.ArrayList;
-import java.util.List;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
 import java.util.concurrent.TimeUnit;
 import java.util.stream.Collectors;
 
 /**
  * RedisJobPool
+ * 任务池（根据任务id分片存储到多个Hash中，并通过每个分片对应的ZSet记录任务过期时间，由后台定时清除过期任务）<br>
+ * 任务使用 {@link JobCodec} 编码后以二进制存储
  *
  * @author yizzuide
  * @since 1.15.0
- * @version 3.11.0
+ * @version 3.12.0
  * Create at 2019/11/16 15:45
  */
+@Slf4j
 public class RedisJobPool implements JobPool, InitializingBean, ApplicationListener<IceInstanceChangeEvent> {
 
+    /**
+     * 每次清除过期任务的最大个数
+     */
+    private static final int SWEEP_BATCH_SIZE = 500;
+
+    /**
+     * 一次清除过期任务的最长时间（单位：ms），超过时剩余的过期任务在下次清除
+     */
+    private static final long SWEEP_TIME_BUDGET = 1000;
+
+    /**
+     * 旧版本任务池补充过期时间记录时每次扫描的个数
+     */
+    private static final int BACKFILL_BATCH_SIZE = 500;
+
+    /**
+     * 批量添加不存在的任务时每次脚本调用的最大任务数
+     */
+    private static final int PUSH_NX_BATCH_SIZE = 200;
+
     private StringRedisTemplate redisTemplate;
 
+    /**
+     * 任务数据以二进制读写的模板
+     */
+    private RedisTemplate<String, byte[]> jobRedisTemplate;
+
+    private JobCodec jobCodec;
+
     private IceProperties props;
 
-    private String jobPoolKey = "ice:job_pool";
+    /**
+     * 分片Key（实例名变更时整体替换，读取时不需要加锁）
+     */
+    private volatile ShardKeys shardKeys;
+
+    private RedisScript<Long> sweepScript;
+
+    private RedisScript<Long> backfillScript;
+
+    @SuppressWarnings("rawtypes")
+    private RedisScript<List> pushNxScript;
 
     public RedisJobPool(IceProperties props) {
-        if (!IceProperties.DEFAULT_INSTANCE_NAME.equals(props.getInstanceName())) {
-            this.jobPoolKey = "ice:job_pool" + ":" + props.getInstanceName();
+        this.props = props;
+        initKeys(IceKeys.nonDefaultInstanceName(props.getInstanceName()));
+    }
+
+    private void initKeys(String instanceName) {
+        List<String> jobPoolKeys = new ArrayList<>();
+        List<String> jobExpireKeys = new ArrayList<>();
+        // 集群Key布局时，每个分片与对应分区的延迟桶落在同一Slot
+        if (IceKeys.isCluster(props)) {
+            for (int i = 0; i < IceKeys.getPartitionCount(props); i++) {
+                String tag = IceKeys.getTag(instanceName, i);
+                jobPoolKeys.add("ice:job_pool:" + tag);
+                jobExpireKeys.add("ice:job_expire:" + tag);
+            }
+        } else {
+            String suffix = instanceName == null ? "" : ":" + instanceName;
+            int shardCount = props.getJobPoolShardCount();
+            for (int i = 0; i < shardCount; i++) {
+                // 只有一个分片时，保持与旧版本的Key一致
+                String shard = shardCount == 1 ? "" : String.valueOf(i);
+                jobPoolKeys.add("ice:job_pool" + shard + suffix);
+                jobExpireKeys.add("ice:job_expire" + shard + suffix);
+            }
         }
+        this.shardKeys = new ShardKeys(jobPoolKeys, jobExpireKeys);
     }
 
-    private BoundHashOperations<String, String, String> getPool () {
-        return redisTemplate.boundHashOps(jobPoolKey);
+    private byte[] getJobData(String jobId) {
+        return jobRedisTemplate.<String, byte[]>opsForHash().get(shardKeys.getPoolKey(jobId), jobId);
+    }
+
+    private <T> Job<T> decode(byte[] data, JavaType jobType) {
+        return jobCodec.decode(data, jobType);
+    }
+
+    private <T> JavaType toJavaType(TypeReference<Job<T>> typeReference) {
+        return JSONUtil.mapper.getTypeFactory().constructType(typeReference);
     }
 
     @SuppressWarnings("rawtypes")
     @Override
     public void push(Job job) {
-        redisTemplate.executePipelined(new SessionCallback<Object>() {
-            @SuppressWarnings("unchecked")
-            @Override
-            public <K, V> Object execute(@NonNull RedisOperations<K, V> operations) throws DataAccessException {
-                operations.boundHashOps((K) jobPoolKey).expire(props.getJobExpire().getSeconds(), TimeUnit.SECONDS);
-                operations.boundHashOps((K) jobPoolKey).put(job.getId(), JSONUtil.serialize(job));
-                return null;
-            }
-        });
+        write(Collections.<Job<?>>singletonList(job));
     }
 
     @Override
     public <T> void push(List<Job<T>> jobs) {
-        redisTemplate.executePipelined(new SessionCallback<Object>() {
-            @SuppressWarnings("unchecked")
-            @Override
-            public <K, V> Object execute(@NonNull RedisOperations<K, V> operations) throws DataAccessException {
-                operations.boundHashOps((K) jobPoolKey).expire(props.getJobExpire().getSeconds(), TimeUnit.SECONDS);
-                operations.boundHashOps((K) jobPoolKey).putAll(jobs.stream().collect(Collectors.toMap(Job::getId, JSONUtil::serialize)));
-                return null;
+        write(jobs);
+    }
+
+    /**
+     * 写入任务及过期时间记录（在外层的批量操作中调用时加入外层的管道）
+     * @param jobs  任务列表
+     */
+    private void write(List<? extends Job<?>> jobs) {
+        ShardKeys keys = shardKeys;
+        double expireTime = System.currentTimeMillis() + props.getJobExpire().toMillis();
+        Map<Integer, List<Job<?>>> shardJobs = jobs.stream().collect(Collectors.groupingBy(job -> keys.getShard(job.getId())));
+        RedisUtil.batchOps(() -> shardJobs.forEach((shard, jobList) -> {
+            Map<String, byte[]> jobDataMap = new HashMap<>();
+            for (Job<?> job : jobList) {
+                jobDataMap.put(job.getId(), jobCodec.encode(job));
+            }
+            jobRedisTemplate.<String, byte[]>opsForHash().putAll(keys.poolKeys.get(shard), jobDataMap);
+            // 记录每个任务的过期时间
+            for (Job<?> job : jobList) {
+                jobRedisTemplate.opsForZSet().add(keys.expireKeys.get(shard), toBytes(job.getId()), expireTime);
+            }
+        }), jobRedisTemplate);
+    }
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    @Override
+    public List<Job<?>> pushIfAbsent(List<? extends Job<?>> jobs) {
+        byte[] expireTime = toBytes(String.valueOf(System.currentTimeMillis() + props.getJobExpire().toMillis()));
+        ShardKeys keys = shardKeys;
+        Map<String, Job<?>> jobMap = new LinkedHashMap<>();
+        Map<Integer, List<Job<?>>> shardJobs = new HashMap<>();
+        for (Job<?> job : jobs) {
+            // 同一批次里重复的任务只保留第一个
+            if (jobMap.putIfAbsent(job.getId(), job) != null) {
+                continue;
+            }
+            shardJobs.computeIfAbsent(keys.getShard(job.getId()), k -> new ArrayList<>()).add(job);
+        }
+        // 每批一次脚本调用完成判断存在、写入及过期时间记录，限制每批任务数，防止大批量任务长时间阻塞Redis
+        Set<String> acceptedIds = new HashSet<>();
+        shardJobs.forEach((shard, shardJobList) -> {
+            List<String> scriptKeys = Arrays.asList(keys.poolKeys.get(shard), keys.expireKeys.get(shard));
+            for (int i = 0; i < shardJobList.size(); i += PUSH_NX_BATCH_SIZE) {
+                List<Job<?>> batchJobs = shardJobList.subList(i, Math.min(i + PUSH_NX_BATCH_SIZE, shardJobList.size()));
+                Object[] args = new Object[batchJobs.size() * 2 + 1];
+                args[0] = expireTime;
+                for (int j = 0; j < batchJobs.size(); j++) {
+                    Job<?> job = batchJobs.get(j);
+                    args[j * 2 + 1] = toBytes(job.getId());
+                    args[j * 2 + 2] = jobCodec.encode(job);
+                }
+                // 返回的每个id使用字符串反序列化
+                List<String> ids = jobRedisTemplate.execute(pushNxScript, RedisSerializer.byteArray(), (RedisSerializer) RedisSerializer.string(), scriptKeys, args);
+                if (ids != null) {
+                    acceptedIds.addAll(ids);
+                }
             }
         });
+        return jobMap.values().stream().filter(job -> acceptedIds.contains(job.getId())).collect(Collectors.toList());
     }
 
     @Override
     public boolean exists(String jobId) {
-        String job = getPool().get(jobId);
-        return !StringUtils.isEmpty(job);
+        Boolean exists = jobRedisTemplate.opsForHash().hasKey(shardKeys.getPoolKey(jobId), jobId);
+        return exists != null && exists;
     }
 
     @SuppressWarnings("rawtypes")
     @Override
     public Job get(String jobId) {
-        String job = getPool().get(jobId);
+        byte[] job = getJobData(jobId);
         if (null == job) return null;
-        return JSONUtil.parse(job, Job.class);
+        return decode(job, JSONUtil.mapper.getTypeFactory().constructType(Job.class));
     }
 
     @Override
     public <T> Job<T> getByType(String jobId, TypeReference<Job<T>> typeReference) {
-        String job = getPool().get(jobId);
-        if (null == job) return null;
-        return JSONUtil.nativeRead(job, typeReference);
+        return getByType(jobId, toJavaType(typeReference));
     }
 
     @Override
     public <T> List<Job<T>> getByType(List<String> jobIds, TypeReference<Job<T>> typeReference, int count) {
-        List<String> jobOrigList = getPool().multiGet(jobIds);
+        return getByType(jobIds, toJavaType(typeReference), count);
+    }
+
+    @Override
+    public <T> Job<T> getByType(String jobId, JavaType jobType) {
+        byte[] job = getJobData(jobId);
+        if (null == job) return null;
+        return decode(job, jobType);
+    }
+
+    @Override
+    public <T> List<Job<T>> getByType(List<String> jobIds, JavaType jobType, int count) {
+        List<byte[]> jobOrigList = multiGet(jobIds);
         if (CollectionUtils.isEmpty(jobOrigList)) {
             return null;
         }
 
         List<Job<T>> jobList = new ArrayList<>();
-        for (String job : jobOrigList) {
+        for (byte[] job : jobOrigList) {
             if (null == job) {
                 continue;
             }
-            jobList.add(JSONUtil.nativeRead(job, typeReference));
+            jobList.add(decode(job, jobType));
         }
         return jobList;
     }
 
+    /**
+     * 按分片批量获取任务（多个分片时使用管道一次请求）
+     * @param jobIds    任务id列表
+     * @return  与任务id顺序一致的任务数据
+     */
+    @SuppressWarnings("unchecked")
+    private List<byte[]> multiGet(List<String> jobIds) {
+        ShardKeys keys = shardKeys;
+        if (keys.poolKeys.size() == 1) {
+            return jobRedisTemplate.<String, byte[]>opsForHash().multiGet(keys.poolKeys.get(0), jobIds);
+        }
+        Map<Integer, List<String>> shardJobIds = jobIds.stream().collect(Collectors.groupingBy(keys::getShard, LinkedHashMap::new, Collectors.toList()));
+        List<Object> results = jobRedisTemplate.executePipelined(new SessionCallback<Object>() {
+            @Override
+            public <K, V> Object execute(@NonNull RedisOperations<K, V> operations) throws DataAccessException {
+                shardJobIds.forEach((shard, ids) -> operations.opsForHash().multiGet((K) keys.poolKeys.get(shard), new ArrayList<>(ids)));
+                return null;
+            }
+        });
+        Map<String, byte[]> jobMap = new HashMap<>();
+        int i = 0;
+        for (List<String> ids : shardJobIds.values()) {
+            List<byte[]> values = (List<byte[]>) results.get(i++);
+            for (int j = 0; j < ids.size(); j++) {
+                jobMap.put(ids.get(j), values == null ? null : values.get(j));
+            }
+        }
+        return jobIds.stream().map(jobMap::get).collect(Collectors.toList());
+    }
+
     @Override
     public List<Job<String>> getByStringType(List<String> jobIds, TypeReference<Job<String>> typeReference, int count) {
         return getByType(jobIds, typeReference, count);
@@ -117,18 +277,127 @@ public class RedisJobPool implements JobPool, InitializingBean, ApplicationListe
 
     @Override
     public void remove(Object... jobIds) {
-        getPool().delete(jobIds);
+        ShardKeys keys = shardKeys;
+        Map<Integer, List<Object>> shardJobIds = Arrays.stream(jobIds).collect(Collectors.groupingBy(jobId -> keys.getShard(String.valueOf(jobId))));
+        RedisUtil.batchOps(() -> shardJobIds.forEach((shard, ids) -> {
+            Object[] idArray = ids.stream().map(String::valueOf).toArray();
+            redisTemplate.opsForHash().delete(keys.poolKeys.get(shard), idArray);
+            redisTemplate.opsForZSet().remove(keys.expireKeys.get(shard), idArray);
+        }), redisTemplate);
+    }
+
+    @Override
+    public long removeExpired() {
+        ShardKeys keys = shardKeys;
+        long count = 0;
+        long deadline = System.currentTimeMillis() + SWEEP_TIME_BUDGET;
+        String limit = String.valueOf(SWEEP_BATCH_SIZE);
+        for (int i = 0; i < keys.poolKeys.size(); i++) {
+            List<String> sweepKeys = Arrays.asList(keys.poolKeys.get(i), keys.expireKeys.get(i));
+            long removed;
+            // 清除数达到批次大小时，可能还有过期任务，继续清除直到超过时间预算
+            do {
+                Long batchRemoved = redisTemplate.execute(sweepScript, sweepKeys, String.valueOf(System.currentTimeMillis()), limit);
+                removed = batchRemoved == null ? 0 : batchRemoved;
+                count += removed;
+            } while (removed == SWEEP_BATCH_SIZE && System.currentTimeMillis() < deadline);
+        }
+        return count;
     }
 
     @Override
-    public void afterPropertiesSet() {
+    public void afterPropertiesSet() throws Exception {
         redisTemplate = ApplicationContextHolder.get().getBean(StringRedisTemplate.class);
         props =  ApplicationContextHolder.get().getBean(IceProperties.class);
+        jobCodec = ApplicationContextHolder.get().getBean(JobCodec.class);
+        // 与StringRedisTemplate使用同一连接工厂，管道中会共用同一连接
+        jobRedisTemplate = new RedisTemplate<>();
+        jobRedisTemplate.setConnectionFactory(redisTemplate.getRequiredConnectionFactory());
+        jobRedisTemplate.setKeySerializer(RedisSerializer.string());
+        jobRedisTemplate.setValueSerializer(RedisSerializer.byteArray());
+        jobRedisTemplate.setHashKeySerializer(RedisSerializer.string());
+        jobRedisTemplate.setHashValueSerializer(RedisSerializer.byteArray());
+        jobRedisTemplate.afterPropertiesSet();
+        sweepScript = RedisScriptRegistry.get("ice_job_pool_sweep.lua", Long.class);
+        backfillScript = RedisScriptRegistry.get("ice_job_pool_backfill.lua", Long.class);
+        pushNxScript = RedisScriptRegistry.get("ice_job_pool_push_nx.lua", List.class);
+        migrateLegacyExpire(shardKeys);
+    }
+
+    /**
+     * 旧版本对整个任务池设置了过期时间，改为单个任务过期：先为没有过期时间记录的任务补充记录（使用任务池剩余的过期时间），再移除任务池的过期时间
+     * @param keys  分片Key
+     */
+    private void migrateLegacyExpire(ShardKeys keys) {
+        for (int i = 0; i < keys.poolKeys.size(); i++) {
+            String jobPoolKey = keys.poolKeys.get(i);
+            Long ttl = redisTemplate.getExpire(jobPoolKey, TimeUnit.MILLISECONDS);
+            if (ttl == null || ttl <= 0) {
+                continue;
+            }
+            String expireTime = String.valueOf(System.currentTimeMillis() + ttl);
+            List<String> backfillKeys = Arrays.asList(jobPoolKey, keys.expireKeys.get(i));
+            List<String> jobIds = new ArrayList<>(BACKFILL_BATCH_SIZE + 1);
+            jobIds.add(expireTime);
+            ScanOptions scanOptions = ScanOptions.scanOptions().count(BACKFILL_BATCH_SIZE).build();
+            try (Cursor<Map.Entry<Object, Object>> cursor = redisTemplate.opsForHash().scan(jobPoolKey, scanOptions)) {
+                while (cursor.hasNext()) {
+                    jobIds.add(String.valueOf(cursor.next().getKey()));
+                    if (jobIds.size() > BACKFILL_BATCH_SIZE) {
+                        redisTemplate.execute(backfillScript, backfillKeys, jobIds.toArray());
+                        jobIds.subList(1, jobIds.size()).clear();
+                    }
+                }
+            } catch (IOException e) {
+                log.warn("Ice job pool close scan cursor error: {}", e.getMessage());
+            }
+            if (jobIds.size() > 1) {
+                redisTemplate.execute(backfillScript, backfillKeys, jobIds.toArray());
+            }
+            redisTemplate.persist(jobPoolKey);
+        }
+    }
+
+    private static byte[] toBytes(String value) {
+        return value.getBytes(StandardCharsets.UTF_8);
     }
 
     @Override
     public void onApplicationEvent(IceInstanceChangeEvent event) {
         String instanceName = event.getSource().toString();
-        jobPoolKey = "ice:job_pool" + ":" + instanceName;
+        initKeys(instanceName);
+    }
+
+    /**
+     * 分片Key
+     */
+    static class ShardKeys {
+        /**
+         * 分片任务池Key
+         */
+        final List<String> poolKeys;
+
+        /**
+         * 分片任务过期时间Key
+         */
+        final List<String> expireKeys;
+
+        ShardKeys(List<String> poolKeys, List<String> expireKeys) {
+            this.poolKeys = Collections.unmodifiableList(poolKeys);
+            this.expireKeys = Collections.unmodifiableList(expireKeys);
+        }
+
+        /**
+         * 根据任务id获取分片索引
+         * @param jobId 任务id
+         * @return  分片索引
+         */
+        int getShard(String jobId) {
+            return IceKeys.getPartition(jobId, poolKeys.size());
+        }
+
+        String getPoolKey(String jobId) {
+            return poolKeys.get(getShard(jobId));
+        }
     }
 }
@@ -1,85 +1,213 @@
 package com.github.yizzuide.milkomeda.ice;
 
 import com.github.yizzuide.milkomeda.universe.context.ApplicationContextHolder;
+import com.github.yizzuide.milkomeda.util.RedisScriptRegistry;
 import org.springframework.beans.factory.InitializingBean;
 import org.springframework.context.ApplicationListener;
+import org.springframework.dao.DataAccessException;
 import org.springframework.data.redis.core.BoundListOperations;
+import org.springframework.data.redis.core.RedisOperations;
+import org.springframework.data.redis.core.SessionCallback;
 import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.lang.NonNull;
 import org.springframework.util.CollectionUtils;
 
+import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.stream.Collectors;
 
 /**
  * RedisReadyQueue
+ * 准备队列（开启任务优先级时，每个优先级对应一个List，批量获取时通过脚本按优先级从高到低一次取出）<br>
+ * 使用集群Key布局时，每个分区有独立的队列，与该分区的延迟桶在同一Slot
  *
  * @author yizzuide
  * @since 1.15.0
- * @version 3.0.7
+ * @version 3.12.0
  * Create at 2019/11/16 17:07
  */
 public class RedisReadyQueue implements ReadyQueue, InitializingBean, ApplicationListener<IceInstanceChangeEvent> {
 
+    private final IceProperties props;
+
     private StringRedisTemplate redisTemplate;
 
     private String readyQueueKey = "ice:ready_queue";
 
+    private String instanceName;
+
+    /**
+     * 集群Key布局时轮流从不同分区开始取
+     */
+    private final AtomicInteger partitionIndex = new AtomicInteger(0);
+
+    @SuppressWarnings("rawtypes")
+    private RedisScript<List> priorityPopScript;
+
     public RedisReadyQueue(IceProperties props) {
-        if (!IceProperties.DEFAULT_INSTANCE_NAME.equals(props.getInstanceName())) {
+        this.props = props;
+        this.instanceName = IceKeys.nonDefaultInstanceName(props.getInstanceName());
+        if (this.instanceName != null) {
             this.readyQueueKey = "ice:ready_queue:" + props.getInstanceName();
         }
     }
 
     @Override
     public void push(DelayJob delayJob) {
-        BoundListOperations<String, String> listOperations = getQueue(delayJob.getTopic());
-        listOperations.rightPush(delayJob.toSimple());
+        int partition = IceKeys.getPartition(delayJob.getJodId(), IceKeys.getPartitionCount(props));
+        BoundListOperations<String, String> listOperations = redisTemplate.boundListOps(getKey(delayJob.getTopic(), partition, delayJob.getPriority()));
+        // 记录进入准备队列的时间（用于统计等待时长）
+        listOperations.rightPush(delayJob.toSimple() + "#" + System.currentTimeMillis());
     }
 
     @Override
     public DelayJob pop(String topic) {
+        if (isPriorityEnabled() || IceKeys.isCluster(props)) {
+            List<DelayJob> delayJobs = pop(topic, 1);
+            return CollectionUtils.isEmpty(delayJobs) ? null : delayJobs.get(0);
+        }
         BoundListOperations<String, String> listOperations = getQueue(topic);
         String delayJob = listOperations.leftPop();
         if (null == delayJob) return null;
         return DelayJob.compatibleDecode(delayJob, null);
     }
 
+    @SuppressWarnings("unchecked")
     @Override
     public List<DelayJob> pop(String topic, int count) {
-        // 获取区间
-        List<String> delayJobOrigList = getQueue(topic).range(0, count);
+        List<String> delayJobOrigList;
+        if (IceKeys.isCluster(props)) {
+            // 依次从各分区取，每个分区一次脚本调用
+            int partitionCount = IceKeys.getPartitionCount(props);
+            int start = (partitionIndex.getAndIncrement() & Integer.MAX_VALUE) % partitionCount;
+            delayJobOrigList = new ArrayList<>(count);
+            for (int i = 0; i < partitionCount && delayJobOrigList.size() < count; i++) {
+                List<String> items = popByScript(topic, (start + i) % partitionCount, count - delayJobOrigList.size());
+                if (items != null) {
+                    delayJobOrigList.addAll(items);
+                }
+            }
+        } else if (isPriorityEnabled()) {
+            // 一次脚本调用按优先级取出
+            delayJobOrigList = popByScript(topic, 0, count);
+        } else {
+            // 获取区间
+            delayJobOrigList = getQueue(topic).range(0, count);
+            if (CollectionUtils.isEmpty(delayJobOrigList)) {
+                return null;
+            }
+            // 删除区间
+            getQueue(topic).trim(count + 1, -1);
+        }
         if (CollectionUtils.isEmpty(delayJobOrigList)) {
             return null;
         }
-        // 删除区间
-        getQueue(topic).trim(count + 1, -1);
         return delayJobOrigList.stream()
                 .map(delayJob -> DelayJob.compatibleDecode(delayJob, null))
                 .collect(Collectors.toList());
     }
 
+    /**
+     * 通过脚本从分区中按优先级取出
+     * @param topic     任务分组
+     * @param partition 分区
+     * @param count     个数
+     * @return  准备队列记录
+     */
+    @SuppressWarnings("unchecked")
+    private List<String> popByScript(String topic, int partition, int count) {
+        List<String> keys = getKeys(topic, partition);
+        List<Integer> weights = props.getJobPriorityWeights();
+        Object[] args = new Object[keys.size() + 1];
+        args[0] = String.valueOf(count);
+        for (int i = 0; i < keys.size(); i++) {
+            // 权重下标为优先级，Key为从高到低排列
+            int priority = keys.size() - 1 - i;
+            args[i + 1] = String.valueOf(weights == null || priority >= weights.size() ? 0 : weights.get(priority));
+        }
+        return redisTemplate.execute(priorityPopScript, keys, args);
+    }
+
     @Override
     public long size(String topic) {
+        if (isPriorityEnabled() || IceKeys.isCluster(props)) {
+            List<String> keys = getKeys(topic);
+            List<Object> sizes = redisTemplate.executePipelined(new SessionCallback<Object>() {
+                @SuppressWarnings("unchecked")
+                @Override
+                public <K, V> Object execute(@NonNull RedisOperations<K, V> operations) throws DataAccessException {
+                    keys.forEach(key -> operations.opsForList().size((K) key));
+                    return null;
+                }
+            });
+            return sizes.stream().mapToLong(size -> size == null ? 0 : (Long) size).sum();
+        }
         Long size = getQueue(topic).size();
         return size == null ? 0 : size;
     }
 
+    private boolean isPriorityEnabled() {
+        return props.getJobPriorityLevels() > 1;
+    }
+
     private BoundListOperations<String, String> getQueue(String topic) {
         return redisTemplate.boundListOps(getKey(topic));
     }
 
-    private String getKey(String topic) {
+    /**
+     * 获取Topic所有分区、所有优先级的队列Key
+     * @param topic 任务分组
+     * @return  队列Key
+     */
+    List<String> getKeys(String topic) {
+        int partitionCount = IceKeys.getPartitionCount(props);
+        List<String> keys = new ArrayList<>();
+        for (int partition = 0; partition < partitionCount; partition++) {
+            keys.addAll(getKeys(topic, partition));
+        }
+        return keys;
+    }
+
+    /**
+     * 获取Topic在分区内所有优先级的队列Key（在同一Slot）
+     * @param topic     任务分组
+     * @param partition 分区
+     * @return  按优先级从高到低排列的Key
+     */
+    private List<String> getKeys(String topic, int partition) {
+        int levels = Math.max(props.getJobPriorityLevels(), 1);
+        List<String> keys = new ArrayList<>(levels);
+        for (int priority = levels - 1; priority >= 0; priority--) {
+            keys.add(getKey(topic, partition, priority));
+        }
+        return keys;
+    }
+
+    String getKey(String topic) {
         return this.readyQueueKey + ":" + topic;
     }
 
+    private String getKey(String topic, int partition, int priority) {
+        String key = IceKeys.isCluster(props) ? "ice:ready_queue:" + IceKeys.getTag(instanceName, partition) + ":" + topic : getKey(topic);
+        if (priority <= 0 || !isPriorityEnabled()) {
+            // 默认优先级保持原来的Key
+            return key;
+        }
+        return key + ":p" + Math.min(priority, props.getJobPriorityLevels() - 1);
+    }
+
     @Override
-    public void afterPropertiesSet() {
+    public void afterPropertiesSet() throws Exception {
         redisTemplate = ApplicationContextHolder.get().getBean(StringRedisTemplate.class);
+        priorityPopScript = RedisScriptRegistry.get("ice_priority_pop.lua", List.class);
     }
 
     @Override
     public void onApplicationEvent(IceInstanceChangeEvent event) {
         String instanceName = event.getSource().toString();
+        this.instanceName = instanceName;
         this.readyQueueKey = "ice:ready_queue:" + instanceName;
     }
 }
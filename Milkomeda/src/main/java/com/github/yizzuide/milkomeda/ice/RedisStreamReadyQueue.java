@@ -0,0 +1,214 @@
+package com.github.yizzuide.milkomeda.ice;
+
+import com.github.yizzuide.milkomeda.universe.context.ApplicationContextHolder;
+import com.github.yizzuide.milkomeda.util.RedisScriptRegistry;
+import com.github.yizzuide.milkomeda.util.RedisUtil;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.context.ApplicationListener;
+import org.springframework.data.redis.connection.stream.ReadOffset;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.util.CollectionUtils;
+
+import java.lang.management.ManagementFactory;
+import java.util.*;
+import java.util.stream.Collectors;
+
+/**
+ * RedisStreamReadyQueue
+ * 基于Redis Streams消费组的准备队列（XADD入队，XREADGROUP消费，XACK确认，XAUTOCLAIM检测TTR超时）<br>
+ * 注意：需要Redis 6.2+，TTR超时检测使用全局配置的 {@link IceProperties#getTtr()}
+ *
+ * @author yizzuide
+ * @since 3.12.0
+ * Create at 2026/10/18 11:12
+ */
+@Slf4j
+public class RedisStreamReadyQueue implements ReadyQueue, InitializingBean, ApplicationListener<IceInstanceChangeEvent> {
+
+    /**
+     * 消息字段名
+     */
+    private static final String FIELD_JOB = "job";
+
+    /**
+     * 消费组名
+     */
+    static final String GROUP = "ice_consumer";
+
+    /**
+     * 消息记录分隔符（消息id不包含该字符）
+     */
+    private static final String RECORD_SEPARATOR = "#";
+
+    /**
+     * 读取组不存在时的脚本返回标识
+     */
+    private static final String NO_GROUP = "NOGROUP";
+
+    private StringRedisTemplate redisTemplate;
+
+    private String readyQueueKey = "ice:ready_stream";
+
+    /**
+     * 消费中的消息记录（jobId -> 消息id#topic），任意节点确认时都能查找到消息id
+     */
+    private String pendingKey = "ice:ready_stream_pending";
+
+    /**
+     * 当前节点的消费者名
+     */
+    private final String consumer = ManagementFactory.getRuntimeMXBean().getName();
+
+    @SuppressWarnings("rawtypes")
+    private RedisScript<List> popScript;
+
+    @SuppressWarnings("rawtypes")
+    private RedisScript<List> reclaimScript;
+
+    public RedisStreamReadyQueue(IceProperties props) {
+        if (!IceProperties.DEFAULT_INSTANCE_NAME.equals(props.getInstanceName())) {
+            setInstanceName(props.getInstanceName());
+        }
+    }
+
+    @Override
+    public void push(DelayJob delayJob) {
+        redisTemplate.opsForStream().add(getKey(delayJob.getTopic()), Collections.singletonMap(FIELD_JOB, delayJob.toSimple()));
+    }
+
+    @Override
+    public DelayJob pop(String topic) {
+        List<DelayJob> delayJobs = pop(topic, 1);
+        if (CollectionUtils.isEmpty(delayJobs)) {
+            return null;
+        }
+        return delayJobs.get(0);
+    }
+
+    @Override
+    public List<DelayJob> pop(String topic, int count) {
+        // 消费组保证同一消息只投递给一个消费者，不需要加锁
+        String key = getKey(topic);
+        List<String> entries = readGroup(key, count);
+        if (entries != null && entries.size() == 1 && NO_GROUP.equals(entries.get(0))) {
+            // 第一次消费时创建消费组
+            if (!createGroup(key)) {
+                return null;
+            }
+            entries = readGroup(key, count);
+        }
+        if (CollectionUtils.isEmpty(entries) || entries.size() == 1) {
+            return null;
+        }
+        List<DelayJob> delayJobs = new ArrayList<>(entries.size() / 2);
+        Map<String, String> pendingRecords = new HashMap<>();
+        // 格式：[id, job, id, job...]
+        for (int i = 0; i < entries.size(); i += 2) {
+            DelayJob delayJob = DelayJob.compatibleDecode(entries.get(i + 1), null);
+            pendingRecords.put(delayJob.getJodId(), entries.get(i) + RECORD_SEPARATOR + topic);
+            delayJobs.add(delayJob);
+        }
+        // 保存消息id，节点崩溃导致没有保存时由TTR超时回收
+        redisTemplate.opsForHash().putAll(pendingKey, pendingRecords);
+        return delayJobs;
+    }
+
+    @SuppressWarnings("unchecked")
+    private List<String> readGroup(String key, int count) {
+        return redisTemplate.execute(popScript, Collections.singletonList(key), GROUP, consumer, String.valueOf(count));
+    }
+
+    /**
+     * 创建消费组（从第一条消息开始消费）
+     * @param key   消息流key
+     * @return  消息流不存在时返回false
+     */
+    private boolean createGroup(String key) {
+        if (!Boolean.TRUE.equals(redisTemplate.hasKey(key))) {
+            return false;
+        }
+        try {
+            redisTemplate.opsForStream().createGroup(key, ReadOffset.from("0"), GROUP);
+        } catch (Exception e) {
+            // 其它节点已创建（BUSYGROUP）
+            log.debug("Ice create stream group on key {} with msg: {}", key, e.getMessage());
+        }
+        return true;
+    }
+
+    @Override
+    public long size(String topic) {
+        // 包含已读取未确认的消息
+        Long size = redisTemplate.opsForStream().size(getKey(topic));
+        return size == null ? 0 : size;
+    }
+
+    @Override
+    public boolean isAckSupported() {
+        return true;
+    }
+
+    @Override
+    public void ack(Object... jobIds) {
+        if (jobIds.length == 0) {
+            return;
+        }
+        List<Object> fields = Arrays.stream(jobIds).map(String::valueOf).collect(Collectors.toList());
+        List<Object> records = redisTemplate.opsForHash().multiGet(pendingKey, fields);
+        // 按topic分组消息id（没有记录的消息已被TTR超时回收）
+        Map<String, List<String>> topicRecordIds = new HashMap<>();
+        for (Object record : records) {
+            if (record == null) {
+                continue;
+            }
+            String recordStr = record.toString();
+            int index = recordStr.indexOf(RECORD_SEPARATOR);
+            topicRecordIds.computeIfAbsent(recordStr.substring(index + 1), k -> new ArrayList<>()).add(recordStr.substring(0, index));
+        }
+        RedisUtil.batchOps(() -> {
+            topicRecordIds.forEach((topic, recordIds) -> {
+                String[] ids = recordIds.toArray(new String[0]);
+                redisTemplate.opsForStream().acknowledge(getKey(topic), GROUP, ids);
+                redisTemplate.opsForStream().delete(getKey(topic), ids);
+            });
+            redisTemplate.opsForHash().delete(pendingKey, fields.toArray());
+        }, redisTemplate);
+    }
+
+    @SuppressWarnings("unchecked")
+    @Override
+    public List<DelayJob> reclaim(String topic, long minIdle, int count) {
+        List<String> entries = redisTemplate.execute(reclaimScript, Collections.singletonList(getKey(topic)),
+                GROUP, consumer, String.valueOf(minIdle), String.valueOf(count));
+        if (CollectionUtils.isEmpty(entries)) {
+            return null;
+        }
+        List<DelayJob> delayJobs = entries.stream().map(entry -> DelayJob.compatibleDecode(entry, null)).collect(Collectors.toList());
+        // 回收的消息已确认删除，清除消息记录
+        redisTemplate.opsForHash().delete(pendingKey, delayJobs.stream().map(DelayJob::getJodId).toArray());
+        return delayJobs;
+    }
+
+    String getKey(String topic) {
+        return this.readyQueueKey + ":" + topic;
+    }
+
+    @Override
+    public void afterPropertiesSet() throws Exception {
+        redisTemplate = ApplicationContextHolder.get().getBean(StringRedisTemplate.class);
+        popScript = RedisScriptRegistry.get("ice_stream_pop.lua", List.class);
+        reclaimScript = RedisScriptRegistry.get("ice_stream_reclaim.lua", List.class);
+    }
+
+    @Override
+    public void onApplicationEvent(IceInstanceChangeEvent event) {
+        setInstanceName(event.getSource().toString());
+    }
+
+    private void setInstanceName(String instanceName) {
+        this.readyQueueKey = "ice:ready_stream:" + instanceName;
+        this.pendingKey = "ice:ready_stream_pending:" + instanceName;
+    }
+}
@@ -0,0 +1,221 @@
+package com.github.yizzuide.milkomeda.ice;
+
+import com.github.yizzuide.milkomeda.universe.metadata.HandlerMetaData;
+import com.github.yizzuide.milkomeda.util.ReflectUtil;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+import java.lang.reflect.Method;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * TopicJobHandler
+ * 单个Topic的消费处理器（每个Topic拥有独立的有界线程池，慢处理器不会影响其它Topic的消费）
+ *
+ * @author yizzuide
+ * @since 3.12.0
+ * Create at 2026/10/18 10:12
+ */
+@Slf4j
+public class TopicJobHandler implements Runnable {
+
+    private final String topic;
+
+    private final Ice ice;
+
+    private final IceProperties props;
+
+    /**
+     * Topic独立的消费线程池
+     */
+    private final ThreadPoolTaskExecutor executor;
+
+    /**
+     * 处理中的Job数（拉取前预留）
+     */
+    private final AtomicInteger inFlight = new AtomicInteger(0);
+
+    /**
+     * 线程池可接收的批次数（工作线程数+队列大小），拉取前预留，防止拉取后被线程池拒绝
+     */
+    private final Semaphore batchSlots;
+
+    TopicJobHandler(String topic, Ice ice, IceProperties props, Duration awaitTerminationPeriod) {
+        this.topic = topic;
+        this.ice = ice;
+        this.props = props;
+        this.batchSlots = new Semaphore(props.getTaskTopicConcurrency() + props.getTaskTopicQueueSize());
+        this.executor = new ThreadPoolTaskExecutor();
+        this.executor.setCorePoolSize(props.getTaskTopicConcurrency());
+        this.executor.setMaxPoolSize(props.getTaskTopicConcurrency());
+        this.executor.setQueueCapacity(props.getTaskTopicQueueSize());
+        this.executor.setThreadNamePrefix("ice-" + topic + "-");
+        this.executor.setWaitForTasksToCompleteOnShutdown(true);
+        this.executor.setAwaitTerminationSeconds((int) awaitTerminationPeriod.getSeconds());
+        // 拉取前已预留批次，正常情况下不会被拒绝（只在关闭时拒绝）
+        this.executor.setRejectedExecutionHandler(new ThreadPoolExecutor.AbortPolicy());
+        this.executor.initialize();
+    }
+
+    @Override
+    public void run() {
+        // 线程池已满时不再拉取，防止拉取后无法处理而进入TTR
+        if (!batchSlots.tryAcquire()) {
+            return;
+        }
+        int popSize = reserveInFlight();
+        if (popSize <= 0) {
+            batchSlots.release();
+            return;
+        }
+
+        List<Job<Object>> jobs;
+        try {
+            // 按监听器的参数类型直接解码业务数据
+            jobs = ice.pop(topic, popSize, IceContext.getTopicJobType(topic));
+        } catch (Exception e) {
+            inFlight.addAndGet(-popSize);
+            batchSlots.release();
+            throw e;
+        }
+        int size = jobs == null ? 0 : jobs.size();
+        // 归还未使用的预留数
+        inFlight.addAndGet(size - popSize);
+        if (size == 0) {
+            batchSlots.release();
+            return;
+        }
+        try {
+            executor.execute(() -> {
+                try {
+                    handle(jobs);
+                } finally {
+                    inFlight.addAndGet(-size);
+                    batchSlots.release();
+                }
+            });
+        } catch (TaskRejectedException e) {
+            inFlight.addAndGet(-size);
+            batchSlots.release();
+            log.warn("Ice topic [{}] executor is shutdown, {} jobs will redelivery after TTR.", topic, size);
+        }
+    }
+
+    /**
+     * 预留本次拉取的处理中Job数
+     * @return  本次拉取的个数，背压模式下达到上限时返回0
+     */
+    private int reserveInFlight() {
+        int popSize = props.getTaskTopicPopMaxSize();
+        if (!props.isEnableTaskBackpressure()) {
+            inFlight.addAndGet(popSize);
+            return popSize;
+        }
+        // 背压模式：处理中的Job达到上限时停止拉取
+        while (true) {
+            int current = inFlight.get();
+            int reserved = Math.min(popSize, props.getTaskTopicMaxInFlight() - current);
+            if (reserved <= 0) {
+                return 0;
+            }
+            if (inFlight.compareAndSet(current, current + reserved)) {
+                return reserved;
+            }
+        }
+    }
+
+    /**
+     * 调用Topic监听器处理Job
+     * @param jobs  Job列表
+     */
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private void handle(List<Job<Object>> jobs) {
+        List<HandlerMetaData> metaDataList = IceContext.getTopicMap().get(topic);
+        Object resultData = null;
+        // 每个任务的处理结果
+        List<JobResult> jobResults = new ArrayList<>();
+        long startTime = System.nanoTime();
+        boolean success = false;
+        try {
+            for (HandlerMetaData metaData : metaDataList) {
+                Method method = metaData.getMethod();
+                List<Job> jobList = (List) jobs;
+                Object result = ReflectUtil.invokeWithWrapperInject(metaData.getTarget(), method, jobList, Job.class, Job::getBody, Job::setBody);
+                if (result instanceof JobResult) {
+                    jobResults.add((JobResult) result);
+                } else if (result instanceof List && !((List) result).isEmpty() && ((List) result).get(0) instanceof JobResult) {
+                    jobResults.addAll((List<JobResult>) result);
+                } else if (result != null) {
+                    resultData = result;
+                }
+            }
+
+            // 标记完成，清除元数据（有处理结果时按结果处理）
+            if (jobResults.isEmpty()) {
+                ice.finish(jobs);
+            } else {
+                ice.finish(jobs, jobResults);
+            }
+            success = true;
+
+            // 是否有重新入队
+            if (resultData == null) {
+                return;
+            }
+            if (resultData instanceof Job) {
+                ice.add((Job) resultData);
+                return;
+            }
+            if (resultData instanceof List) {
+                List<Job> rePushJobs = (List<Job>) resultData;
+                for (Job rePushJob : rePushJobs) {
+                    ice.add(rePushJob);
+                }
+            }
+        } catch (Exception e) {
+            log.error("Ice schedule error: {}", e.getMessage(), e);
+        } finally {
+            IceMetrics metrics = IceHolder.getMetrics();
+            if (metrics != null) {
+                metrics.recordHandle(topic, jobs.size(), System.nanoTime() - startTime, success);
+            }
+        }
+    }
+
+    /**
+     * 获取处理中的Job数（包含拉取中预留的个数）
+     * @return  处理中的Job数
+     */
+    public int getInFlight() {
+        return inFlight.get();
+    }
+
+    /**
+     * 获取线程池可接收的批次数
+     * @return  可接收的批次数
+     */
+    public int getAvailableBatchSlots() {
+        return batchSlots.availablePermits();
+    }
+
+    /**
+     * 获取Topic
+     * @return  topic
+     */
+    public String getTopic() {
+        return topic;
+    }
+
+    /**
+     * 关闭线程池
+     */
+    void shutdown() {
+        executor.shutdown();
+    }
+}
@@ -1,24 +1,48 @@
 package com.github.yizzuide.milkomeda.moon;
 
 import com.github.yizzuide.milkomeda.universe.context.ApplicationContextHolder;
+import lombok.AllArgsConstructor;
 import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
 
 import java.io.IOException;
 import java.io.Serializable;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * AbstractLuaMoonStrategy
  *
  * @author yizzuide
  * @since 3.7.0
+ * @version 3.12.0
  * Create at 2020/05/28 23:59
  */
 public abstract class AbstractLuaMoonStrategy implements MoonStrategy {
 
     private String luaScript;
 
+    /**
+     * 脚本实例（设置脚本时创建一次，执行时使用EVALSHA）
+     */
+    private RedisScript<Long> redisScript;
+
     private RedisTemplate<String, Serializable> jsonRedisTemplate;
 
+    /**
+     * 租用的环位置数（大于0时开启租用模式：每个节点通过一次INCRBY租用一段连续的环位置，在本地无锁分配，
+     * 各阶段分配的全局偏差不超过：节点数 * leaseSize）
+     * @since 3.12.0
+     */
+    private int leaseSize = 0;
+
+    /**
+     * 本节点租用的环位置（key -> 租用段）
+     */
+    private final Map<String, Lease> leases = new ConcurrentHashMap<>();
+
     @SuppressWarnings("unchecked")
     protected RedisTemplate<String, Serializable> getJsonRedisTemplate() {
         if (jsonRedisTemplate == null) {
@@ -36,9 +60,103 @@ public abstract class AbstractLuaMoonStrategy implements MoonStrategy {
 
     public void setLuaScript(String luaScript) {
         this.luaScript = luaScript;
+        DefaultRedisScript<Long> redisScript = new DefaultRedisScript<>(luaScript, Long.class);
+        // 预先计算SHA1
+        redisScript.getSha1();
+        this.redisScript = redisScript;
     }
 
     public String getLuaScript() {
         return this.luaScript;
     }
+
+    /**
+     * 获取脚本实例
+     * @return  RedisScript
+     * @since 3.12.0
+     */
+    protected RedisScript<Long> getRedisScript() {
+        return this.redisScript;
+    }
+
+    public int getLeaseSize() {
+        return leaseSize;
+    }
+
+    public void setLeaseSize(int leaseSize) {
+        this.leaseSize = leaseSize;
+    }
+
+    /**
+     * 是否开启租用模式
+     * @return  true为开启
+     * @since 3.12.0
+     */
+    public boolean isLeaseEnabled() {
+        return leaseSize > 0;
+    }
+
+    /**
+     * 从本节点租用的环位置获得环值
+     * @param leaseKey  租用计数key，一个环对应一个key
+     * @param prototype Moon实例原型
+     * @param <T>       阶段的类型
+     * @return  当前环的当前阶段值
+     * @since 3.12.0
+     */
+    protected <T> T getPhaseByLease(String leaseKey, Moon<T> prototype) {
+        return getPhaseByPosition(nextLeasedPosition(leaseKey), prototype);
+    }
+
+    /**
+     * 根据环的全局位置获得环值
+     * @param position  全局位置（从0开始递增）
+     * @param prototype Moon实例原型
+     * @param <T>       阶段的类型
+     * @return  阶段值
+     * @since 3.12.0
+     */
+    protected <T> T getPhaseByPosition(long position, Moon<T> prototype) {
+        return prototype.getRing().get((int) (position % prototype.getLen()));
+    }
+
+    /**
+     * 获取下一个环位置，本节点租用的位置用完时从Redis租用下一段
+     * @param leaseKey  租用计数key
+     * @return  环位置
+     */
+    private long nextLeasedPosition(String leaseKey) {
+        while (true) {
+            Lease lease = leases.get(leaseKey);
+            if (lease != null) {
+                long position = lease.next.getAndIncrement();
+                if (position < lease.end) {
+                    return position;
+                }
+            }
+            // 只有租用段用完时才加锁续租
+            synchronized (leases) {
+                if (leases.get(leaseKey) == lease) {
+                    Long end = getJsonRedisTemplate().opsForValue().increment(leaseKey, leaseSize);
+                    assert end != null;
+                    leases.put(leaseKey, new Lease(new AtomicLong(end - leaseSize), end));
+                }
+            }
+        }
+    }
+
+    /**
+     * 租用的环位置段 [next, end)
+     */
+    @AllArgsConstructor
+    private static class Lease {
+        /**
+         * 下一个分配的位置
+         */
+        private final AtomicLong next;
+        /**
+         * 结束位置（不包含）
+         */
+        private final long end;
+    }
 }
@@ -6,6 +6,7 @@ import com.github.yizzuide.milkomeda.light.LightCachePut;
 import com.github.yizzuide.milkomeda.light.LightCacheable;
 import com.github.yizzuide.milkomeda.universe.context.AopContextHolder;
 import lombok.Data;
+import lombok.EqualsAndHashCode;
 
 import java.util.ArrayList;
 import java.util.Arrays;
@@ -16,7 +17,7 @@ import java.util.List;
  *
  * @author yizzuide
  * @since 2.2.0
- * @version 3.7.0
+ * @version 3.12.0
  * Create at 2019/12/31 18:13
  */
 @Data
@@ -49,6 +50,13 @@ public class Moon<T> {
      */
     private List<T> phaseNames;
 
+    /**
+     * 基于数组的月环（添加阶段时创建，由阶段列表派生，不参与比较）
+     * @since 3.12.0
+     */
+    @EqualsAndHashCode.Exclude
+    private MoonRing<T> ring;
+
     /**
      * 阶段分配策略
      */
@@ -75,6 +83,7 @@ public class Moon<T> {
     @SafeVarargs
     public final void add(T... phaseNames) {
         this.setPhaseNames(new ArrayList<>(Arrays.asList(phaseNames)));
+        this.setRing(new MoonRing<>(this.getPhaseNames()));
         this.setLen(phaseNames.length);
         for (int i = 0; i < this.getLen(); i++) {
             if (i == 0) {
@@ -110,7 +119,9 @@ public class Moon<T> {
      * @return  当前环的当前阶段值
      */
     public static <T> T getPhase(String key, Moon<T> prototype) {
-        if (prototype.isMixinMode()) {
+        // 租用模式在本地分配，不需要加锁
+        if (prototype.isMixinMode() && !(prototype.getMoonStrategy() instanceof AbstractLuaMoonStrategy &&
+                ((AbstractLuaMoonStrategy) prototype.getMoonStrategy()).isLeaseEnabled())) {
             return prototype.getPhase(key);
         }
         return prototype.getMoonStrategy().getPhaseFast(key, prototype);
@@ -21,7 +21,7 @@ import java.util.List;
  *
  * @author yizzuide
  * @since 3.0.0
- * @version 3.7.0
+ * @version 3.12.0
  * Create at 2020/03/28 17:40
  */
 @Slf4j
@@ -51,6 +51,9 @@ public class MoonConfig implements ApplicationContextAware {
                     case PERCENT:
                         instance.setMoonStrategyClazz(PercentMoonStrategy.class);
                         break;
+                    case SMOOTH_WEIGHTED:
+                        instance.setMoonStrategyClazz(SmoothWeightedMoonStrategy.class);
+                        break;
                 }
             }
             Class<? extends MoonStrategy> moonStrategyClazz = instance.getMoonStrategyClazz();
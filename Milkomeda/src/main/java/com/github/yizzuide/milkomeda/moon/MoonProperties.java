@@ -11,7 +11,7 @@ import java.util.Map;
  *
  * @author yizzuide
  * @since 3.0.0
- * @version 3.7.0
+ * @version 3.12.0
  * Create at 2020/03/28 17:24
  */
 @Data
@@ -51,7 +51,7 @@ public class MoonProperties {
         private Class<? extends MoonStrategy> moonStrategyClazz;
 
         /**
-         * 自定义属性
+         * 自定义属性（如开启租用模式：leaseSize: 100）
          */
         private Map<String, Object> props;
 
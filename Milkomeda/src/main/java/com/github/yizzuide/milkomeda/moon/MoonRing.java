@@ -0,0 +1,145 @@
+package com.github.yizzuide.milkomeda.moon;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * MoonRing
+ * 基于数组的不可变月环，阶段值为int类型时预先计算百分比前缀和，通过二分查找定位阶段
+ *
+ * @author yizzuide
+ * @since 3.12.0
+ * Create at 2026/10/18 17:05
+ */
+public final class MoonRing<T> {
+    /**
+     * 阶段列表
+     */
+    private final Object[] phases;
+
+    /**
+     * 百分比前缀和（阶段值不是int类型时为null）
+     */
+    private final int[] prefixSums;
+
+    /**
+     * 平滑加权轮询序列（第一次使用时计算）
+     */
+    private volatile int[] smoothSchedule;
+
+    public MoonRing(List<T> phaseNames) {
+        this.phases = phaseNames.toArray();
+        this.prefixSums = computePrefixSums(this.phases);
+    }
+
+    /**
+     * 根据下标获取阶段值
+     * @param index 下标
+     * @return  阶段值
+     */
+    @SuppressWarnings("unchecked")
+    public T get(int index) {
+        return (T) phases[index];
+    }
+
+    /**
+     * 阶段数
+     * @return  阶段数
+     */
+    public int size() {
+        return phases.length;
+    }
+
+    /**
+     * 百分总份（所有阶段值的和）
+     * @return  百分总份
+     */
+    public int getTotal() {
+        checkWeighted();
+        return prefixSums.length == 0 ? 0 : prefixSums[prefixSums.length - 1];
+    }
+
+    /**
+     * 获取百分比位置所在的阶段下标（二分查找第一个前缀和大于p的阶段）
+     * @param p 百分比位置，范围：[0, total)
+     * @return  阶段下标
+     */
+    public int indexOfPercent(int p) {
+        checkWeighted();
+        int low = 0;
+        int high = prefixSums.length - 1;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (prefixSums[mid] > p) {
+                high = mid;
+            } else {
+                low = mid + 1;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * 获取平滑加权轮询位置所在的阶段下标
+     * @param p 位置，范围：[0, total)
+     * @return  阶段下标
+     */
+    public int indexOfSmooth(int p) {
+        int[] schedule = this.smoothSchedule;
+        if (schedule == null) {
+            schedule = computeSmoothSchedule();
+            this.smoothSchedule = schedule;
+        }
+        return schedule[p];
+    }
+
+    /**
+     * 计算一个周期的平滑加权轮询序列（Nginx算法：每轮各阶段加上自身权重，选出当前值最大的阶段后减去总权重）
+     * @return  阶段下标序列
+     */
+    private int[] computeSmoothSchedule() {
+        int total = getTotal();
+        int[] weights = new int[phases.length];
+        for (int i = 0; i < phases.length; i++) {
+            weights[i] = (Integer) phases[i];
+        }
+        int[] currentWeights = new int[weights.length];
+        int[] schedule = new int[total];
+        for (int n = 0; n < total; n++) {
+            int selected = 0;
+            for (int i = 0; i < weights.length; i++) {
+                currentWeights[i] += weights[i];
+                if (currentWeights[i] > currentWeights[selected]) {
+                    selected = i;
+                }
+            }
+            currentWeights[selected] -= total;
+            schedule[n] = selected;
+        }
+        return schedule;
+    }
+
+    private void checkWeighted() {
+        if (prefixSums == null) {
+            throw new UnsupportedOperationException("Only support int data type.");
+        }
+    }
+
+    private static int[] computePrefixSums(Object[] phases) {
+        int[] prefixSums = new int[phases.length];
+        int sum = 0;
+        for (int i = 0; i < phases.length; i++) {
+            if (!(phases[i] instanceof Integer)) {
+                return null;
+            }
+            sum += (Integer) phases[i];
+            prefixSums[i] = sum;
+        }
+        return prefixSums;
+    }
+
+    @Override
+    public String toString() {
+        return "MoonRing" + Arrays.toString(phases);
+    }
+}
@@ -6,6 +6,7 @@ package com.github.yizzuide.milkomeda.moon;
  *
  * @author yizzuide
  * @since 3.1.2
+ * @version 3.12.0
  * Create at 2020/04/22 14:33
  */
 public enum  MoonType {
@@ -17,5 +18,11 @@ public enum  MoonType {
     /**
      * 百分比类型
      */
-    PERCENT
+    PERCENT,
+
+    /**
+     * 平滑加权轮询类型
+     * @since 3.12.0
+     */
+    SMOOTH_WEIGHTED
 }
@@ -1,13 +1,10 @@
 package com.github.yizzuide.milkomeda.moon;
 
-import com.github.yizzuide.milkomeda.util.IOUtils;
+import com.github.yizzuide.milkomeda.util.RedisScriptRegistry;
 import lombok.Data;
 import lombok.EqualsAndHashCode;
 import org.springframework.data.redis.core.RedisTemplate;
-import org.springframework.data.redis.core.script.DefaultRedisScript;
-import org.springframework.data.redis.core.script.RedisScript;
 
-import java.io.IOException;
 import java.io.Serializable;
 import java.util.Collections;
 import java.util.List;
@@ -22,7 +19,7 @@ import java.util.List;
  *
  * @author yizzuide
  * @since 2.6.0
- * @version 3.7.0
+ * @version 3.12.0
  * Create at 2020/03/13 21:42
  */
 @EqualsAndHashCode(callSuper = false)
@@ -32,6 +29,10 @@ public class PercentMoonStrategy extends AbstractLuaMoonStrategy {
      * 分布式key前缀
      */
     private static final String PREFIX = "moon:percent-";
+    /**
+     * 租用模式分布式key前缀
+     */
+    private static final String LEASE_PREFIX = "moon:percent-lease-";
     /**
      * 默认总占百分（-1为自动根据百分比计算）
      */
@@ -46,25 +47,11 @@ public class PercentMoonStrategy extends AbstractLuaMoonStrategy {
         throw new UnsupportedOperationException("PercentMoonStrategy is not support run on standalone.");
     }
 
-    @SuppressWarnings("all")
+    @SuppressWarnings("unchecked")
     @Override
     public <T> T getPhase(String key, Integer p, Moon<T> prototype) {
-        for (Integer i = 0; i < prototype.getLen(); i++) {
-            T phaseName = prototype.getPhaseNames().get(i);
-            if (!(phaseName instanceof Integer)) {
-                throw new UnsupportedOperationException("Only support int data type.");
-            }
-            Integer phase = (Integer) phaseName;
-            // 累计百分比，使各阶段分配相应百分比的值
-            if (i != 0) {
-                phase += (Integer) prototype.getPhaseNames().get(i - 1);
-            }
-            // 找到不满足百分比的阶段，返回阶段索引值
-            if (p < phase) {
-                return (T) Integer.valueOf(i);
-            }
-        }
-        return null;
+        // 通过前缀和二分查找阶段索引值
+        return (T) Integer.valueOf(prototype.getRing().indexOfPercent(p));
     }
 
     @Override
@@ -80,26 +67,33 @@ public class PercentMoonStrategy extends AbstractLuaMoonStrategy {
     public <T> T getPhaseFast(String key, Moon<T> prototype) {
         //  自动计算百分总份
         if (percent == -1) {
-            percent = prototype.getPhaseNames().stream().map(p -> (Integer) p).reduce(0, Integer::sum);
+            percent = prototype.getRing().getTotal();
+        }
+        if (isLeaseEnabled()) {
+            return getPhaseByLease(LEASE_PREFIX + key, prototype);
         }
         RedisTemplate<String, Serializable> redisTemplate = getJsonRedisTemplate();
-        RedisScript<Long> redisScript = new DefaultRedisScript<>(getLuaScript(), Long.class);
         List<T> phaseNames = prototype.getPhaseNames();
         // map -> table
         /*Map<String, Integer> phaseMap = new HashMap<>();
         for (int i = 0; i < phaseNames.size(); i++) {
             phaseMap.put("p" + (i + 1), (Integer)phaseNames.get(i));
         }
-        Long phase = redisTemplate.execute(redisScript, Collections.singletonList(PREFIX + key), phaseMap, phaseMap.size(), percent);*/
+        Long phase = redisTemplate.execute(getRedisScript(), Collections.singletonList(PREFIX + key), phaseMap, phaseMap.size(), percent);*/
         // list -> table
-        Long phase = redisTemplate.execute(redisScript, Collections.singletonList(PREFIX + key), phaseNames, percent);
+        Long phase = redisTemplate.execute(getRedisScript(), Collections.singletonList(PREFIX + key), phaseNames, percent);
         assert phase != null;
         return (T) ((Integer) phase.intValue());
     }
 
     @Override
-    public String loadLuaScript() throws IOException {
-        return IOUtils.loadLua("/META-INF/scripts", "moon_percent.lua");
+    protected <T> T getPhaseByPosition(long position, Moon<T> prototype) {
+        return getPhase(null, (int) (position % percent), prototype);
+    }
+
+    @Override
+    public String loadLuaScript() {
+        return RedisScriptRegistry.getScript("moon_percent.lua");
     }
 
     /**
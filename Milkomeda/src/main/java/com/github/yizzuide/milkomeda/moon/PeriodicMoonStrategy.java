@@ -1,11 +1,8 @@
 package com.github.yizzuide.milkomeda.moon;
 
-import com.github.yizzuide.milkomeda.util.IOUtils;
+import com.github.yizzuide.milkomeda.util.RedisScriptRegistry;
 import org.springframework.data.redis.core.RedisTemplate;
-import org.springframework.data.redis.core.script.DefaultRedisScript;
-import org.springframework.data.redis.core.script.RedisScript;
 
-import java.io.IOException;
 import java.io.Serializable;
 import java.util.Collections;
 import java.util.concurrent.locks.ReentrantLock;
@@ -16,7 +13,7 @@ import java.util.concurrent.locks.ReentrantLock;
  *
  * @author yizzuide
  * @since 2.6.0
- * @version 3.7.0
+ * @version 3.12.0
  * Create at 2020/03/13 21:20
  */
 public class PeriodicMoonStrategy extends AbstractLuaMoonStrategy {
@@ -24,6 +21,10 @@ public class PeriodicMoonStrategy extends AbstractLuaMoonStrategy {
      * 分布式key前缀
      */
     private static final String PREFIX = "moon:periodic-";
+    /**
+     * 租用模式分布式key前缀
+     */
+    private static final String LEASE_PREFIX = "moon:periodic-lease-";
     // 并发指针锁
     private final ReentrantLock reentrantLock = new ReentrantLock(false);
 
@@ -38,15 +39,7 @@ public class PeriodicMoonStrategy extends AbstractLuaMoonStrategy {
 
     @Override
     public <T> T getPhase(String key, Integer p, Moon<T> prototype) {
-        // 先获取链头
-        MoonNode<T> next = prototype.getHeader();
-        // 如果不是指向头，向后拔动
-        if (p != 0) {
-            for (int i = 0; i < p; i++) {
-                next = next.getNext();
-            }
-        }
-        return next.getData();
+        return prototype.getRing().get(p);
     }
 
     @Override
@@ -60,15 +53,17 @@ public class PeriodicMoonStrategy extends AbstractLuaMoonStrategy {
 
     @Override
     public <T> T getPhaseFast(String key, Moon<T> prototype) {
+        if (isLeaseEnabled()) {
+            return getPhaseByLease(LEASE_PREFIX + key, prototype);
+        }
         RedisTemplate<String, Serializable> redisTemplate = getJsonRedisTemplate();
-        RedisScript<Long> redisScript = new DefaultRedisScript<>(getLuaScript(), Long.class);
-        Long phase = redisTemplate.execute(redisScript, Collections.singletonList(PREFIX + key), prototype.getPhaseNames().size());
+        Long phase = redisTemplate.execute(getRedisScript(), Collections.singletonList(PREFIX + key), prototype.getPhaseNames().size());
         assert phase != null;
-        return prototype.getPhaseNames().get(Math.toIntExact(phase));
+        return prototype.getRing().get(Math.toIntExact(phase));
     }
 
     @Override
-    public String loadLuaScript() throws IOException {
-        return IOUtils.loadLua("/META-INF/scripts", "moon_periodic.lua");
+    public String loadLuaScript() {
+        return RedisScriptRegistry.getScript("moon_periodic.lua");
     }
 }
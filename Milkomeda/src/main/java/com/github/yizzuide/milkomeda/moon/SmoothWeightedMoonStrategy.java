@@ -0,0 +1,77 @@
+package com.github.yizzuide.milkomeda.moon;
+
+import com.github.yizzuide.milkomeda.util.RedisScriptRegistry;
+import org.springframework.data.redis.core.RedisTemplate;
+
+import java.io.Serializable;
+import java.util.Collections;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * SmoothWeightedMoonStrategy
+ * 平滑加权轮询分配（Nginx算法）<br>
+ *
+ * 阶段值为权重，返回阶段索引值，与百分比分配的比例相同，但各阶段交错分配而不是连续分配：<br>
+ * 权重设置 [5, 1, 1]：分配序列为 0, 0, 1, 0, 2, 0, 0
+ *
+ * @author yizzuide
+ * @since 3.12.0
+ * Create at 2026/10/18 17:20
+ */
+public class SmoothWeightedMoonStrategy extends AbstractLuaMoonStrategy {
+    /**
+     * 分布式key前缀
+     */
+    private static final String PREFIX = "moon:smooth-";
+    /**
+     * 租用模式分布式key前缀
+     */
+    private static final String LEASE_PREFIX = "moon:smooth-lease-";
+
+    /**
+     * 单机环位置
+     */
+    private final AtomicLong position = new AtomicLong(0);
+
+    @Override
+    public <T> T getCurrentPhase(Moon<T> moon) {
+        return getPhaseByPosition(position.getAndIncrement() & Long.MAX_VALUE, moon);
+    }
+
+    @SuppressWarnings("unchecked")
+    @Override
+    public <T> T getPhase(String key, Integer p, Moon<T> prototype) {
+        return (T) Integer.valueOf(prototype.getRing().indexOfSmooth(p));
+    }
+
+    @Override
+    public LeftHandPointer pluck(Moon<?> moon, LeftHandPointer leftHandPointer) {
+        int p = leftHandPointer.getCurrent();
+        p = (p + 1) % moon.getRing().getTotal();
+        leftHandPointer.setCurrent(p);
+        return leftHandPointer;
+    }
+
+    @Override
+    public <T> T getPhaseFast(String key, Moon<T> prototype) {
+        if (isLeaseEnabled()) {
+            return getPhaseByLease(LEASE_PREFIX + key, prototype);
+        }
+        RedisTemplate<String, Serializable> redisTemplate = getJsonRedisTemplate();
+        // 周期长度为总权重
+        Long p = redisTemplate.execute(getRedisScript(), Collections.singletonList(PREFIX + key), prototype.getRing().getTotal());
+        assert p != null;
+        return getPhase(key, Math.toIntExact(p), prototype);
+    }
+
+    @Override
+    protected <T> T getPhaseByPosition(long position, Moon<T> prototype) {
+        return getPhase(null, (int) (position % prototype.getRing().getTotal()), prototype);
+    }
+
+    @Override
+    public String loadLuaScript() {
+        // 环位置按周期递增，与周期性分配相同
+        return RedisScriptRegistry.getScript("moon_periodic.lua");
+    }
+}
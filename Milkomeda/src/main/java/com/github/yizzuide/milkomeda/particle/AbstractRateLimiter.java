@@ -0,0 +1,148 @@
+package com.github.yizzuide.milkomeda.particle;
+
+import com.github.yizzuide.milkomeda.util.RedisScriptRegistry;
+import lombok.AccessLevel;
+import lombok.Data;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.data.redis.core.script.RedisScript;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * AbstractRateLimiter
+ * 速率限制器，通过一次lua脚本调用完成判断并返回剩余次数和重试等待时间
+ *
+ * @author yizzuide
+ * @since 3.12.0
+ * Create at 2026/10/18 18:12
+ */
+@Data
+@EqualsAndHashCode(callSuper = true)
+public abstract class AbstractRateLimiter extends LimitHandler {
+    /**
+     * 限制时间类型
+     */
+    private TimesType timesType = TimesType.SEC;
+
+    /**
+     * 限制次数
+     */
+    private Long limitTimes;
+
+    /**
+     * 脚本实例（第一次执行时获取）
+     * @since 3.12.0
+     */
+    @Getter(AccessLevel.NONE)
+    @Setter(AccessLevel.NONE)
+    @EqualsAndHashCode.Exclude
+    @SuppressWarnings("rawtypes")
+    private volatile RedisScript<List> redisScript;
+
+    public void setLimitTimes(Long limitTimes) {
+        if (limitTimes == null || limitTimes <= 0) {
+            throw new IllegalArgumentException("Particle rate limiter limitTimes must be greater than 0, but got " + limitTimes);
+        }
+        this.limitTimes = limitTimes;
+    }
+
+    /**
+     * 次数限制方法
+     * @param key       键
+     * @param process   处理方法回调
+     * @param <R>       返回数据类型
+     * @return          返回回调里的结果
+     * @throws Throwable 可抛出异常
+     */
+    public <R> R limit(String key, Process<R> process) throws Throwable {
+        return limit(key, 0, process);
+    }
+
+    @SuppressWarnings("unchecked")
+    @Override
+    public <R> R limit(String key, long expire, Process<R> process) throws Throwable {
+        // 数值参数直接使用字符串模板，不需要序列化
+        List<Long> result = getRedisTemplate().execute(getRedisScript(), Collections.singletonList(key + getPostfix()),
+                String.valueOf(limitTimes), String.valueOf(getPeriod()), String.valueOf(System.currentTimeMillis()));
+        assert result != null;
+        boolean isOver = result.get(0) == 0;
+        Particle particle = new Particle(this.getClass(), isOver, new RateLimitResult(limitTimes, result.get(1), result.get(2)));
+        return next(particle, key, expire, process);
+    }
+
+    /**
+     * 获取脚本实例，第一次获取时检查是否设置了限制次数
+     * @return  RedisScript
+     */
+    @SuppressWarnings("rawtypes")
+    protected RedisScript<List> getRedisScript() {
+        RedisScript<List> redisScript = this.redisScript;
+        if (redisScript == null) {
+            if (limitTimes == null) {
+                throw new IllegalStateException("Particle rate limiter " + getClass().getSimpleName() + " must set limitTimes.");
+            }
+            redisScript = RedisScriptRegistry.get(getScriptName(), List.class);
+            this.redisScript = redisScript;
+        }
+        return redisScript;
+    }
+
+    /**
+     * 限制周期
+     * @return  周期（单位：ms）
+     */
+    protected long getPeriod() {
+        return timesType.toMillis();
+    }
+
+    /**
+     * 组合模式链节点key（子类实现CompositeLink时使用）
+     * @param key   键
+     * @return  装饰后的key
+     */
+    public String getLinkKey(String key) {
+        return key + getPostfix();
+    }
+
+    /**
+     * 组合模式链节点限制次数
+     * @return  限制次数
+     */
+    public long getLinkLimit() {
+        return limitTimes;
+    }
+
+    /**
+     * 组合模式链节点限制周期
+     * @return  周期（单位：ms）
+     */
+    public long getLinkPeriod() {
+        return getPeriod();
+    }
+
+    /**
+     * 组合模式链节点状态数据的值
+     * @param isOver        是否被限制
+     * @param value         剩余次数
+     * @param retryAfter    重试等待时间（单位：ms）
+     * @return  RateLimitResult
+     */
+    public Object getLinkValue(boolean isOver, long value, long retryAfter) {
+        return new RateLimitResult(limitTimes, value, retryAfter);
+    }
+
+    /**
+     * lua脚本名
+     * @return  脚本文件名（包含扩展名）
+     */
+    protected abstract String getScriptName();
+
+    /**
+     * 装饰后缀
+     * @return  key后缀
+     */
+    protected abstract String getPostfix();
+}
@@ -0,0 +1,291 @@
+package com.github.yizzuide.milkomeda.particle;
+
+import lombok.Data;
+import lombok.EqualsAndHashCode;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * AdaptiveLimiter
+ * 自适应并发限制器：在本地按key限制同时处理的请求数，根据处理耗时（RTT）自动调整并发上限，不需要访问Redis <br>
+ * 下游变慢时并发上限下降，恢复后上限回升，不再需要在容量变化后手动调整阈值 <br>
+ * 注意：耗时从当前限制器开始计算，包括限制器链后面的处理和业务处理方法
+ *
+ * @author yizzuide
+ * @since 3.12.0
+ * Create at 2026/10/18 19:55
+ */
+@Data
+@EqualsAndHashCode(callSuper = true)
+public class AdaptiveLimiter extends LimitHandler {
+    /**
+     * 调整算法
+     */
+    private AdaptiveType adaptiveType = AdaptiveType.GRADIENT;
+
+    /**
+     * 初始并发上限
+     */
+    private int initialLimit = 20;
+
+    /**
+     * 最小并发上限
+     */
+    private int minLimit = 1;
+
+    /**
+     * 最大并发上限
+     */
+    private int maxLimit = 200;
+
+    /**
+     * 梯度算法：上限调整的平滑系数（0-1，越大调整越快）
+     */
+    private double smoothing = 0.2;
+
+    /**
+     * 梯度算法：RTT允许超过无负载RTT的倍数，超过时才降低上限
+     */
+    private double tolerance = 1.5;
+
+    /**
+     * 梯度算法：每批样本数，每收集一批样本调整一次上限
+     */
+    private int sampleSize = 10;
+
+    /**
+     * 梯度算法：重新测量无负载RTT的间隔批次数（测量时短暂降低并发上限，用于发现下游处理能力的变化）
+     */
+    private int probeInterval = 100;
+
+    /**
+     * AIMD算法：超时或异常时上限的衰减比例
+     */
+    private double backoffRatio = 0.9;
+
+    /**
+     * AIMD算法：超时时间（单位：ms），超过时作为丢弃处理
+     */
+    private long timeout = 1000;
+
+    /**
+     * 空闲key的状态保留时间（单位：ms）
+     */
+    private long idleTime = 60000;
+
+    /**
+     * 本地限制状态（key -> 状态）
+     */
+    @EqualsAndHashCode.Exclude
+    private final Map<String, AdaptiveState> states = new ConcurrentHashMap<>();
+
+    /**
+     * 上次清理时间
+     */
+    @EqualsAndHashCode.Exclude
+    private final AtomicLong lastSweepTime = new AtomicLong(System.currentTimeMillis());
+
+    @Override
+    public <R> R limit(String key, long expire, Process<R> process) throws Throwable {
+        long now = System.currentTimeMillis();
+        AdaptiveState state = states.computeIfAbsent(key, k -> new AdaptiveState(initialLimit));
+        state.lastAccessTime = now;
+        sweep(now);
+        int inFlight = state.tryAcquire();
+        if (inFlight < 0) {
+            // 正在处理的请求大约在一个RTT后完成
+            long retryAfter = Math.max(1, (long) Math.ceil(state.avgRtt));
+            Particle particle = new Particle(this.getClass(), true, new RateLimitResult(state.getLimit(), 0, retryAfter));
+            return next(particle, key, expire, process);
+        }
+        Particle particle = new Particle(this.getClass(), false, new RateLimitResult(state.getLimit(), state.getLimit() - inFlight - 1, 0));
+        long startTime = System.nanoTime();
+        boolean dropped = true;
+        try {
+            R result = next(particle, key, expire, process);
+            dropped = false;
+            return result;
+        } finally {
+            state.inFlight.decrementAndGet();
+            onSample(state, startTime, inFlight, dropped);
+        }
+    }
+
+    /**
+     * 获取key的当前并发上限
+     * @param key   键
+     * @return  并发上限，没有状态时返回初始上限
+     */
+    public int getLimit(String key) {
+        AdaptiveState state = states.get(key);
+        return state == null ? initialLimit : state.getLimit();
+    }
+
+    /**
+     * 记录一次请求的耗时并调整上限
+     * @param state     限制状态
+     * @param startTime 请求开始时间（单位：ns）
+     * @param inFlight  请求开始时正在处理的请求数
+     * @param dropped   是否异常
+     */
+    private void onSample(AdaptiveState state, long startTime, int inFlight, boolean dropped) {
+        double rtt = (double) (System.nanoTime() - startTime) / TimeUnit.MILLISECONDS.toNanos(1);
+        synchronized (state) {
+            if (adaptiveType == AdaptiveType.AIMD) {
+                aimd(state, startTime, rtt, inFlight, dropped);
+                return;
+            }
+            // 快速失败的耗时不能代表处理能力
+            if (dropped) {
+                return;
+            }
+            gradient(state, rtt, inFlight);
+        }
+    }
+
+    private void aimd(AdaptiveState state, long startTime, double rtt, int inFlight, boolean dropped) {
+        double limit = state.limit;
+        if (dropped || rtt > timeout) {
+            // 上次降低上限前开始的请求不再重复降低（同一批超时的请求只降低一次）
+            if (startTime - state.backoffTime > 0) {
+                limit = limit * backoffRatio;
+                state.backoffTime = System.nanoTime();
+            }
+        } else if ((inFlight + 1) * 2 >= limit) {
+            // 请求量达到上限一半以上时才增长，防止空闲时上限无限增长
+            limit = limit + 1;
+        }
+        state.avgRtt = state.avgRtt == 0 ? rtt : state.avgRtt * 0.9 + rtt * 0.1;
+        state.limit = clamp(limit);
+    }
+
+    private void gradient(AdaptiveState state, double rtt, int inFlight) {
+        // 探测时只统计在低并发下开始的请求
+        if (state.probing && inFlight + 1 > state.limit) {
+            return;
+        }
+        state.sampleRttSum += rtt;
+        state.sampleMaxInFlight = Math.max(state.sampleMaxInFlight, inFlight + 1);
+        if (++state.sampleCount < sampleSize) {
+            return;
+        }
+        double shortRtt = state.sampleRttSum / state.sampleCount;
+        int maxInFlight = state.sampleMaxInFlight;
+        state.sampleRttSum = 0;
+        state.sampleCount = 0;
+        state.sampleMaxInFlight = 0;
+
+        state.avgRtt = state.avgRtt == 0 ? shortRtt : state.avgRtt * 0.9 + shortRtt * 0.1;
+        double limit = state.limit;
+        // 探测完成，恢复并发上限
+        if (state.probing) {
+            state.noLoadRtt = shortRtt;
+            state.probing = false;
+            state.limit = state.probeLimit;
+            return;
+        }
+        // 无负载RTT取观测到的最小RTT，只在探测时重新测量，防止负载下的RTT被当作基准
+        state.noLoadRtt = state.noLoadRtt == 0 ? shortRtt : Math.min(state.noLoadRtt, shortRtt);
+        if (++state.batches >= probeInterval) {
+            state.batches = 0;
+            state.probing = true;
+            state.probeLimit = limit;
+            state.limit = clamp(Math.sqrt(limit));
+            return;
+        }
+        // 请求量不到上限一半时不调整
+        if (maxInFlight * 2 < limit) {
+            return;
+        }
+        // 延迟上升时梯度小于1，上限按比例下降，下降幅度最多一半
+        double gradient = Math.max(0.5, Math.min(1.0, tolerance * state.noLoadRtt / shortRtt));
+        // 允许的排队数
+        double queueSize = Math.sqrt(limit);
+        double newLimit = limit * gradient + queueSize;
+        state.limit = clamp(limit * (1 - smoothing) + newLimit * smoothing);
+    }
+
+    private double clamp(double limit) {
+        return Math.max(minLimit, Math.min(maxLimit, limit));
+    }
+
+    /**
+     * 清理空闲的限制状态（每个空闲周期最多执行一次）
+     * @param now   当前时间
+     */
+    private void sweep(long now) {
+        long sweepTime = lastSweepTime.get();
+        if (now - sweepTime < idleTime || !lastSweepTime.compareAndSet(sweepTime, now)) {
+            return;
+        }
+        states.forEach((key, state) -> {
+            if (now - state.lastAccessTime > idleTime && state.inFlight.get() == 0) {
+                states.remove(key, state);
+            }
+        });
+    }
+
+    /**
+     * 本地限制状态
+     */
+    static class AdaptiveState {
+        /**
+         * 正在处理的请求数
+         */
+        final AtomicInteger inFlight = new AtomicInteger(0);
+        /**
+         * 并发上限
+         */
+        volatile double limit;
+        /**
+         * 平均RTT（单位：ms）
+         */
+        volatile double avgRtt;
+        /**
+         * 最后访问时间
+         */
+        volatile long lastAccessTime;
+        /**
+         * 当前批次样本（调整上限时加锁访问）
+         */
+        double sampleRttSum;
+        int sampleCount;
+        int sampleMaxInFlight;
+        /**
+         * 无负载RTT、探测状态和上次降低上限的时间（调整上限时加锁访问）
+         */
+        double noLoadRtt;
+        long backoffTime = System.nanoTime();
+        int batches;
+        boolean probing;
+        double probeLimit;
+
+        AdaptiveState(int initialLimit) {
+            this.limit = initialLimit;
+        }
+
+        int getLimit() {
+            return (int) limit;
+        }
+
+        /**
+         * 获取处理许可
+         * @return  获取前正在处理的请求数，超过上限时返回-1
+         */
+        int tryAcquire() {
+            while (true) {
+                int current = inFlight.get();
+                if (current >= getLimit()) {
+                    return -1;
+                }
+                if (inFlight.compareAndSet(current, current + 1)) {
+                    return current;
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,21 @@
+package com.github.yizzuide.milkomeda.particle;
+
+/**
+ * AdaptiveType
+ * 自适应并发限制算法类型
+ *
+ * @author yizzuide
+ * @since 3.12.0
+ * Create at 2026/10/18 19:50
+ */
+public enum AdaptiveType {
+    /**
+     * 梯度算法：比较短期RTT与无负载RTT（观测到的最小RTT，每隔probeInterval批样本重新探测），延迟上升时按比例降低并发上限，延迟正常时按平方根增长
+     */
+    GRADIENT,
+
+    /**
+     * 加性增、乘性减：请求超时或异常时按比例降低并发上限，否则每次加1
+     */
+    AIMD
+}
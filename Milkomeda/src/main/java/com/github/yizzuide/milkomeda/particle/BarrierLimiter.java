@@ -1,22 +1,37 @@
 package com.github.yizzuide.milkomeda.particle;
 
+import com.github.yizzuide.milkomeda.universe.polyfill.RedisPolyfill;
+import com.github.yizzuide.milkomeda.util.RedisScriptRegistry;
 import lombok.Getter;
 import lombok.Setter;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.RedisScript;
 
+import java.util.ArrayList;
 import java.util.List;
 
 /**
  * BarrierLimiter
  * 组合限制器
  *
- * 用于组装多个限制处理器，也能实现复合链串：限制器 + 组合限制器 + ...
+ * 用于组装多个限制处理器，也能实现复合链串：限制器 + 组合限制器 + ... <br>
+ * 开启组合模式后，链上的限制器合并到一次lua脚本调用中：先检测所有链节点，全部通过后才计数，
+ * 被拒绝时返回拒绝的链节点，前面通过的节点不会消耗次数
  *
  * @author yizzuide
  * @since 1.5.0
- * @version 3.0.0
+ * @version 3.12.0
  * Create at 2019/05/31 11:25
  */
+@Slf4j
 public class BarrierLimiter extends LimitHandler {
+    /**
+     * 组合模式脚本
+     */
+    @SuppressWarnings("rawtypes")
+    private static final RedisScript<List> COMPOSITE_SCRIPT = RedisScriptRegistry.get("particle_barrier_limiter.lua", List.class);
+
     /**
      * 拦截链头
      */
@@ -28,12 +43,32 @@ public class BarrierLimiter extends LimitHandler {
     @Setter @Getter
     private List<String> chain;
 
+    /**
+     * 组合模式（链上的限制器都支持时生效，支持的限制器：IdempotentLimiter、TimesLimiter、SlidingWindowLimiter、GcraLimiter）
+     * @since 3.12.0
+     */
+    @Setter @Getter
+    private boolean composite = false;
+
+    /**
+     * 组合模式链节点
+     */
+    private final List<CompositeLink> links = new ArrayList<>();
+
+    /**
+     * 组合模式脚本参数模板（前3个参数调用时填充）
+     */
+    private String[] linkArgs;
+
     /**
      * 添加限制处理器
      * @param limitHandlerList 限制处理器集合
      */
     public void addLimitHandlerList(List<LimitHandler> limitHandlerList) {
         for (LimitHandler handler : limitHandlerList) {
+            if (handler instanceof CompositeLink && ((CompositeLink) handler).isLinkSupported()) {
+                links.add((CompositeLink) handler);
+            }
             if (head == null) {
                 head = handler;
                 next = head;
@@ -42,10 +77,61 @@ public class BarrierLimiter extends LimitHandler {
             next.setNext(handler);
             next = next.getNext();
         }
+        if (!composite) {
+            return;
+        }
+        if (links.size() != limitHandlerList.size()) {
+            log.warn("Particle barrier limiter chain {} has limiter not support composite mode, use chain mode.", chain);
+            links.clear();
+            return;
+        }
+        // 启动时生成链节点参数，调用时只需要填充键和当前时间
+        linkArgs = new String[3 + links.size() * 3];
+        linkArgs[0] = String.valueOf(links.size());
+        for (int i = 0; i < links.size(); i++) {
+            CompositeLink link = links.get(i);
+            linkArgs[3 + i * 3] = link.getLinkType();
+            linkArgs[4 + i * 3] = String.valueOf(link.getLinkLimit());
+            linkArgs[5 + i * 3] = String.valueOf(link.getLinkPeriod());
+        }
     }
 
     @Override
     public <R> R limit(String key, long expire, Process<R> process) throws Throwable {
+        if (linkArgs != null) {
+            return compositeLimit(key, expire, process);
+        }
         return head.limit(key, expire, process);
     }
+
+    @SuppressWarnings("unchecked")
+    private <R> R compositeLimit(String key, long expire, Process<R> process) throws Throwable {
+        List<String> keys = new ArrayList<>(links.size());
+        for (CompositeLink link : links) {
+            keys.add(link.getLinkKey(key));
+        }
+        String[] args = linkArgs.clone();
+        args[1] = String.valueOf(System.currentTimeMillis());
+        args[2] = String.valueOf(Math.max(expire, 1));
+        StringRedisTemplate redisTemplate = getRedisTemplate();
+        List<Long> result = redisTemplate.execute(COMPOSITE_SCRIPT, keys, (Object[]) args);
+        assert result != null;
+        int rejected = result.get(0).intValue();
+        boolean isOver = rejected > 0;
+        // 被拒绝时使用拒绝的链节点，通过时使用最后一个链节点（与链模式相同）
+        CompositeLink link = links.get(isOver ? rejected - 1 : links.size() - 1);
+        Particle particle = new Particle(((LimitHandler) link).getClass(), isOver, link.getLinkValue(isOver, result.get(1), result.get(2)));
+        try {
+            return process.apply(particle);
+        } finally {
+            // 通过时设置的去重key在业务处理完成后删除
+            if (!isOver) {
+                for (int i = 0; i < links.size(); i++) {
+                    if (links.get(i) instanceof IdempotentLimiter) {
+                        RedisPolyfill.redisDelete(redisTemplate, keys.get(i));
+                    }
+                }
+            }
+        }
+    }
 }
@@ -2,18 +2,22 @@ package com.github.yizzuide.milkomeda.particle;
 
 import com.github.yizzuide.milkomeda.universe.algorithm.hash.BloomHashWrapper;
 import com.github.yizzuide.milkomeda.util.RedisUtil;
-import org.springframework.data.redis.connection.RedisConnection;
+import org.springframework.data.redis.connection.BitFieldSubCommands;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.serializer.RedisSerializer;
 import org.springframework.util.StringUtils;
 
-import java.util.Collections;
-import java.util.List;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * BloomLimiter
- * 布隆限制器
+ * 布隆限制器（所有bit位通过一次BITFIELD命令获取，可开启本地bitmap镜像，按分块版本号刷新）
  *
  * @author yizzuide
  * @since 3.9.0
+ * @version 3.12.0
  * Create at 2020/06/23 16:03
  */
 public class BloomLimiter extends LimitHandler {
@@ -39,11 +43,37 @@ public class BloomLimiter extends LimitHandler {
     @SuppressWarnings({"FieldCanBeLocal", "FieldMayBeFinal"})
     private double fpp = 0.03;
 
+    /**
+     * 开启本地bitmap镜像（添加数据后，当前节点立即重新拉取修改过的分块，其它节点在刷新间隔内可能判断为不存在）
+     * @since 3.12.0
+     */
+    @SuppressWarnings({"FieldCanBeLocal", "FieldMayBeFinal"})
+    private boolean localMirror = false;
+
+    /**
+     * 本地镜像分块大小（单位：byte）
+     * @since 3.12.0
+     */
+    @SuppressWarnings({"FieldCanBeLocal", "FieldMayBeFinal"})
+    private int mirrorChunkSize = 8192;
+
+    /**
+     * 本地镜像分块版本检测间隔（单位：ms）
+     * @since 3.12.0
+     */
+    @SuppressWarnings({"FieldCanBeLocal", "FieldMayBeFinal"})
+    private long mirrorRefreshInterval = 1000;
+
     /**
      * Bloom Hash操作类
      */
     private volatile BloomHashWrapper<String> bloomHashWrapper;
 
+    /**
+     * 本地镜像分块（分块下标 -> 分块）
+     */
+    private final Map<Integer, MirrorChunk> mirrorChunks = new ConcurrentHashMap<>();
+
     public <R> R limit(String key, Process<R> process) throws Throwable {
         return limit(key, -1, process);
     }
@@ -56,20 +86,95 @@ public class BloomLimiter extends LimitHandler {
         }
         String value = key.substring(splitIndex + 1);
         int[] offset = getBloomHashWrapper().offset(value);
-        Particle particle = null;
+        boolean hit = localMirror ? mirrorHit(offset) : redisHit(offset);
+        Particle particle = hit ? new Particle(this.getClass(), false, 1) : new Particle(this.getClass(), true, 0);
+        return next(particle, key, expire, process);
+    }
+
+    /**
+     * 通过一次BITFIELD命令获取所有bit位
+     * @param offset    bit位置
+     * @return  是否全部匹配
+     */
+    private boolean redisHit(int[] offset) {
+        BitFieldSubCommands subCommands = BitFieldSubCommands.create();
         for (int i : offset) {
-            Boolean hit = getRedisTemplate().execute((RedisConnection connection) -> connection.getBit(bitKey.getBytes(), i));
-            assert hit != null;
-            // 只要有一bit为0，即匹配失败
-            if (!hit) {
-                particle = new Particle(this.getClass(), true, 0);
-                break;
+            subCommands = subCommands.get(BitFieldSubCommands.BitFieldType.unsigned(1)).valueAt(i);
+        }
+        List<Long> bits = getRedisTemplate().opsForValue().bitField(bitKey, subCommands);
+        assert bits != null;
+        // 只要有一bit为0，即匹配失败
+        for (Long bit : bits) {
+            if (bit == null || bit == 0) {
+                return false;
             }
         }
-        if (particle == null) {
-            particle = new Particle(this.getClass(), false, 1);
+        return true;
+    }
+
+    /**
+     * 通过本地镜像判断所有bit位
+     * @param offset    bit位置
+     * @return  是否全部匹配
+     */
+    private boolean mirrorHit(int[] offset) {
+        int chunkBits = mirrorChunkSize * 8;
+        long now = System.currentTimeMillis();
+        // 需要检测版本的分块
+        Set<Integer> staleChunks = new TreeSet<>();
+        for (int i : offset) {
+            MirrorChunk chunk = mirrorChunks.get(i / chunkBits);
+            if (chunk == null || now - chunk.checkTime >= mirrorRefreshInterval) {
+                staleChunks.add(i / chunkBits);
+            }
+        }
+        if (!staleChunks.isEmpty()) {
+            refreshMirror(new ArrayList<>(staleChunks), now);
+        }
+        for (int i : offset) {
+            if (!mirrorChunks.get(i / chunkBits).get(i % chunkBits)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * 刷新本地镜像分块（一次获取版本号，只拉取版本有变化的分块）
+     * @param chunkIndexes  分块下标
+     * @param now           当前时间
+     */
+    private void refreshMirror(List<Integer> chunkIndexes, long now) {
+        List<Object> fields = new ArrayList<>(chunkIndexes.size());
+        chunkIndexes.forEach(index -> fields.add(String.valueOf(index)));
+        List<Object> versions = getRedisTemplate().opsForHash().multiGet(getVersionKey(), fields);
+        List<Integer> changedIndexes = new ArrayList<>();
+        List<Long> changedVersions = new ArrayList<>();
+        for (int i = 0; i < chunkIndexes.size(); i++) {
+            Integer index = chunkIndexes.get(i);
+            long version = versions.get(i) == null ? 0 : Long.parseLong(versions.get(i).toString());
+            MirrorChunk chunk = mirrorChunks.get(index);
+            if (chunk != null && chunk.version == version) {
+                chunk.checkTime = now;
+                continue;
+            }
+            changedIndexes.add(index);
+            changedVersions.add(version);
+        }
+        if (changedIndexes.isEmpty()) {
+            return;
+        }
+        byte[] rawBitKey = bitKey.getBytes(StandardCharsets.UTF_8);
+        List<Object> chunkDataList = getRedisTemplate().executePipelined((RedisCallback<Object>) connection -> {
+            for (Integer index : changedIndexes) {
+                long start = (long) index * mirrorChunkSize;
+                connection.getRange(rawBitKey, start, start + mirrorChunkSize - 1);
+            }
+            return null;
+        }, RedisSerializer.byteArray());
+        for (int i = 0; i < changedIndexes.size(); i++) {
+            mirrorChunks.put(changedIndexes.get(i), new MirrorChunk(changedVersions.get(i), (byte[]) chunkDataList.get(i), now));
         }
-        return next(particle, key, expire, process);
     }
 
     /**
@@ -86,14 +191,33 @@ public class BloomLimiter extends LimitHandler {
      */
     public void addAll(List<String> values) {
         assert bitKey != null;
+        int chunkBits = mirrorChunkSize * 8;
+        byte[] rawBitKey = bitKey.getBytes(StandardCharsets.UTF_8);
+        byte[] rawVersionKey = getVersionKey().getBytes(StandardCharsets.UTF_8);
+        Set<Integer> chunkIndexes = new HashSet<>();
         RedisUtil.batchConn((connection) -> {
             for (String value : values) {
                 int[] offset = getBloomHashWrapper().offset(value);
                 for (int i : offset) {
-                    connection.setBit(bitKey.getBytes(), i, true);
+                    connection.setBit(rawBitKey, i, true);
+                    chunkIndexes.add(i / chunkBits);
+                }
+            }
+            // 更新分块版本号，让其它节点的本地镜像重新拉取
+            if (localMirror) {
+                for (Integer index : chunkIndexes) {
+                    connection.hIncrBy(rawVersionKey, String.valueOf(index).getBytes(StandardCharsets.UTF_8), 1);
                 }
             }
         }, getRedisTemplate());
+        // 当前节点移除修改过的分块，下次判断时立即重新拉取
+        if (localMirror) {
+            chunkIndexes.forEach(mirrorChunks::remove);
+        }
+    }
+
+    private String getVersionKey() {
+        return bitKey + ":version";
     }
 
     private BloomHashWrapper<String> getBloomHashWrapper() {
@@ -107,4 +231,36 @@ public class BloomLimiter extends LimitHandler {
         }
         return bloomHashWrapper;
     }
+
+    /**
+     * 本地镜像分块
+     */
+    static class MirrorChunk {
+        /**
+         * 版本号
+         */
+        final long version;
+        /**
+         * bitmap数据（Redis的bit位从字节高位开始）
+         */
+        final byte[] data;
+        /**
+         * 检测版本的时间
+         */
+        volatile long checkTime;
+
+        MirrorChunk(long version, byte[] data, long checkTime) {
+            this.version = version;
+            this.data = data == null ? new byte[0] : data;
+            this.checkTime = checkTime;
+        }
+
+        boolean get(int bitIndex) {
+            int byteIndex = bitIndex >>> 3;
+            if (byteIndex >= data.length) {
+                return false;
+            }
+            return (data[byteIndex] & (0x80 >>> (bitIndex & 7))) != 0;
+        }
+    }
 }
@@ -0,0 +1,53 @@
+package com.github.yizzuide.milkomeda.particle;
+
+/**
+ * CompositeLink
+ * 可组合链节点，组合限制器开启组合模式时，所有链节点合并到一次lua脚本调用中执行
+ *
+ * @author yizzuide
+ * @since 3.12.0
+ * Create at 2026/10/18 19:20
+ */
+interface CompositeLink {
+    /**
+     * 当前配置是否支持组合模式
+     * @return  true为支持
+     */
+    default boolean isLinkSupported() {
+        return true;
+    }
+
+    /**
+     * 链节点在组合脚本中的类型
+     * @return  repeat、times、sliding、gcra
+     */
+    String getLinkType();
+
+    /**
+     * 链节点使用的key（与单独使用时的key相同）
+     * @param key   键
+     * @return  装饰后的key
+     */
+    String getLinkKey(String key);
+
+    /**
+     * 链节点的限制次数
+     * @return  限制次数
+     */
+    long getLinkLimit();
+
+    /**
+     * 链节点的限制周期
+     * @return  周期（times类型的单位为s，其它类型的单位为ms）
+     */
+    long getLinkPeriod();
+
+    /**
+     * 根据脚本返回结果创建状态数据的值（与单独使用时的值相同）
+     * @param isOver        是否被限制
+     * @param value         次数或剩余次数
+     * @param retryAfter    重试等待时间（单位：ms）
+     * @return  状态数据的值
+     */
+    Object getLinkValue(boolean isOver, long value, long retryAfter);
+}
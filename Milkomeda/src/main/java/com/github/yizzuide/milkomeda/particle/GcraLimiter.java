@@ -0,0 +1,31 @@
+package com.github.yizzuide.milkomeda.particle;
+
+/**
+ * GcraLimiter
+ * GCRA（通用信元速率算法）限制器，请求按固定间隔（周期/次数）均匀放行，最多允许限制次数的突发请求，
+ * 只需存储一个理论到达时间
+ *
+ * @author yizzuide
+ * @since 3.12.0
+ * Create at 2026/10/18 18:22
+ */
+public class GcraLimiter extends AbstractRateLimiter implements CompositeLink {
+
+    // 装饰后缀
+    private static final String POSTFIX = ":gcra";
+
+    @Override
+    public String getLinkType() {
+        return "gcra";
+    }
+
+    @Override
+    protected String getScriptName() {
+        return "particle_gcra_limiter.lua";
+    }
+
+    @Override
+    protected String getPostfix() {
+        return POSTFIX;
+    }
+}
@@ -2,31 +2,76 @@ package com.github.yizzuide.milkomeda.particle;
 
 import com.github.yizzuide.milkomeda.universe.polyfill.RedisPolyfill;
 import com.github.yizzuide.milkomeda.util.RedisUtil;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.redis.connection.RedisStringCommands;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.RedisTemplate;
 import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.types.Expiration;
+import org.springframework.data.redis.serializer.RedisSerializer;
+
+import java.io.Serializable;
 
 /**
  * IdempotentLimiter
  * 幂等、去重限制器
- * 同一个标识的key不能重复调用业务处理方法，相同的调用可作幂等返回处理
+ * 同一个标识的key不能重复调用业务处理方法，相同的调用可作幂等返回处理 <br>
+ * 开启重放模式后，第一次调用成功的结果缓存在去重key上，重复的调用直接返回缓存的结果（不再调用业务处理方法），
+ * 第一次调用还在执行时，重复的调用可以等待一段时间获取结果，超时后作为被限制处理 <br>
+ * 注意：重放的结果通过JSON序列化存储，结果为null或不能序列化时不缓存；反序列化后类型改变的结果不重放，重复的调用作为被限制处理
  *
  * @author yizzuide
  * @since 1.5.0
- * @version 3.9.0
+ * @version 3.12.0
  * Create at 2019/05/30 13:49
  */
 @Slf4j
-public class IdempotentLimiter extends LimitHandler {
+public class IdempotentLimiter extends LimitHandler implements CompositeLink {
 
     // 装饰后缀
     private static final String POSTFIX = ":repeat";
 
+    // 等待结果的最小轮询间隔（单位：ms），每次翻倍
+    private static final long REPLAY_POLL_MIN_INTERVAL = 5;
+
+    // 等待结果的最大轮询间隔（单位：ms）
+    private static final long REPLAY_POLL_MAX_INTERVAL = 200;
+
+    /**
+     * 重放模式
+     * @since 3.12.0
+     */
+    @Setter @Getter
+    private boolean replay = false;
+
+    /**
+     * 重放结果缓存时间（单位：s）
+     * @since 3.12.0
+     */
+    @Setter @Getter
+    private long replayTtl = 60;
+
+    /**
+     * 第一次调用执行中时，重复调用等待结果的时间（单位：ms，为0时不等待）
+     * @since 3.12.0
+     */
+    @Setter @Getter
+    private long replayWaitTime = 0;
+
     @Override
     public <R> R limit(String key, long expire, Process<R> process) throws Throwable {
         String decoratedKey = key + POSTFIX;
         StringRedisTemplate redisTemplate = getRedisTemplate();
         Boolean hasObtainLock = RedisUtil.setIfAbsent(decoratedKey, expire, redisTemplate);
         assert hasObtainLock != null;
+        if (replay) {
+            return replayLimit(key, decoratedKey, hasObtainLock, expire, process);
+        }
         Particle particle = new Particle(this.getClass(), !hasObtainLock, hasObtainLock ? null : "1");
         try {
             return next(particle, key, expire, process);
@@ -37,4 +82,145 @@ public class IdempotentLimiter extends LimitHandler {
             }
         }
     }
+
+    @SuppressWarnings("unchecked")
+    private <R> R replayLimit(String key, String decoratedKey, boolean hasObtainLock, long expire, Process<R> process) throws Throwable {
+        RedisTemplate<String, Serializable> jsonRedisTemplate = getJsonRedisTemplate();
+        if (!hasObtainLock) {
+            ReplayResult replayResult = waitReplayResult(decoratedKey, jsonRedisTemplate);
+            if (replayResult != null) {
+                return (R) replayResult.getResult();
+            }
+            return next(new Particle(this.getClass(), true, "1"), key, expire, process);
+        }
+        // 记录后面的限制器是否放行
+        boolean[] passed = new boolean[1];
+        boolean cached = false;
+        try {
+            R result = next(new Particle(this.getClass(), false, null), key, expire, particle -> {
+                passed[0] = !particle.isLimited();
+                return process.apply(particle);
+            });
+            if (passed[0] && result != null) {
+                try {
+                    cacheReplayResult(decoratedKey, result, jsonRedisTemplate);
+                    cached = true;
+                } catch (Exception e) {
+                    log.warn("Particle idempotent limiter cache replay result error: {}", e.getMessage());
+                }
+            }
+            return result;
+        } finally {
+            // 没有缓存结果时删除key，失败的调用可以重试
+            if (!cached) {
+                RedisPolyfill.redisDelete(getRedisTemplate(), decoratedKey);
+            }
+        }
+    }
+
+    /**
+     * 缓存第一次调用的结果（先验证反序列化后类型不变，否则缓存不可重放标记，重复的调用作为被限制处理）
+     * @param decoratedKey      去重key
+     * @param result            调用结果
+     * @param jsonRedisTemplate RedisTemplate
+     */
+    @SuppressWarnings("unchecked")
+    private void cacheReplayResult(String decoratedKey, Object result, RedisTemplate<String, Serializable> jsonRedisTemplate) {
+        RedisSerializer<Object> valueSerializer = (RedisSerializer<Object>) jsonRedisTemplate.getValueSerializer();
+        byte[] data = valueSerializer.serialize(new ReplayResult(result, true));
+        Object restored = valueSerializer.deserialize(data);
+        if (!(restored instanceof ReplayResult) || !isSameType(result, ((ReplayResult) restored).getResult())) {
+            log.warn("Particle idempotent limiter replay result type {} can't round trip, cache as not replayable.", result.getClass().getName());
+            data = valueSerializer.serialize(new ReplayResult(null, false));
+        }
+        byte[] rawKey = ((RedisSerializer<String>) jsonRedisTemplate.getKeySerializer()).serialize(decoratedKey);
+        byte[] value = data;
+        jsonRedisTemplate.execute((RedisCallback<Object>) connection ->
+                connection.set(rawKey, value, Expiration.seconds(replayTtl), RedisStringCommands.SetOption.UPSERT));
+    }
+
+    private static boolean isSameType(Object result, Object restored) {
+        return restored != null && restored.getClass() == result.getClass();
+    }
+
+    /**
+     * 获取第一次调用的结果
+     * @param decoratedKey      去重key
+     * @param jsonRedisTemplate RedisTemplate
+     * @return  没有结果或结果不可重放时返回null
+     */
+    private ReplayResult waitReplayResult(String decoratedKey, RedisTemplate<String, Serializable> jsonRedisTemplate) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + replayWaitTime;
+        long pollInterval = REPLAY_POLL_MIN_INTERVAL;
+        while (true) {
+            Serializable value;
+            try {
+                value = jsonRedisTemplate.opsForValue().get(decoratedKey);
+            } catch (Exception e) {
+                log.warn("Particle idempotent limiter read replay result error: {}", e.getMessage());
+                return null;
+            }
+            if (value instanceof ReplayResult) {
+                ReplayResult replayResult = (ReplayResult) value;
+                return replayResult.isReplayable() ? replayResult : null;
+            }
+            // 第一次调用已失败或等待超时
+            long waitTime = deadline - System.currentTimeMillis();
+            if (value == null || waitTime <= 0) {
+                return null;
+            }
+            // 指数退避，减少长时间执行时的轮询次数
+            Thread.sleep(Math.min(waitTime, pollInterval));
+            pollInterval = Math.min(pollInterval * 2, REPLAY_POLL_MAX_INTERVAL);
+        }
+    }
+
+    @Override
+    public boolean isLinkSupported() {
+        // 重放模式需要缓存业务处理结果
+        return !replay;
+    }
+
+    @Override
+    public String getLinkType() {
+        return "repeat";
+    }
+
+    @Override
+    public String getLinkKey(String key) {
+        return key + POSTFIX;
+    }
+
+    @Override
+    public long getLinkLimit() {
+        return 0;
+    }
+
+    @Override
+    public long getLinkPeriod() {
+        return 0;
+    }
+
+    @Override
+    public Object getLinkValue(boolean isOver, long value, long retryAfter) {
+        return isOver ? "1" : null;
+    }
+
+    /**
+     * 重放结果
+     */
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    static class ReplayResult implements Serializable {
+        private static final long serialVersionUID = 1L;
+        /**
+         * 第一次调用的结果
+         */
+        private Object result;
+        /**
+         * 结果是否可重放（反序列化后类型不变）
+         */
+        private boolean replayable;
+    }
 }
@@ -0,0 +1,273 @@
+package com.github.yizzuide.milkomeda.particle;
+
+import com.github.yizzuide.milkomeda.util.RedisScriptRegistry;
+import lombok.Data;
+import lombok.EqualsAndHashCode;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.data.redis.core.script.RedisScript;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * LeaseLimiter
+ * 租用配额限制器：每个节点从Redis的窗口计数中一次租用一段配额，在本地令牌桶中无锁扣减，用完或租期到期时才访问Redis <br>
+ * 租期到期时由后台定时任务把未使用的配额归还到窗口计数，并移除空闲的本地令牌桶；窗口配额用完后，在本地缓存拒绝状态，短时间内不再访问Redis <br>
+ * 注意：各节点持有未使用的配额时，其它节点可能提前被限制，通过 leaseSize 和 leaseTime 调整精度
+ *
+ * @author yizzuide
+ * @since 3.12.0
+ * Create at 2026/10/18 18:40
+ */
+@Slf4j
+@Data
+@EqualsAndHashCode(callSuper = true)
+public class LeaseLimiter extends AbstractRateLimiter implements DisposableBean {
+
+    // 装饰后缀
+    private static final String POSTFIX = ":lease";
+
+    // 归还配额脚本
+    private static final RedisScript<Long> RETURN_SCRIPT = RedisScriptRegistry.get("particle_lease_return.lua", Long.class);
+
+    /**
+     * 每次租用的配额数
+     */
+    private long leaseSize = 10;
+
+    /**
+     * 租期（单位：ms）
+     */
+    private long leaseTime = 1000;
+
+    /**
+     * 本地拒绝缓存时间（单位：ms）
+     */
+    private long denyCacheTime = 100;
+
+    /**
+     * 本地令牌桶的最大个数，超过后新的键不再缓存本地令牌桶，每次只租用一个配额
+     */
+    private int maxBuckets = 10000;
+
+    /**
+     * 本地令牌桶（key -> 桶）
+     */
+    @EqualsAndHashCode.Exclude
+    private final Map<String, LeaseBucket> buckets = new ConcurrentHashMap<>();
+
+    /**
+     * 归还和清理的定时任务线程（第一次请求时创建）
+     */
+    @EqualsAndHashCode.Exclude
+    private volatile ScheduledExecutorService sweeper;
+
+    @Override
+    public <R> R limit(String key, long expire, Process<R> process) throws Throwable {
+        startSweeper();
+        long now = System.currentTimeMillis();
+        RateLimitResult result;
+        while (true) {
+            LeaseBucket bucket = buckets.get(key);
+            if (bucket == null) {
+                // 超过最大个数时不缓存，防止大量不同的键撑满内存
+                if (buckets.size() >= maxBuckets) {
+                    result = renew(key, new LeaseBucket(), now, 1);
+                    break;
+                }
+                bucket = buckets.computeIfAbsent(key, k -> new LeaseBucket());
+            }
+            result = acquire(bucket, now);
+            if (result != null) {
+                break;
+            }
+            synchronized (bucket) {
+                // 已被清理任务移除，使用新的令牌桶
+                if (bucket.removed) {
+                    continue;
+                }
+                result = acquire(bucket, now);
+                if (result == null) {
+                    result = renew(key, bucket, now, leaseSize);
+                }
+            }
+            break;
+        }
+        Particle particle = new Particle(this.getClass(), result.getRetryAfter() > 0, result);
+        return next(particle, key, expire, process);
+    }
+
+    @Override
+    public void destroy() {
+        if (sweeper != null) {
+            sweeper.shutdownNow();
+        }
+    }
+
+    /**
+     * 从本地令牌桶获取
+     * @param bucket    本地令牌桶
+     * @param now       当前时间
+     * @return  需要续租时返回null
+     */
+    private RateLimitResult acquire(LeaseBucket bucket, long now) {
+        // 本地拒绝缓存
+        if (bucket.denyUntil > now) {
+            return new RateLimitResult(getLimitTimes(), 0, bucket.denyUntil - now);
+        }
+        if (bucket.leaseExpireAt <= now) {
+            return null;
+        }
+        long tokens;
+        while ((tokens = bucket.tokens.get()) > 0) {
+            if (bucket.tokens.compareAndSet(tokens, tokens - 1)) {
+                return new RateLimitResult(getLimitTimes(), tokens - 1, 0);
+            }
+        }
+        return null;
+    }
+
+    /**
+     * 从Redis续租配额
+     * @param key       键
+     * @param bucket    本地令牌桶
+     * @param now       当前时间
+     * @param size      租用的配额数
+     * @return  RateLimitResult
+     */
+    @SuppressWarnings("unchecked")
+    private RateLimitResult renew(String key, LeaseBucket bucket, long now, long size) {
+        long period = getPeriod();
+        long window = now / period;
+        // 归还到期未使用的配额
+        giveBack(key, bucket, window);
+
+        List<Long> leased = getRedisTemplate().execute(getRedisScript(), Collections.singletonList(getWindowKey(key, window)),
+                String.valueOf(getLimitTimes()), String.valueOf(size), String.valueOf(period));
+        assert leased != null;
+        long granted = leased.get(0);
+        long windowTtl = leased.get(1) > 0 ? leased.get(1) : (window + 1) * period - now;
+        if (granted <= 0) {
+            bucket.denyUntil = now + Math.min(denyCacheTime, windowTtl);
+            return new RateLimitResult(getLimitTimes(), 0, windowTtl);
+        }
+        bucket.window = window;
+        bucket.tokens.set(granted - 1);
+        // 租期不超过当前窗口
+        bucket.leaseExpireAt = Math.min(now + leaseTime, (window + 1) * period);
+        return new RateLimitResult(getLimitTimes(), granted - 1, 0);
+    }
+
+    /**
+     * 归还本地桶中未使用的配额
+     * @param key       键
+     * @param bucket    本地令牌桶
+     * @param window    当前窗口
+     */
+    private void giveBack(String key, LeaseBucket bucket, long window) {
+        long unused = bucket.tokens.getAndSet(0);
+        // 已经过了租用窗口的配额不需要归还（窗口计数会过期）
+        if (unused <= 0 || bucket.window != window) {
+            return;
+        }
+        try {
+            getRedisTemplate().execute(RETURN_SCRIPT,
+                    Collections.singletonList(getWindowKey(key, window)), String.valueOf(unused));
+        } catch (Exception e) {
+            log.warn("Particle lease limiter give back quota error: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * 创建定时任务，每个租期执行一次归还和清理（租期属性在注册Bean后设置，所以在第一次请求时创建）
+     */
+    private void startSweeper() {
+        if (sweeper != null) {
+            return;
+        }
+        synchronized (this) {
+            if (sweeper != null) {
+                return;
+            }
+            ScheduledExecutorService executor = Executors.newSingleThreadScheduledExecutor(r -> {
+                Thread thread = new Thread(r, "particle-lease-sweeper");
+                thread.setDaemon(true);
+                return thread;
+            });
+            executor.scheduleWithFixedDelay(this::sweep, leaseTime, leaseTime, TimeUnit.MILLISECONDS);
+            sweeper = executor;
+        }
+    }
+
+    /**
+     * 归还租期到期的配额，并移除空闲的本地令牌桶
+     */
+    private void sweep() {
+        try {
+            long now = System.currentTimeMillis();
+            long window = now / getPeriod();
+            buckets.forEach((key, bucket) -> {
+                if (bucket.leaseExpireAt > now || bucket.denyUntil > now) {
+                    return;
+                }
+                synchronized (bucket) {
+                    if (bucket.leaseExpireAt > now || bucket.denyUntil > now) {
+                        return;
+                    }
+                    giveBack(key, bucket, window);
+                    bucket.removed = true;
+                    buckets.remove(key, bucket);
+                }
+            });
+        } catch (Exception e) {
+            log.warn("Particle lease limiter sweep error: {}", e.getMessage());
+        }
+    }
+
+    private String getWindowKey(String key, long window) {
+        return key + getPostfix() + ":" + window;
+    }
+
+    @Override
+    protected String getScriptName() {
+        return "particle_lease_limiter.lua";
+    }
+
+    @Override
+    protected String getPostfix() {
+        return POSTFIX;
+    }
+
+    /**
+     * 本地令牌桶
+     */
+    static class LeaseBucket {
+        /**
+         * 剩余令牌
+         */
+        final AtomicLong tokens = new AtomicLong(0);
+        /**
+         * 租用的窗口
+         */
+        volatile long window = -1;
+        /**
+         * 租期结束时间
+         */
+        volatile long leaseExpireAt;
+        /**
+         * 拒绝缓存结束时间
+         */
+        volatile long denyUntil;
+        /**
+         * 是否已从缓存中移除
+         */
+        volatile boolean removed;
+    }
+}
@@ -0,0 +1,192 @@
+package com.github.yizzuide.milkomeda.particle;
+
+import com.github.yizzuide.milkomeda.universe.parser.url.URLPlaceholderParser;
+import com.github.yizzuide.milkomeda.universe.parser.url.URLPlaceholderResolver;
+
+import javax.servlet.http.Cookie;
+import javax.servlet.http.HttpServletRequest;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * LimiterKeyTemplate
+ * 预编译的限制器key模板：启动时把模板拆分为文本和占位符片段，请求时直接从请求中取值拼接 <br>
+ * 只有使用了请求参数域或attr域（需要解析请求数据）的模板才通过 {@link URLPlaceholderParser} 解析
+ *
+ * @author yizzuide
+ * @since 3.12.0
+ * Create at 2026/10/18 21:15
+ */
+class LimiterKeyTemplate {
+
+    private static final String URI = "uri";
+    private static final String METHOD = "method";
+    private static final String HEADER_START_TOKEN = "$header.";
+    private static final String COOKIE_START_TOKEN = "$cookie.";
+
+    private final String tpl;
+
+    private final URLPlaceholderParser parser;
+
+    /**
+     * 占位符列表（通过解析器解析时使用）
+     */
+    private final Map<String, List<String>> placeHolders;
+
+    /**
+     * 文本片段（比占位符片段多一个）
+     */
+    private final String[] literals;
+
+    /**
+     * 占位符片段类型
+     */
+    private final PartType[] types;
+
+    /**
+     * 占位符片段名（请求头名或cookie名）
+     */
+    private final String[] names;
+
+    /**
+     * 是否通过解析器解析
+     */
+    private final boolean fallback;
+
+    private LimiterKeyTemplate(String tpl, URLPlaceholderParser parser, Map<String, List<String>> placeHolders,
+                               String[] literals, PartType[] types, String[] names, boolean fallback) {
+        this.tpl = tpl;
+        this.parser = parser;
+        this.placeHolders = placeHolders;
+        this.literals = literals;
+        this.types = types;
+        this.names = names;
+        this.fallback = fallback;
+    }
+
+    /**
+     * 编译模板
+     * @param tpl           key模板
+     * @param parser        占位符解析器
+     * @return  LimiterKeyTemplate
+     */
+    static LimiterKeyTemplate compile(String tpl, URLPlaceholderParser parser) {
+        if (tpl == null) {
+            tpl = "";
+        }
+        String prefix = parser.getParamsPrefix();
+        String suffix = parser.getParamsSuffix();
+        List<String> literals = new ArrayList<>();
+        List<PartType> types = new ArrayList<>();
+        List<String> names = new ArrayList<>();
+        int pos = 0;
+        int start = tpl.indexOf(prefix);
+        while (start != -1) {
+            int end = tpl.indexOf(suffix, start);
+            String placeHolder = end == -1 ? null : tpl.substring(start + prefix.length(), end);
+            PartType type = placeHolder == null || placeHolder.contains(prefix) ? null : PartType.of(placeHolder);
+            if (type == null) {
+                return new LimiterKeyTemplate(tpl, parser, parser.grabPlaceHolders(tpl), null, null, null, true);
+            }
+            literals.add(tpl.substring(pos, start));
+            types.add(type);
+            names.add(type.token == null ? null : placeHolder.substring(type.token.length()));
+            pos = end + suffix.length();
+            start = tpl.indexOf(prefix, pos);
+        }
+        literals.add(tpl.substring(pos));
+        return new LimiterKeyTemplate(tpl, parser, null, literals.toArray(new String[0]),
+                types.toArray(new PartType[0]), names.toArray(new String[0]), false);
+    }
+
+    /**
+     * 根据请求生成key
+     * @param request   请求对象
+     * @return  key
+     */
+    String render(HttpServletRequest request) {
+        if (fallback) {
+            return parser.parse(tpl, request, null, null, placeHolders);
+        }
+        if (types.length == 0) {
+            return literals[0];
+        }
+        StringBuilder key = new StringBuilder(tpl.length() + 32);
+        key.append(literals[0]);
+        for (int i = 0; i < types.length; i++) {
+            key.append(resolve(types[i], names[i], request));
+            key.append(literals[i + 1]);
+        }
+        return key.toString();
+    }
+
+    private String resolve(PartType type, String name, HttpServletRequest request) {
+        String value = null;
+        switch (type) {
+            case URI:
+                return request.getRequestURI();
+            case METHOD:
+                return request.getMethod();
+            case HEADER:
+                value = request.getHeader(name);
+                break;
+            case COOKIE:
+                Cookie[] cookies = request.getCookies();
+                if (cookies != null) {
+                    for (Cookie cookie : cookies) {
+                        if (cookie.getName().equals(name)) {
+                            value = cookie.getValue();
+                            break;
+                        }
+                    }
+                }
+                break;
+        }
+        if (value != null) {
+            return value;
+        }
+        URLPlaceholderResolver customResolver = parser.getCustomURLPlaceholderResolver();
+        return customResolver == null ? "" : String.valueOf(customResolver.resolver(name, request));
+    }
+
+    /**
+     * 占位符片段类型
+     */
+    private enum PartType {
+        URI(null),
+        METHOD(null),
+        HEADER(HEADER_START_TOKEN),
+        COOKIE(COOKIE_START_TOKEN);
+
+        /**
+         * 占位符前缀
+         */
+        private final String token;
+
+        PartType(String token) {
+            this.token = token;
+        }
+
+        /**
+         * 获取占位符类型
+         * @param placeHolder   占位符
+         * @return  需要解析器解析时返回null
+         */
+        static PartType of(String placeHolder) {
+            if (LimiterKeyTemplate.URI.equals(placeHolder)) {
+                return URI;
+            }
+            if (LimiterKeyTemplate.METHOD.equals(placeHolder)) {
+                return METHOD;
+            }
+            if (placeHolder.startsWith(HEADER_START_TOKEN)) {
+                return HEADER;
+            }
+            if (placeHolder.startsWith(COOKIE_START_TOKEN)) {
+                return COOKIE;
+            }
+            return null;
+        }
+    }
+}
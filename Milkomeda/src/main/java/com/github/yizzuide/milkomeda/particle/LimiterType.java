@@ -6,6 +6,7 @@ package com.github.yizzuide.milkomeda.particle;
  *
  * @author yizzuide
  * @since 3.1.2
+ * @version 3.12.0
  * Create at 2020/04/22 14:14
  */
 public enum LimiterType {
@@ -27,5 +28,41 @@ public enum LimiterType {
     /**
      * 布隆限制器
      */
-    BLOOM
+    BLOOM,
+
+    /**
+     * 滑动窗口限制器
+     * @since 3.12.0
+     */
+    SLIDING_WINDOW,
+
+    /**
+     * GCRA限制器
+     * @since 3.12.0
+     */
+    GCRA,
+
+    /**
+     * 租用配额限制器
+     * @since 3.12.0
+     */
+    LEASE,
+
+    /**
+     * 自适应并发限制器
+     * @since 3.12.0
+     */
+    ADAPTIVE,
+
+    /**
+     * 分布式信号量限制器
+     * @since 3.12.0
+     */
+    SEMAPHORE,
+
+    /**
+     * 分层配额限制器
+     * @since 3.12.0
+     */
+    QUOTA
 }
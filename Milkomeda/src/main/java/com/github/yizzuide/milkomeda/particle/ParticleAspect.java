@@ -1,23 +1,30 @@
 package com.github.yizzuide.milkomeda.particle;
 
 import com.github.yizzuide.milkomeda.universe.context.ApplicationContextHolder;
+import lombok.AllArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import lombok.val;
 import org.aspectj.lang.ProceedingJoinPoint;
 import org.aspectj.lang.annotation.Around;
 import org.aspectj.lang.annotation.Aspect;
 import org.aspectj.lang.annotation.Pointcut;
+import org.aspectj.lang.reflect.MethodSignature;
 import org.springframework.core.annotation.Order;
 import org.springframework.util.StringUtils;
 
+import java.lang.reflect.Method;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
 import static com.github.yizzuide.milkomeda.util.ReflectUtil.*;
 
 /**
  * ParticleAspect
+ * 注解方法第一次调用时解析限制器和key表达式并缓存，后面的调用只需要计算EL表达式
  *
  * @author yizzuide
  * @since 1.5.0
- * @version 3.1.0
+ * @version 3.12.0
  * Create at 2019/05/30 22:29
  */
 @Slf4j
@@ -25,26 +32,79 @@ import static com.github.yizzuide.milkomeda.util.ReflectUtil.*;
 @Order(88)
 public class ParticleAspect {
 
+    /**
+     * 注解方法 -> 限制器元数据
+     */
+    private final Map<Method, LimitMetadata> limitMetadataCache = new ConcurrentHashMap<>();
+
     // 切入点
     @Pointcut("@annotation(com.github.yizzuide.milkomeda.particle.Limit)")
     public void particlePointCut() {}
 
     @Around("particlePointCut()")
     public Object doAround(ProceedingJoinPoint joinPoint) throws Throwable {
+        Method method = ((MethodSignature) joinPoint.getSignature()).getMethod();
+        LimitMetadata metadata = limitMetadataCache.get(method);
+        if (metadata == null) {
+            metadata = limitMetadataCache.computeIfAbsent(method, m -> createLimitMetadata(joinPoint));
+        }
+        // 解析表达式
+        String decorateKey = metadata.staticKey != null ? metadata.staticKey : metadata.decorate(extractValue(joinPoint, metadata.key));
+        Limit limit = metadata.limit;
+        return metadata.limiter.limit(decorateKey, metadata.expire, (particle ->
+                joinPoint.proceed(injectParam(joinPoint, particle, limit, true))));
+    }
+
+    private LimitMetadata createLimitMetadata(ProceedingJoinPoint joinPoint) {
         val limit = getAnnotation(joinPoint, Limit.class);
         String beanName = limit.limiterBeanName();
-        String prefix = limit.name();
         String key = limit.key();
         if (StringUtils.isEmpty(key)) {
             throw new IllegalArgumentException("You must set key for use Limit.");
         }
-        // 解析表达式
-        key = extractValue(joinPoint, key);
-        long expire = limit.expire();
         Limiter limiter = !StringUtils.isEmpty(beanName) ? ApplicationContextHolder.get().getBean(beanName, Limiter.class)
                 : ApplicationContextHolder.get().getBean(limit.limiterBeanClass());
-        String decorateKey = StringUtils.isEmpty(prefix) ? key : prefix + ":" + key;
-        return limiter.limit(decorateKey, expire, (particle ->
-                joinPoint.proceed(injectParam(joinPoint, particle, limit, true))));
+        String prefix = StringUtils.isEmpty(limit.name()) ? null : limit.name() + ":";
+        LimitMetadata metadata = new LimitMetadata(limit, limiter, key, prefix, limit.expire(), null);
+        // 不是表达式的key只需要生成一次
+        if (!isExpression(key)) {
+            metadata.staticKey = metadata.decorate(key);
+        }
+        return metadata;
+    }
+
+    /**
+     * 限制器元数据
+     */
+    @AllArgsConstructor
+    private static class LimitMetadata {
+        /**
+         * 注解
+         */
+        private final Limit limit;
+        /**
+         * 限制器
+         */
+        private final Limiter limiter;
+        /**
+         * key表达式
+         */
+        private final String key;
+        /**
+         * key前缀
+         */
+        private final String prefix;
+        /**
+         * 过期时间
+         */
+        private final long expire;
+        /**
+         * 不是表达式时生成的key
+         */
+        private String staticKey;
+
+        String decorate(String key) {
+            return prefix == null ? key : prefix + key;
+        }
     }
 }
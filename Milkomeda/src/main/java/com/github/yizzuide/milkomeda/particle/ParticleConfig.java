@@ -1,7 +1,7 @@
 package com.github.yizzuide.milkomeda.particle;
 
 import com.github.yizzuide.milkomeda.universe.context.WebContext;
-import com.github.yizzuide.milkomeda.util.IOUtils;
+import com.github.yizzuide.milkomeda.util.RedisScriptRegistry;
 import com.github.yizzuide.milkomeda.util.ReflectUtil;
 import lombok.SneakyThrows;
 import lombok.extern.slf4j.Slf4j;
@@ -33,7 +33,7 @@ import java.util.stream.Collectors;
  *
  * @author yizzuide
  * @since 1.14.0
- * @version 3.10.0
+ * @version 3.12.0
  * Create at 2019/11/11 11:26
  */
 @Slf4j
@@ -105,6 +105,24 @@ public class ParticleConfig implements ApplicationContextAware {
                     case BLOOM:
                         limiter.setHandlerClazz(BloomLimiter.class);
                         break;
+                    case SLIDING_WINDOW:
+                        limiter.setHandlerClazz(SlidingWindowLimiter.class);
+                        break;
+                    case GCRA:
+                        limiter.setHandlerClazz(GcraLimiter.class);
+                        break;
+                    case LEASE:
+                        limiter.setHandlerClazz(LeaseLimiter.class);
+                        break;
+                    case ADAPTIVE:
+                        limiter.setHandlerClazz(AdaptiveLimiter.class);
+                        break;
+                    case SEMAPHORE:
+                        limiter.setHandlerClazz(SemaphoreLimiter.class);
+                        break;
+                    case QUOTA:
+                        limiter.setHandlerClazz(QuotaLimiter.class);
+                        break;
                 }
             }
             LimitHandler limitHandler;
@@ -120,6 +138,22 @@ public class ParticleConfig implements ApplicationContextAware {
             if (!CollectionUtils.isEmpty(limiter.getProps())) {
                 ReflectUtil.setField(limitHandler, limiter.getProps());
             }
+            if (limitHandler instanceof AbstractRateLimiter) {
+                Long limitTimes = ((AbstractRateLimiter) limitHandler).getLimitTimes();
+                if (limitTimes == null || limitTimes <= 0) {
+                    throw new IllegalArgumentException("Particle rate limiter " + limiterName + " must set limitTimes greater than 0.");
+                }
+            }
+            if (limitHandler instanceof QuotaLimiter) {
+                if (CollectionUtils.isEmpty(limiter.getQuotas())) {
+                    throw new IllegalArgumentException("Particle quota limiter " + limiterName + " must set quotas.");
+                }
+                QuotaLimiter quotaLimiter = (QuotaLimiter) limitHandler;
+                quotaLimiter.setQuotas(limiter.getQuotas());
+                if (quotaLimiter.getNamespace() == null) {
+                    quotaLimiter.setNamespace(limiterName);
+                }
+            }
             limiter.setLimitHandler(limitHandler);
             if (limiter.getHandlerClazz() == BarrierLimiter.class) {
                 barrierLimiters.add(limiter);
@@ -148,8 +182,7 @@ public class ParticleConfig implements ApplicationContextAware {
         particleProperties.setLimiters(orderLimiters);
 
         // 读取lua脚本
-        String luaScript = IOUtils.loadLua("/META-INF/scripts", "particle_times_limiter.lua");
-        TimesLimiter.setLuaScript(luaScript);
+        TimesLimiter.setRedisScript(RedisScriptRegistry.get("particle_times_limiter.lua", Long.class));
     }
 
     static Map<String, LimitHandler> getCacheHandlerBeans() {
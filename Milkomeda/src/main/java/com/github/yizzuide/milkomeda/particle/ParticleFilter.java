@@ -6,12 +6,13 @@ import com.github.yizzuide.milkomeda.universe.parser.url.URLPlaceholderParser;
 import com.github.yizzuide.milkomeda.universe.parser.url.URLPlaceholderResolver;
 import com.github.yizzuide.milkomeda.universe.parser.yml.YmlResponseOutput;
 import com.github.yizzuide.milkomeda.util.JSONUtil;
+import lombok.AllArgsConstructor;
 import lombok.SneakyThrows;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.util.CollectionUtils;
-import org.springframework.util.StringUtils;
 
 import javax.annotation.PostConstruct;
 import javax.servlet.*;
@@ -19,24 +20,37 @@ import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
 import java.io.IOException;
 import java.io.PrintWriter;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 import static com.github.yizzuide.milkomeda.particle.ParticleProperties.Limiter.RESPONSE_CONTENT;
-import static com.github.yizzuide.milkomeda.particle.ParticleProperties.Limiter.RESPONSE_CONTENT_TYPE;
 
 /**
  * ParticleFilter
- * 限制器过滤器
+ * 限制器过滤器 <br>
+ * 启动时为每个限制器生成路由（限制器实例、预编译的key模板和限制后的响应），请求时按URI查找路由缓存
  *
  * @author yizzuide
  * @since 3.0.0
- * @version 3.10.0
+ * @version 3.12.0
  * Create at 2020/04/08 11:41
  */
 public class ParticleFilter implements Filter {
 
+    /**
+     * 路由缓存的最大URI数（超过后不再缓存，防止路径参数撑大缓存）
+     */
+    private static final int MAX_ROUTE_CACHE_SIZE = 4096;
+
+    /**
+     * 不需要限制的路由
+     */
+    private static final LimiterRoute NONE = new LimiterRoute(null, null, null, Collections.emptyMap());
+
     @Autowired
     private ParticleProperties particleProperties;
 
@@ -49,6 +63,12 @@ public class ParticleFilter implements Filter {
     // 跳过拦截
     private boolean skip = false;
 
+    // 限制器路由（按限制器排序）
+    private List<LimiterRoute> routes;
+
+    // URI -> 路由
+    private final Map<String, LimiterRoute> routeCache = new ConcurrentHashMap<>();
+
     @PostConstruct
     public void init() {
         List<ParticleProperties.Limiter> limiters = particleProperties.getLimiters();
@@ -58,109 +78,191 @@ public class ParticleFilter implements Filter {
         }
         urlPlaceholderParser = new URLPlaceholderParser();
         urlPlaceholderParser.setCustomURLPlaceholderResolver(particleURLPlaceholderResolver);
+        List<LimiterRoute> routes = new ArrayList<>(limiters.size());
         for (ParticleProperties.Limiter limiter : limiters) {
-            if (StringUtils.isEmpty(limiter.getKeyTpl())) {
-                continue;
-            }
-            limiter.setCacheKeys(urlPlaceholderParser.grabPlaceHolders(limiter.getKeyTpl()));
+            LimiterKeyTemplate keyTemplate = LimiterKeyTemplate.compile(limiter.getKeyTpl(), urlPlaceholderParser);
+            routes.add(new LimiterRoute(limiter, keyTemplate, createResponse(limiter), createBarrierResponses(limiter)));
         }
+        this.routes = Collections.unmodifiableList(routes);
     }
 
     @SneakyThrows
     @Override
     public void doFilter(ServletRequest request, ServletResponse response, FilterChain chain) throws IOException, ServletException {
         HttpServletRequest httpServletRequest = (HttpServletRequest) request;
-        if (skip || (!CollectionUtils.isEmpty(particleProperties.getExcludeUrls()) && URLPathMatcher.match(particleProperties.getExcludeUrls(), httpServletRequest.getRequestURI())) ||
-                (!CollectionUtils.isEmpty(particleProperties.getIncludeUrls()) && !URLPathMatcher.match(particleProperties.getIncludeUrls(), httpServletRequest.getRequestURI()))) {
+        LimiterRoute route = skip ? NONE : getRoute(httpServletRequest.getRequestURI());
+        // 放过不需要限制的请求
+        if (route == NONE) {
             chain.doFilter(request, response);
             return;
         }
 
-        boolean matchFlag = false;
-        List<ParticleProperties.Limiter> urlLimiters = particleProperties.getLimiters();
-        if (CollectionUtils.isEmpty(urlLimiters)) {
+        // 只支持一个限制器，可通过排序来确定，限制器链可以使用Barrier类型
+        ParticleProperties.Limiter limiter = route.limiter;
+        String key = route.keyTemplate.render(httpServletRequest);
+        LimiterResponse limiterResponse = limiter.getLimitHandler().limit(key, limiter.getKeyExpire().getSeconds(), particle -> {
+            if (particle.isLimited()) {
+                // 速率限制器返回需要等待的时间
+                if (particle.getValue() instanceof RateLimitResult) {
+                    long retryAfter = ((RateLimitResult) particle.getValue()).getRetryAfter();
+                    ((HttpServletResponse) response).setHeader(HttpHeaders.RETRY_AFTER, String.valueOf((retryAfter + 999) / 1000));
+                }
+                // 如果是组合类型，使用具体类型的响应
+                return route.barrierResponses.getOrDefault(particle.getType(), route.response);
+            }
             chain.doFilter(request, response);
-            return;
+            return null;
+        });
+
+        if (limiterResponse != null) {
+            HttpServletResponse httpServletResponse = (HttpServletResponse) response;
+            httpServletResponse.setStatus(limiterResponse.status);
+            if (limiterResponse.content == null) {
+                return;
+            }
+            httpServletResponse.setCharacterEncoding("UTF-8");
+            httpServletResponse.setContentType(limiterResponse.contentType);
+            PrintWriter writer = httpServletResponse.getWriter();
+            writer.println(limiterResponse.content);
+            writer.flush();
+        }
+    }
+
+    /**
+     * 获取URI匹配的限制器路由
+     * @param uri   请求URI
+     * @return  没有匹配时返回NONE
+     */
+    private LimiterRoute getRoute(String uri) {
+        LimiterRoute route = routeCache.get(uri);
+        if (route != null) {
+            return route;
+        }
+        route = matchRoute(uri);
+        if (routeCache.size() < MAX_ROUTE_CACHE_SIZE) {
+            routeCache.put(uri, route);
+        }
+        return route;
+    }
+
+    private LimiterRoute matchRoute(String uri) {
+        if ((!CollectionUtils.isEmpty(particleProperties.getExcludeUrls()) && URLPathMatcher.match(particleProperties.getExcludeUrls(), uri)) ||
+                (!CollectionUtils.isEmpty(particleProperties.getIncludeUrls()) && !URLPathMatcher.match(particleProperties.getIncludeUrls(), uri))) {
+            return NONE;
         }
-        for (ParticleProperties.Limiter limiter : urlLimiters) {
+        for (LimiterRoute route : routes) {
+            ParticleProperties.Limiter limiter = route.limiter;
             // 忽略需排除的URL
-            if (!CollectionUtils.isEmpty(limiter.getExcludeUrls()) && URLPathMatcher.match(limiter.getExcludeUrls(), httpServletRequest.getRequestURI())) {
+            if (!CollectionUtils.isEmpty(limiter.getExcludeUrls()) && URLPathMatcher.match(limiter.getExcludeUrls(), uri)) {
                 continue;
             }
             if (CollectionUtils.isEmpty(limiter.getIncludeUrls())) {
                 continue;
             }
-            if (!URLPathMatcher.match(limiter.getIncludeUrls(), httpServletRequest.getRequestURI())) {
+            if (URLPathMatcher.match(limiter.getIncludeUrls(), uri)) {
+                return route;
+            }
+        }
+        return NONE;
+    }
+
+    /**
+     * 创建组合限制器链上各类型限制器的响应
+     * @param limiter   限制器配置
+     * @return  限制器类型 -> 响应
+     */
+    private Map<Class<? extends Limiter>, LimiterResponse> createBarrierResponses(ParticleProperties.Limiter limiter) {
+        if (limiter.getType() != LimiterType.BARRIER || !(limiter.getLimitHandler() instanceof BarrierLimiter)) {
+            return Collections.emptyMap();
+        }
+        List<String> chain = ((BarrierLimiter) limiter.getLimitHandler()).getChain();
+        if (CollectionUtils.isEmpty(chain)) {
+            return Collections.emptyMap();
+        }
+        Map<Class<? extends Limiter>, LimiterResponse> barrierResponses = new HashMap<>();
+        for (String name : chain) {
+            LimitHandler handler = ParticleConfig.getCacheHandlerBeans().get(name);
+            if (handler == null || barrierResponses.containsKey(handler.getClass())) {
                 continue;
             }
-            // 设置匹配标识
-            matchFlag = true;
-            String key = urlPlaceholderParser.parse(limiter.getKeyTpl(), httpServletRequest, null, null, limiter.getCacheKeys());
-            Map<String, Object> returnData = limiter.getLimitHandler().limit(key, limiter.getKeyExpire().getSeconds(), particle -> {
-                if (particle.isLimited()) {
-                    Map<String, Object> result = new HashMap<>(8);
-                    Map<String, Object> responseInfo;
-                    ParticleProperties.Limiter selectedLimiter = limiter;
-                    // 如果是组合类型，查找具体类型
-                    if (limiter.getType() == LimiterType.BARRIER) {
-                        BarrierLimiter barrierLimitHandler = (BarrierLimiter) limiter.getLimitHandler();
-                        selectedLimiter = LimiterConfigSelector.barrierSelect(particle.getType(), barrierLimitHandler.getChain(), particleProperties);
-                        // 如里子类型没提供响应，那就指定自己
-                        if (selectedLimiter == null || selectedLimiter.getResponse() == null) {
-                            selectedLimiter  = limiter;
-                        }
-                    }
-                    responseInfo = selectedLimiter.getResponse();
-                    // 如果具体类型没有提供，查找全局的响应
-                    if (responseInfo == null) {
-                        responseInfo = particleProperties.getResponse();
-                    }
-                    // 如果没有响应，返回默认响应码
-                    if (responseInfo == null || responseInfo.get(YmlResponseOutput.STATUS) == null) {
-                        result.put(YmlResponseOutput.STATUS, 416);
-                        return result;
-                    }
-                    int status = Integer.parseInt(responseInfo.get(YmlResponseOutput.STATUS).toString());
-                    result.put(YmlResponseOutput.STATUS, status);
-                    if (MediaType.APPLICATION_JSON_VALUE.equals(selectedLimiter.getResponseContentType())) {
-                        YmlResponseOutput.output(responseInfo, result, null, null, false);
-                    } else {
-                        result.put(RESPONSE_CONTENT, responseInfo.get(RESPONSE_CONTENT));
-                    }
-                    result.put(RESPONSE_CONTENT_TYPE, selectedLimiter.getResponseContentType());
-                    return result;
-                }
-                chain.doFilter(request, response);
-                return null;
-            });
-
-            if (returnData != null) {
-                HttpServletResponse httpServletResponse = (HttpServletResponse) response;
-                httpServletResponse.setStatus(Integer.parseInt(returnData.get(YmlResponseOutput.STATUS).toString()));
-                returnData.remove(YmlResponseOutput.STATUS);
-                httpServletResponse.setCharacterEncoding("UTF-8");
-                String contentType = String.valueOf(returnData.get(RESPONSE_CONTENT_TYPE));
-                String data;
-                if (MediaType.APPLICATION_JSON_VALUE.equals(contentType)) {
-                    returnData.remove(RESPONSE_CONTENT_TYPE);
-                    data = JSONUtil.serialize(returnData);
-                } else {
-                    data = String.valueOf(returnData.get(RESPONSE_CONTENT));
-                }
-                httpServletResponse.setContentType(contentType);
-                PrintWriter writer = httpServletResponse.getWriter();
-                writer.println(data);
-                writer.flush();
-                return;
+            ParticleProperties.Limiter selectedLimiter = particleProperties.getLimiters().stream()
+                    .filter(l -> name.equals(l.getName())).findFirst().orElse(null);
+            // 如里子类型没提供响应，那就指定自己
+            if (selectedLimiter == null || selectedLimiter.getResponse() == null) {
+                selectedLimiter = limiter;
             }
-
-            // 只支持一个限制器，可通过排序来确定，限制器链可以使用Barrier类型
-            break;
+            barrierResponses.put(handler.getClass(), createResponse(selectedLimiter));
         }
+        return Collections.unmodifiableMap(barrierResponses);
+    }
 
-        // 放过不需要限制的请求
-        if (!matchFlag) {
-            chain.doFilter(request, response);
+    /**
+     * 创建限制后的响应（响应内容只依赖配置，启动时生成）
+     * @param selectedLimiter   提供响应的限制器配置
+     * @return  LimiterResponse
+     */
+    private LimiterResponse createResponse(ParticleProperties.Limiter selectedLimiter) {
+        Map<String, Object> responseInfo = selectedLimiter.getResponse();
+        // 如果具体类型没有提供，查找全局的响应
+        if (responseInfo == null) {
+            responseInfo = particleProperties.getResponse();
+        }
+        // 如果没有响应，返回默认响应码
+        if (responseInfo == null || responseInfo.get(YmlResponseOutput.STATUS) == null) {
+            return new LimiterResponse(416, null, null);
+        }
+        int status = Integer.parseInt(responseInfo.get(YmlResponseOutput.STATUS).toString());
+        String contentType = selectedLimiter.getResponseContentType();
+        String content;
+        if (MediaType.APPLICATION_JSON_VALUE.equals(contentType)) {
+            Map<String, Object> result = new HashMap<>(8);
+            YmlResponseOutput.output(responseInfo, result, null, null, false);
+            content = JSONUtil.serialize(result);
+        } else {
+            content = String.valueOf(responseInfo.get(RESPONSE_CONTENT));
         }
+        return new LimiterResponse(status, contentType, content);
+    }
+
+    /**
+     * 限制器路由
+     */
+    @AllArgsConstructor
+    private static class LimiterRoute {
+        /**
+         * 限制器配置
+         */
+        private final ParticleProperties.Limiter limiter;
+        /**
+         * 预编译的key模板
+         */
+        private final LimiterKeyTemplate keyTemplate;
+        /**
+         * 限制后的响应
+         */
+        private final LimiterResponse response;
+        /**
+         * 组合限制器链上各类型限制器的响应
+         */
+        private final Map<Class<? extends Limiter>, LimiterResponse> barrierResponses;
+    }
+
+    /**
+     * 限制后的响应
+     */
+    @AllArgsConstructor
+    private static class LimiterResponse {
+        /**
+         * 响应码
+         */
+        private final int status;
+        /**
+         * 响应类型
+         */
+        private final String contentType;
+        /**
+         * 响应内容（为null时只返回响应码）
+         */
+        private final String content;
     }
 }
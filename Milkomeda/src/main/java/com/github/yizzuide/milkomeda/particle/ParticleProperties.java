@@ -17,7 +17,7 @@ import java.util.Map;
  *
  * @author yizzuide
  * @since 3.0.0
- * @version 3.5.0
+ * @version 3.12.0
  * Create at 2020/04/08 11:12
  */
 @Data
@@ -52,9 +52,6 @@ public class ParticleProperties {
     @Data
     public static class Limiter implements Ordered {
 
-        // 响应数据格式类型
-        static final String RESPONSE_CONTENT_TYPE = "response_content_type";
-
         // 文本类型响应字段，用于在response里添加
         static final String RESPONSE_CONTENT = "content";
 
@@ -83,6 +80,12 @@ public class ParticleProperties {
          */
         private Map<String, Object> props;
 
+        /**
+         * 分层配额（限制器类型为QUOTA时使用，从外层到内层配置，如：全局、租户、用户）
+         * @since 3.12.0
+         */
+        private List<Quota> quotas;
+
         /**
          * 共享同类型限制器实例模式（注意：如果该限制器在组合链中，保持默认）
          * @since 3.5.0
@@ -126,11 +129,6 @@ public class ParticleProperties {
          */
         private LimitHandler limitHandler;
 
-        /**
-         * 缓存占位符（内部使用）
-         */
-        private Map<String, List<String>> cacheKeys;
-
         void setLimitHandler(LimitHandler limitHandler) {
             this.limitHandler = limitHandler;
         }
@@ -139,13 +137,32 @@ public class ParticleProperties {
             return  this.limitHandler;
         }
 
-        void setCacheKeys(Map<String, List<String>> cacheKeys) {
-            this.cacheKeys = cacheKeys;
-        }
+    }
 
-        Map<String, List<String>> getCacheKeys() {
-            return this.cacheKeys;
-        }
+    /**
+     * 分层配额
+     * @since 3.12.0
+     */
+    @Data
+    public static class Quota {
+        /**
+         * 配额名（作为配额key的后缀）
+         */
+        private String name;
+
+        /**
+         * 使用的key层数：限制器key按分隔符分层，取前depth层作为配额key（0为所有key共享一个配额）
+         */
+        private int depth = 0;
+
+        /**
+         * 限制时间类型
+         */
+        private TimesType timesType = TimesType.SEC;
 
+        /**
+         * 限制次数
+         */
+        private long limitTimes;
     }
 }
@@ -0,0 +1,28 @@
+package com.github.yizzuide.milkomeda.particle;
+
+import lombok.Data;
+import lombok.EqualsAndHashCode;
+import lombok.NoArgsConstructor;
+
+/**
+ * QuotaLimitResult
+ * 分层配额限制结果，被限制时为拒绝的配额，通过时为剩余次数最少的配额
+ *
+ * @author yizzuide
+ * @since 3.12.0
+ * Create at 2026/10/18 20:50
+ */
+@Data
+@NoArgsConstructor
+@EqualsAndHashCode(callSuper = true)
+public class QuotaLimitResult extends RateLimitResult {
+    /**
+     * 配额名
+     */
+    private String quota;
+
+    public QuotaLimitResult(String quota, long limit, long remaining, long retryAfter) {
+        super(limit, remaining, retryAfter);
+        this.quota = quota;
+    }
+}
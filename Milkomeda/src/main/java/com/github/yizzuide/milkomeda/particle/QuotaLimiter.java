@@ -0,0 +1,139 @@
+package com.github.yizzuide.milkomeda.particle;
+
+import com.github.yizzuide.milkomeda.util.RedisScriptRegistry;
+import lombok.Data;
+import lombok.EqualsAndHashCode;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.redis.core.script.RedisScript;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * QuotaLimiter
+ * 分层配额限制器：一次lua脚本调用检测并消耗所有层的配额（如：全局、租户、用户），先检测所有配额，全部通过后才计数，
+ * 被拒绝时不会消耗其它层的配额 <br>
+ * 配额key由限制器key按分隔符分层生成，如key为 <code>report:tenant1:user1</code>，
+ * depth为1、2、3的配额分别对应全局、租户、用户；depth为0的配额key使用命名空间（默认为限制器名）隔离
+ *
+ * @author yizzuide
+ * @since 3.12.0
+ * Create at 2026/10/18 20:55
+ */
+@Slf4j
+@Data
+@EqualsAndHashCode(callSuper = true)
+public class QuotaLimiter extends LimitHandler {
+
+    // 装饰后缀
+    private static final String POSTFIX = "quota:";
+
+    // 配额限制脚本
+    @SuppressWarnings("rawtypes")
+    private static final RedisScript<List> LIMIT_SCRIPT = RedisScriptRegistry.get("particle_quota_limiter.lua", List.class);
+
+    // 退还配额脚本
+    private static final RedisScript<Long> REFUND_SCRIPT = RedisScriptRegistry.get("particle_quota_refund.lua", Long.class);
+
+    /**
+     * depth为0的配额key命名空间（没有配置时使用限制器名）
+     */
+    private String namespace;
+
+    /**
+     * key分层分隔符
+     */
+    private String separator = ":";
+
+    /**
+     * 业务处理抛出异常时退还配额
+     */
+    private boolean refundOnError = false;
+
+    /**
+     * 分层配额（从外层到内层）
+     */
+    private List<ParticleProperties.Quota> quotas;
+
+    /**
+     * 配额脚本参数（设置配额时生成）
+     */
+    @EqualsAndHashCode.Exclude
+    private String[] quotaArgs;
+
+    public void setQuotas(List<ParticleProperties.Quota> quotas) {
+        this.quotas = quotas;
+        String[] quotaArgs = new String[quotas.size() * 2];
+        for (int i = 0; i < quotas.size(); i++) {
+            ParticleProperties.Quota quota = quotas.get(i);
+            quotaArgs[i * 2] = String.valueOf(quota.getLimitTimes());
+            quotaArgs[i * 2 + 1] = String.valueOf(quota.getTimesType().toMillis());
+        }
+        this.quotaArgs = quotaArgs;
+    }
+
+    @SuppressWarnings("unchecked")
+    @Override
+    public <R> R limit(String key, long expire, Process<R> process) throws Throwable {
+        List<String> keys = getQuotaKeys(key);
+        String[] args = Arrays.copyOf(quotaArgs, quotaArgs.length + 1);
+        args[quotaArgs.length] = String.valueOf(System.currentTimeMillis());
+        List<Long> result = getRedisTemplate().execute(LIMIT_SCRIPT, keys, (Object[]) args);
+        assert result != null;
+        boolean isOver = result.get(0) == 0;
+        ParticleProperties.Quota quota = quotas.get(result.get(1).intValue() - 1);
+        Particle particle = new Particle(this.getClass(), isOver,
+                new QuotaLimitResult(quota.getName(), quota.getLimitTimes(), result.get(2), result.get(3)));
+        if (isOver || !refundOnError) {
+            return next(particle, key, expire, process);
+        }
+        try {
+            return next(particle, key, expire, process);
+        } catch (Throwable e) {
+            // 各层配额消耗时所在的窗口
+            refund(keys, result.subList(4, result.size()));
+            throw e;
+        }
+    }
+
+    /**
+     * 生成各层配额key（只扫描一次key）
+     * @param key   限制器key
+     * @return  配额key列表
+     */
+    private List<String> getQuotaKeys(String key) {
+        List<String> keys = new ArrayList<>(quotas.size());
+        for (ParticleProperties.Quota quota : quotas) {
+            int depth = quota.getDepth();
+            if (depth <= 0) {
+                keys.add((namespace == null ? "" : namespace + separator) + POSTFIX + quota.getName());
+                continue;
+            }
+            int end = -1;
+            for (int i = 0; i < depth; i++) {
+                end = key.indexOf(separator, end + 1);
+                if (end < 0) {
+                    end = key.length();
+                    break;
+                }
+            }
+            keys.add(key.substring(0, end) + separator + POSTFIX + quota.getName());
+        }
+        return keys;
+    }
+
+    /**
+     * 退还所有层的配额（已进入新窗口的配额不退还）
+     * @param keys      配额key列表
+     * @param windows   各层配额消耗时的窗口开始时间
+     */
+    private void refund(List<String> keys, List<Long> windows) {
+        try {
+            getRedisTemplate().execute(REFUND_SCRIPT, keys,
+                    windows.stream().map(String::valueOf).toArray());
+        } catch (Exception e) {
+            log.warn("Particle quota limiter refund error: {}", e.getMessage());
+        }
+    }
+}
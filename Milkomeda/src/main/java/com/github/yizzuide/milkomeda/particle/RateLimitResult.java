@@ -0,0 +1,33 @@
+package com.github.yizzuide.milkomeda.particle;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * RateLimitResult
+ * 速率限制结果（作为 {@link Particle#getValue()} 返回）
+ *
+ * @author yizzuide
+ * @since 3.12.0
+ * Create at 2026/10/18 18:10
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class RateLimitResult {
+    /**
+     * 限制次数
+     */
+    private long limit;
+
+    /**
+     * 剩余可用次数
+     */
+    private long remaining;
+
+    /**
+     * 被限制时需要等待的时间（单位：ms）
+     */
+    private long retryAfter;
+}
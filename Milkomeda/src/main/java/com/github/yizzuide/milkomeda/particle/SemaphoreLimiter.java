@@ -0,0 +1,81 @@
+package com.github.yizzuide.milkomeda.particle;
+
+import com.github.yizzuide.milkomeda.util.RedisScriptRegistry;
+import lombok.Data;
+import lombok.EqualsAndHashCode;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.redis.core.script.RedisScript;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * SemaphoreLimiter
+ * 分布式信号量限制器：限制集群内同时执行的请求数，适用于导出、报表等耗资源的任务 <br>
+ * 每个许可以过期时间为分数存储在ZSET中，持有许可的节点崩溃后许可在租期到期时自动释放 <br>
+ * 注意：租期需要大于业务处理的最长时间，否则处理中的许可会被当作过期许可释放
+ *
+ * @author yizzuide
+ * @since 3.12.0
+ * Create at 2026/10/18 20:30
+ */
+@Slf4j
+@Data
+@EqualsAndHashCode(callSuper = true)
+public class SemaphoreLimiter extends LimitHandler {
+
+    // 装饰后缀
+    private static final String POSTFIX = ":semaphore";
+
+    // 获取许可脚本
+    @SuppressWarnings("rawtypes")
+    private static final RedisScript<List> ACQUIRE_SCRIPT = RedisScriptRegistry.get("particle_semaphore_acquire.lua", List.class);
+
+    // 释放许可脚本
+    private static final RedisScript<Long> RELEASE_SCRIPT = RedisScriptRegistry.get("particle_semaphore_release.lua", Long.class);
+
+    /**
+     * 许可数（最大同时执行数）
+     */
+    private long permits = 10;
+
+    /**
+     * 许可租期（单位：ms）
+     */
+    private long leaseTime = 60000;
+
+    @SuppressWarnings("unchecked")
+    @Override
+    public <R> R limit(String key, long expire, Process<R> process) throws Throwable {
+        String decoratedKey = key + POSTFIX;
+        String permitId = UUID.randomUUID().toString();
+        List<Long> result = getRedisTemplate().execute(ACQUIRE_SCRIPT, Collections.singletonList(decoratedKey),
+                String.valueOf(permits), String.valueOf(leaseTime), String.valueOf(System.currentTimeMillis()), permitId);
+        assert result != null;
+        boolean acquired = result.get(0) == 1;
+        Particle particle = new Particle(this.getClass(), !acquired, new RateLimitResult(permits, result.get(1), result.get(2)));
+        try {
+            return next(particle, key, expire, process);
+        } finally {
+            // 只有获得许可的请求释放许可
+            if (acquired) {
+                release(decoratedKey, permitId);
+            }
+        }
+    }
+
+    /**
+     * 释放许可，释放失败时等待租期到期自动释放
+     * @param decoratedKey  信号量key
+     * @param permitId      许可id
+     */
+    private void release(String decoratedKey, String permitId) {
+        try {
+            getRedisTemplate().execute(RELEASE_SCRIPT,
+                    Collections.singletonList(decoratedKey), permitId);
+        } catch (Exception e) {
+            log.warn("Particle semaphore limiter release permit error: {}", e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,30 @@
+package com.github.yizzuide.milkomeda.particle;
+
+/**
+ * SlidingWindowLimiter
+ * 滑动窗口限制器（按上一窗口与当前窗口的重叠比例估算请求数，窗口边界不会出现两倍的突发请求）
+ *
+ * @author yizzuide
+ * @since 3.12.0
+ * Create at 2026/10/18 18:20
+ */
+public class SlidingWindowLimiter extends AbstractRateLimiter implements CompositeLink {
+
+    // 装饰后缀
+    private static final String POSTFIX = ":sliding";
+
+    @Override
+    public String getLinkType() {
+        return "sliding";
+    }
+
+    @Override
+    protected String getScriptName() {
+        return "particle_sliding_window_limiter.lua";
+    }
+
+    @Override
+    protected String getPostfix() {
+        return POSTFIX;
+    }
+}
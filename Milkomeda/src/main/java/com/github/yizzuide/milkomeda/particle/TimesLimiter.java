@@ -5,7 +5,6 @@ import lombok.EqualsAndHashCode;
 import lombok.Getter;
 import lombok.Setter;
 import org.springframework.data.redis.core.RedisTemplate;
-import org.springframework.data.redis.core.script.DefaultRedisScript;
 import org.springframework.data.redis.core.script.RedisScript;
 
 import java.io.Serializable;
@@ -18,12 +17,12 @@ import java.util.Collections;
  *
  * @author yizzuide
  * @since 1.5.2
- * @version 3.9.0
+ * @version 3.12.0
  * Create at 2019/05/30 17:32
  */
 @Data
 @EqualsAndHashCode(callSuper = true)
-public class TimesLimiter extends LimitHandler {
+public class TimesLimiter extends LimitHandler implements CompositeLink {
     /**
      * 限制时间类型
      */
@@ -40,7 +39,7 @@ public class TimesLimiter extends LimitHandler {
     private static final String POSTFIX = ":times";
 
     // lua 脚本
-    private static String luaScript;
+    private static RedisScript<Long> redisScript;
 
     public TimesLimiter() { }
 
@@ -70,33 +69,61 @@ public class TimesLimiter extends LimitHandler {
     public <R> R limit(String key, long expire, Process<R> process) throws Throwable {
         String decoratedKey = key + POSTFIX;
         RedisTemplate<String, Serializable> redisTemplate = getJsonRedisTemplate();
-        long expireSeconds;
+        long expireSeconds = getExpireSeconds();
+        Long times = redisTemplate.execute(redisScript, Collections.singletonList(decoratedKey), limitTimes, expireSeconds);
+        assert times != null;
+        // 判断是否超过次数
+        boolean isOver = times > limitTimes;
+        Particle particle = new Particle(this.getClass(), isOver, times);
+        return next(particle, key, expire, process);
+    }
+
+    /**
+     * 计数过期时间
+     * @return  过期时间（单位：s）
+     * @since 3.12.0
+     */
+    private long getExpireSeconds() {
         switch (timesType) {
             case SEC:
-                expireSeconds = 1;
-                break;
+                return 1;
             case MIN:
-                expireSeconds = Duration.ofMinutes(1).getSeconds();
-                break;
+                return Duration.ofMinutes(1).getSeconds();
             case HOUR:
-                expireSeconds = Duration.ofHours(1).getSeconds();
-                break;
+                return Duration.ofHours(1).getSeconds();
             case DAY:
-                expireSeconds = Duration.ofDays(1).getSeconds();
-                break;
+                return Duration.ofDays(1).getSeconds();
             default:
                 throw new IllegalStateException("Unexpected value: " + timesType);
         }
-        RedisScript<Long> redisScript = new DefaultRedisScript<>(luaScript, Long.class);
-        Long times = redisTemplate.execute(redisScript, Collections.singletonList(decoratedKey), limitTimes, expireSeconds);
-        assert times != null;
-        // 判断是否超过次数
-        boolean isOver = times > limitTimes;
-        Particle particle = new Particle(this.getClass(), isOver, times);
-        return next(particle, key, expire, process);
     }
 
-    static void setLuaScript(String luaScript) {
-        TimesLimiter.luaScript = luaScript;
+    @Override
+    public String getLinkType() {
+        return "times";
+    }
+
+    @Override
+    public String getLinkKey(String key) {
+        return key + POSTFIX;
+    }
+
+    @Override
+    public long getLinkLimit() {
+        return limitTimes;
+    }
+
+    @Override
+    public long getLinkPeriod() {
+        return getExpireSeconds();
+    }
+
+    @Override
+    public Object getLinkValue(boolean isOver, long value, long retryAfter) {
+        return value;
+    }
+
+    static void setRedisScript(RedisScript<Long> redisScript) {
+        TimesLimiter.redisScript = redisScript;
     }
 }
@@ -1,31 +1,49 @@
 package com.github.yizzuide.milkomeda.particle;
 
+import java.time.Duration;
+
 /**
  * TimesType
  * 时间类型
  *
  * @author yizzuide
  * @since 1.5.0
+ * @version 3.12.0
  * Create at 2019/05/30 17:35
  */
 public enum  TimesType {
     /**
      * 一秒内
      */
-    SEC,
+    SEC(Duration.ofSeconds(1)),
 
     /**
      * 一分钟内
      */
-    MIN,
+    MIN(Duration.ofMinutes(1)),
 
     /**
      * 一小时内
      */
-    HOUR,
+    HOUR(Duration.ofHours(1)),
 
     /**
      * 一天内
      */
-    DAY
+    DAY(Duration.ofDays(1));
+
+    private final Duration duration;
+
+    TimesType(Duration duration) {
+        this.duration = duration;
+    }
+
+    /**
+     * 时间长度
+     * @return  时间长度（单位：ms）
+     * @since 3.12.0
+     */
+    public long toMillis() {
+        return duration.toMillis();
+    }
 }
@@ -0,0 +1,93 @@
+package com.github.yizzuide.milkomeda.util;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.core.io.Resource;
+import org.springframework.core.io.support.PathMatchingResourcePatternResolver;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
+
+import java.io.IOException;
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * RedisScriptRegistry
+ * Lua脚本注册表：启动时一次加载 <code>META-INF/scripts/*.lua</code> 并计算SHA1，各模块共享同一脚本实例 <br>
+ * 通过 <code>RedisTemplate.execute(RedisScript, ...)</code> 执行时使用EVALSHA，Redis返回NOSCRIPT时自动使用EVAL重新加载
+ *
+ * @author yizzuide
+ * @since 3.12.0
+ * Create at 2026/10/18 17:45
+ */
+@Slf4j
+public class RedisScriptRegistry {
+
+    private static final String SCRIPT_PATH = "/META-INF/scripts";
+
+    private static final String SCRIPT_LOCATION = "classpath*:META-INF/scripts/*.lua";
+
+    /**
+     * 脚本文本（文件名 -> 脚本）
+     */
+    private static final Map<String, String> scripts = new ConcurrentHashMap<>();
+
+    /**
+     * 脚本实例（文件名+返回类型 -> 脚本）
+     */
+    private static final Map<String, RedisScript<?>> redisScripts = new ConcurrentHashMap<>();
+
+    static {
+        try {
+            Resource[] resources = new PathMatchingResourcePatternResolver().getResources(SCRIPT_LOCATION);
+            for (Resource resource : resources) {
+                String filename = resource.getFilename();
+                if (filename != null) {
+                    scripts.put(filename, IOUtils.loadLua(SCRIPT_PATH, filename));
+                }
+            }
+        } catch (IOException e) {
+            log.error("Redis script registry load error: {}", e.getMessage(), e);
+        }
+    }
+
+    /**
+     * 获取脚本文本
+     * @param name  脚本文件名（包含扩展名）
+     * @return  lua脚本文本
+     */
+    public static String getScript(String name) {
+        return scripts.computeIfAbsent(name, n -> {
+            try {
+                return IOUtils.loadLua(SCRIPT_PATH, n);
+            } catch (IOException e) {
+                throw new IllegalArgumentException("Redis script load error: " + n, e);
+            }
+        });
+    }
+
+    /**
+     * 获取脚本实例（SHA1只计算一次）
+     * @param name          脚本文件名（包含扩展名）
+     * @param resultType    返回类型
+     * @param <T>           返回类型
+     * @return  RedisScript
+     */
+    @SuppressWarnings("unchecked")
+    public static <T> RedisScript<T> get(String name, Class<T> resultType) {
+        return (RedisScript<T>) redisScripts.computeIfAbsent(name + ":" + resultType.getName(), k -> {
+            DefaultRedisScript<T> redisScript = new DefaultRedisScript<>(getScript(name), resultType);
+            // 预先计算SHA1
+            redisScript.getSha1();
+            return redisScript;
+        });
+    }
+
+    /**
+     * 获取已加载的脚本
+     * @return  文件名 -> 脚本
+     */
+    public static Map<String, String> getScripts() {
+        return Collections.unmodifiableMap(scripts);
+    }
+}
@@ -8,6 +8,7 @@ import org.springframework.data.redis.core.RedisTemplate;
 import org.springframework.data.redis.core.SessionCallback;
 import org.springframework.data.redis.support.atomic.RedisAtomicLong;
 import org.springframework.lang.NonNull;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
 import java.util.Date;
 import java.util.concurrent.TimeUnit;
@@ -18,7 +19,7 @@ import java.util.function.Consumer;
  *
  * @author yizzuide
  * @since 1.14.0
- * @version 3.9.0
+ * @version 3.12.0
  * Create at 2019/11/11 14:07
  */
 public class RedisUtil {
@@ -69,11 +70,16 @@ public class RedisUtil {
     }
 
     /**
-     * 批量操作
+     * 批量操作（已在同一连接工厂的批量操作中时，直接加入外层的管道）
      * @param runnable      业务体
      * @param redisTemplate RedisTemplate
      */
-    public static void batchOps(Runnable runnable, RedisTemplate<String, String> redisTemplate) {
+    public static void batchOps(Runnable runnable, RedisTemplate<?, ?> redisTemplate) {
+        // 嵌套调用executePipelined会复用外层绑定的连接，关闭管道时会提前提交外层的命令
+        if (TransactionSynchronizationManager.hasResource(redisTemplate.getRequiredConnectionFactory())) {
+            runnable.run();
+            return;
+        }
         redisTemplate.executePipelined(new SessionCallback<Object>() {
             @Override
             public <K, V> Object execute(@NonNull RedisOperations<K, V> operations) throws DataAccessException {
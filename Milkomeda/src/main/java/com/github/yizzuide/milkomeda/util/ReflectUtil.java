@@ -23,7 +23,7 @@ import java.util.stream.Collectors;
  *
  * @author yizzuide
  * @since 0.2.0
- * @version 3.6.0
+ * @version 3.12.0
  * Create at 2019/04/11 19:55
  */
 @Slf4j
@@ -103,12 +103,25 @@ public class ReflectUtil {
      */
     public static String extractValue(JoinPoint joinPoint, String express) {
         // 解析EL表达式
+        if (isExpression(express)) {
+            return ELContext.getValue(joinPoint, express);
+        }
+        return express;
+    }
+
+    /**
+     * 是否为EL表达式或内置头表达式（不是表达式时 {@link #extractValue(JoinPoint, String)} 返回原值）
+     * @param express   表达式
+     * @return  true为表达式
+     * @since 3.12.0
+     */
+    public static boolean isExpression(String express) {
         for (String elStartToken : EL_START_TOKENS) {
             if (express.startsWith(elStartToken)) {
-                return ELContext.getValue(joinPoint, express);
+                return true;
             }
         }
-        return express;
+        return false;
     }
 
 
@@ -151,7 +164,7 @@ public class ReflectUtil {
             }
 
             // Entity<T>
-            Object body = JSONUtil.parse(JSONUtil.serialize(wrapperBody.apply(wrapperList.get(0))), elementGenericType);
+            Object body = convertBody(wrapperBody.apply(wrapperList.get(0)), elementGenericType);
             wipeWrapperBody.accept(entity, body);
             return method.invoke(target, entity);
         }
@@ -196,7 +209,7 @@ public class ReflectUtil {
 //                JavaType javaType = TypeUtil.type2JavaType(subActualTypeArguments[0]);
                 for (T wrapper : wrapperList) {
 //                    Object body = JSONUtil.nativeRead(JSONUtil.serialize(wrapperBody.apply(wrapper)), javaType);
-                    Object body = JSONUtil.parse(JSONUtil.serialize(wrapperBody.apply(wrapper)), entityGenericType);
+                    Object body = convertBody(wrapperBody.apply(wrapper), entityGenericType);
                     wipeWrapperBody.accept(wrapper, body);
                 }
                 return method.invoke(target, wrapperList);
@@ -206,11 +219,36 @@ public class ReflectUtil {
 //            method.invoke(target, wrapperList.stream().map(wrapper ->
 //                    JSONUtil.nativeRead(JSONUtil.serialize(wrapperBody.apply(wrapper)), TypeUtil.type2JavaType(actualTypeArgument))).collect(Collectors.toList()));
             return method.invoke(target, wrapperList.stream().map(wrapper ->
-                    JSONUtil.parse(JSONUtil.serialize(wrapperBody.apply(wrapper)), elementGenericType)).collect(Collectors.toList()));
+                    convertBody(wrapperBody.apply(wrapper), elementGenericType)).collect(Collectors.toList()));
         }
 
         // 转到业务类型 T
-        return method.invoke(target, JSONUtil.parse(JSONUtil.serialize(wrapperBody.apply(wrapperList.get(0))), parameterClazz));
+        return method.invoke(target, convertBody(wrapperBody.apply(wrapperList.get(0)), parameterClazz));
+    }
+
+    /**
+     * 转换业务数据到目标类型
+     * @param body  业务数据
+     * @param type  目标类型
+     * @return  目标类型数据
+     * @since 3.12.0
+     */
+    private static Object convertBody(Object body, Class<?> type) {
+        // 已经是目标类型（如已按方法参数类型解码），不需要转换
+        if (body == null || type.isInstance(body)) {
+            return body;
+        }
+        if (body instanceof String) {
+            return JSONUtil.parse((String) body, type);
+        }
+        // 通过对象树直接转换，不经过JSON字符串
+        try {
+            return JSONUtil.mapper.convertValue(body, type);
+        } catch (IllegalArgumentException e) {
+            // 转换失败时不能以null调用业务方法，向上抛出由调用方处理
+            log.error("Convert body to type {} error: {}", type.getName(), e.getMessage());
+            throw e;
+        }
     }
 
 
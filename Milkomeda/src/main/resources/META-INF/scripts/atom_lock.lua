@@ -0,0 +1,6 @@
+-- try acquire the exclusive lock, result: nil if acquired, else remaining ttl of the lock with millis unit
+-- first arg: owner token, second arg: lease time with millis unit
+if redis.call('set', KEYS[1], ARGV[1], 'nx', 'px', ARGV[2]) then
+    return nil
+end
+return redis.call('pttl', KEYS[1])
@@ -0,0 +1,6 @@
+-- renew the lease only if held by the owner, result: renewed count
+-- first arg: owner token, second arg: lease time with millis unit
+if redis.call('get', KEYS[1]) == ARGV[1] then
+    return redis.call('pexpire', KEYS[1], ARGV[2])
+end
+return 0
@@ -0,0 +1,8 @@
+-- release the lock only if held by the owner and wake up waiters, result: released count
+-- first arg: owner token, second arg: unlock channel
+if redis.call('get', KEYS[1]) == ARGV[1] then
+    redis.call('del', KEYS[1])
+    redis.call('publish', ARGV[2], KEYS[1])
+    return 1
+end
+return 0
@@ -0,0 +1,14 @@
+-- add expire records for legacy jobs which have no record, result: added count
+-- job pool hash key
+local poolKey = KEYS[1]
+-- job expire zset key
+local expireKey = KEYS[2]
+-- job expire time with millisecond unit
+local expireTime = ARGV[1]
+local added = 0
+for i = 2, #ARGV do
+    if redis.call('hexists', poolKey, ARGV[i]) == 1 then
+        added = added + redis.call('zadd', expireKey, 'nx', expireTime, ARGV[i])
+    end
+end
+return added
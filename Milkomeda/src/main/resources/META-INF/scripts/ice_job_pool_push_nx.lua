@@ -0,0 +1,15 @@
+-- job pool hash key
+local poolKey = KEYS[1]
+-- job expire zset key
+local expireKey = KEYS[2]
+-- job expire time with millisecond unit
+local expireTime = ARGV[1]
+-- accepted job ids
+local accepted = {}
+for i = 2, #ARGV, 2 do
+    if redis.call('hsetnx', poolKey, ARGV[i], ARGV[i + 1]) == 1 then
+        redis.call('zadd', expireKey, expireTime, ARGV[i])
+        table.insert(accepted, ARGV[i])
+    end
+end
+return accepted
@@ -0,0 +1,15 @@
+-- job pool hash key
+local poolKey = KEYS[1]
+-- job expire zset key
+local expireKey = KEYS[2]
+-- current time with millisecond unit
+local now = ARGV[1]
+-- max remove count
+local limit = tonumber(ARGV[2])
+local jobIds = redis.call('zrangebyscore', expireKey, '-inf', now, 'limit', 0, limit)
+if #jobIds == 0 then
+    return 0
+end
+redis.call('hdel', poolKey, unpack(jobIds))
+redis.call('zrem', expireKey, unpack(jobIds))
+return #jobIds
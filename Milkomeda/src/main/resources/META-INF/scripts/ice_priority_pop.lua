@@ -0,0 +1,43 @@
+-- ready queue keys, order by priority from high to low
+-- pop count
+local count = tonumber(ARGV[1])
+local remaining = count
+local result = {}
+local total = 0
+for i = 1, #KEYS do
+    total = total + tonumber(ARGV[i + 1])
+end
+-- first round: take the reserved share of each priority to avoid starvation
+if total > 0 then
+    for i = 1, #KEYS do
+        local share = math.floor(count * tonumber(ARGV[i + 1]) / total)
+        if share > remaining then
+            share = remaining
+        end
+        if share > 0 then
+            local items = redis.call('lrange', KEYS[i], 0, share - 1)
+            if #items > 0 then
+                redis.call('ltrim', KEYS[i], #items, -1)
+                for _, item in ipairs(items) do
+                    table.insert(result, item)
+                end
+                remaining = remaining - #items
+            end
+        end
+    end
+end
+-- second round: fill the remaining with higher priority first
+for i = 1, #KEYS do
+    if remaining <= 0 then
+        break
+    end
+    local items = redis.call('lrange', KEYS[i], 0, remaining - 1)
+    if #items > 0 then
+        redis.call('ltrim', KEYS[i], #items, -1)
+        for _, item in ipairs(items) do
+            table.insert(result, item)
+        end
+        remaining = remaining - #items
+    end
+end
+return result
@@ -0,0 +1,44 @@
+-- stream ready queue metrics, pending (delivered but not acked) entries are excluded from ready size and age
+-- result: {undelivered count, pending count, first undelivered entry time with millis unit (-1 is none)}
+-- stream key
+local key = KEYS[1]
+-- consumer group
+local group = ARGV[1]
+local len = redis.call('xlen', key)
+if len == 0 then
+    return {0, 0, -1}
+end
+local groups = redis.pcall('xinfo', 'groups', key)
+if type(groups) == 'table' and groups.err then
+    return redis.error_reply(groups.err)
+end
+local pending = 0
+local lastId = nil
+for _, info in ipairs(groups) do
+    local fields = {}
+    for i = 1, #info, 2 do
+        fields[info[i]] = info[i + 1]
+    end
+    if fields['name'] == group then
+        pending = tonumber(fields['pending'])
+        lastId = fields['last-delivered-id']
+    end
+end
+-- the group is not created yet, all entries are undelivered
+if not lastId then
+    local first = redis.call('xrange', key, '-', '+', 'COUNT', 1)
+    return {len, 0, tonumber(string.match(first[1][1], '^(%d+)'))}
+end
+-- acked entries are deleted, so the rest of stream is undelivered
+local undelivered = len - pending
+if undelivered <= 0 then
+    return {0, pending, -1}
+end
+-- the range start is inclusive, skip the last delivered entry
+local entries = redis.call('xrange', key, lastId, '+', 'COUNT', 2)
+for _, entry in ipairs(entries) do
+    if entry[1] ~= lastId then
+        return {undelivered, pending, tonumber(string.match(entry[1], '^(%d+)'))}
+    end
+end
+return {undelivered, pending, -1}
@@ -0,0 +1,26 @@
+-- stream key
+local key = KEYS[1]
+-- consumer group
+local group = ARGV[1]
+-- consumer name
+local consumer = ARGV[2]
+-- max pop count
+local count = tonumber(ARGV[3])
+local entries = redis.pcall('xreadgroup', 'group', group, consumer, 'count', count, 'streams', key, '>')
+if type(entries) == 'table' and entries.err then
+    -- the group is created by the caller once on NOGROUP
+    if string.find(entries.err, 'NOGROUP') then
+        return {'NOGROUP'}
+    end
+    return redis.error_reply(entries.err)
+end
+local result = {}
+if not entries then
+    return result
+end
+-- entries: [[key, [[id, [field, value]], ...]]]
+for _, entry in ipairs(entries[1][2]) do
+    table.insert(result, entry[1])
+    table.insert(result, entry[2][2])
+end
+return result
@@ -0,0 +1,29 @@
+-- stream key
+local key = KEYS[1]
+-- consumer group
+local group = ARGV[1]
+-- consumer name
+local consumer = ARGV[2]
+-- min idle time with millisecond unit (TTR)
+local minIdle = ARGV[3]
+-- max reclaim count
+local count = ARGV[4]
+if redis.call('exists', key) == 0 then
+    return {}
+end
+local claimed = redis.pcall('xautoclaim', key, group, consumer, minIdle, '0-0', 'count', count)
+if type(claimed) ~= 'table' or claimed.err then
+    return {}
+end
+local result = {}
+-- claimed: [next-cursor, [[id, [field, value]], ...]]
+for _, entry in ipairs(claimed[2]) do
+    if entry then
+        if entry[2] then
+            table.insert(result, entry[2][2])
+        end
+        redis.call('xack', key, group, entry[1])
+        redis.call('xdel', key, entry[1])
+    end
+end
+return result
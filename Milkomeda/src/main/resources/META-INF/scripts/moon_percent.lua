@@ -9,13 +9,12 @@ end
 local current = tonumber(redis.call('get', key))
 current = (current + 1) % percent
 local index = 0
+-- prefix sum of percents, same as MoonRing.indexOfPercent
+local sum = 0
 -- lua table start index 1
 for i = 1, #phases, 1 do
-    local p = tonumber(phases[i])
-    if i > 1 then
-        p = p + tonumber(phases[i - 1])
-    end
-    if current < p then
+    sum = sum + tonumber(phases[i])
+    if current < sum then
         index = i - 1
         break
     end
@@ -0,0 +1,102 @@
+-- barrier chain limiter, check all links first, then apply when all passed
+-- result: {rejected link index (0 is all passed), count or remaining, retry after millis}
+-- first arg: link count
+local n = tonumber(ARGV[1])
+-- second arg: current time with millis unit
+local now = tonumber(ARGV[2])
+-- third arg: idempotent key expire with second unit
+local expire = tonumber(ARGV[3])
+-- each link args: type, limit, period (times link with second unit, others with millis unit)
+local states = {}
+for i = 1, n do
+    local key = KEYS[i]
+    local base = 3 + (i - 1) * 3
+    local linkType = ARGV[base + 1]
+    local limit = tonumber(ARGV[base + 2])
+    local period = tonumber(ARGV[base + 3])
+    if linkType == 'repeat' then
+        if redis.call('exists', key) == 1 then
+            return {i, 1, 0}
+        end
+    end
+    if linkType == 'times' then
+        local current = tonumber(redis.call('get', key) or '0')
+        if current + 1 > limit then
+            return {i, current + 1, 0}
+        end
+    end
+    if linkType == 'sliding' then
+        local index = math.floor(now / period)
+        local elapsed = now - index * period
+        local data = redis.call('hmget', key, 'w', 'c', 'p')
+        local w = tonumber(data[1] or '-1')
+        local curr = tonumber(data[2] or '0')
+        local prev = tonumber(data[3] or '0')
+        if w ~= index then
+            if w == index - 1 then
+                prev = curr
+            else
+                prev = 0
+            end
+            curr = 0
+        end
+        local estimated = prev * (period - elapsed) / period + curr
+        if estimated + 1 > limit then
+            local retry = 0
+            local need = limit - 1 - curr
+            if need >= 0 then
+                retry = math.ceil(period - need * period / prev - elapsed)
+            else
+                retry = period - elapsed
+                if curr > limit - 1 then
+                    retry = retry + math.ceil(period - (limit - 1) * period / curr)
+                end
+            end
+            if retry < 1 then
+                retry = 1
+            end
+            return {i, 0, retry}
+        end
+        states[i] = {index, curr + 1, prev, math.floor(limit - estimated - 1)}
+    end
+    if linkType == 'gcra' then
+        local interval = period / limit
+        local tat = tonumber(redis.call('get', key) or now)
+        if tat < now then
+            tat = now
+        end
+        local newTat = tat + interval
+        local allowAt = newTat - period
+        if allowAt > now then
+            return {i, 0, math.ceil(allowAt - now)}
+        end
+        states[i] = {newTat, math.floor((now - allowAt) / interval)}
+    end
+end
+-- all links passed, the result value is from the last link
+local value = 0
+for i = 1, n do
+    local key = KEYS[i]
+    local base = 3 + (i - 1) * 3
+    local linkType = ARGV[base + 1]
+    local period = tonumber(ARGV[base + 3])
+    local state = states[i]
+    if linkType == 'repeat' then
+        redis.call('set', key, '1', 'EX', expire)
+        value = 0
+    end
+    if linkType == 'times' then
+        value = redis.call('incrby', key, 1)
+        redis.call('expire', key, period)
+    end
+    if linkType == 'sliding' then
+        redis.call('hmset', key, 'w', state[1], 'c', state[2], 'p', state[3])
+        redis.call('pexpire', key, period * 2)
+        value = state[4]
+    end
+    if linkType == 'gcra' then
+        redis.call('set', key, state[1], 'px', math.ceil(state[1] - now))
+        value = state[2]
+    end
+end
+return {0, value, 0}
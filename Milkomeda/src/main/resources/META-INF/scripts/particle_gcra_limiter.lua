@@ -0,0 +1,21 @@
+-- generic cell rate algorithm, result: {allowed, remaining, retry after millis}
+local key = KEYS[1]
+-- first arg: max allow count in period (burst)
+local limit = tonumber(ARGV[1])
+-- second arg: period with millis unit
+local period = tonumber(ARGV[2])
+-- third arg: current time with millis unit
+local now = tonumber(ARGV[3])
+local interval = period / limit
+-- theoretical arrival time
+local tat = tonumber(redis.call('get', key) or now)
+if tat < now then
+    tat = now
+end
+local newTat = tat + interval
+local allowAt = newTat - period
+if allowAt > now then
+    return {0, 0, math.ceil(allowAt - now)}
+end
+redis.call('set', key, newTat, 'px', math.ceil(newTat - now))
+return {1, math.floor((now - allowAt) / interval), 0}
@@ -0,0 +1,21 @@
+-- lease quota chunk from window counter, result: {granted, window ttl millis}
+local key = KEYS[1]
+-- first arg: max allow count in window
+local limit = tonumber(ARGV[1])
+-- second arg: lease chunk size
+local chunk = tonumber(ARGV[2])
+-- third arg: window with millis unit
+local period = tonumber(ARGV[3])
+local used = tonumber(redis.call('get', key) or '0')
+local grant = limit - used
+if grant > chunk then
+    grant = chunk
+end
+if grant <= 0 then
+    return {0, redis.call('pttl', key)}
+end
+used = redis.call('incrby', key, grant)
+if used == grant then
+    redis.call('pexpire', key, period)
+end
+return {grant, redis.call('pttl', key)}
@@ -0,0 +1,11 @@
+-- return unused leased quota to window counter
+local key = KEYS[1]
+local count = tonumber(ARGV[1])
+local used = tonumber(redis.call('get', key) or '0')
+if used <= 0 then
+    return 0
+end
+if count > used then
+    count = used
+end
+return redis.call('decrby', key, count)
@@ -0,0 +1,38 @@
+-- hierarchical quotas, check all dimensions first and consume only when all passed
+-- each quota key is a hash, field c: used count, field s: window start millis (the window id for refund)
+-- result: {allowed, dimension index, remaining, retry after millis, window start of each dimension...}
+-- each dimension args: max allow count, period with millis unit
+-- last arg: current time with millis unit
+local n = #KEYS
+local now = ARGV[n * 2 + 1]
+local minIndex = 0
+local minRemaining = -1
+for i = 1, n do
+    local limit = tonumber(ARGV[i * 2 - 1])
+    local used = tonumber(redis.call('hget', KEYS[i], 'c') or '0')
+    if used + 1 > limit then
+        local ttl = redis.call('pttl', KEYS[i])
+        if ttl < 0 then
+            ttl = tonumber(ARGV[i * 2])
+        end
+        return {0, i, 0, ttl}
+    end
+    -- the tightest dimension decides remaining count
+    local remaining = limit - used - 1
+    if minRemaining < 0 or remaining < minRemaining then
+        minRemaining = remaining
+        minIndex = i
+    end
+end
+local result = {1, minIndex, minRemaining, 0}
+for i = 1, n do
+    local count = redis.call('hincrby', KEYS[i], 'c', 1)
+    if count == 1 then
+        redis.call('hset', KEYS[i], 's', now)
+        redis.call('pexpire', KEYS[i], tonumber(ARGV[i * 2]))
+        result[4 + i] = tonumber(now)
+    else
+        result[4 + i] = tonumber(redis.call('hget', KEYS[i], 's') or '0')
+    end
+end
+return result
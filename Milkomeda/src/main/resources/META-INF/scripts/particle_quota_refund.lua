@@ -0,0 +1,10 @@
+-- refund consumed quotas of all dimensions, skip the dimension which has rolled to a new window
+-- args: window start of each dimension when consumed
+for i = 1, #KEYS do
+    local data = redis.call('hmget', KEYS[i], 'c', 's')
+    local used = tonumber(data[1] or '0')
+    if used > 0 and data[2] == ARGV[i] then
+        redis.call('hincrby', KEYS[i], 'c', -1)
+    end
+end
+return 1
@@ -0,0 +1,21 @@
+-- counting semaphore with leased permits, result: {acquired, remaining, retry after millis}
+local key = KEYS[1]
+-- first arg: max permits
+local permits = tonumber(ARGV[1])
+-- second arg: lease time with millis unit
+local leaseTime = tonumber(ARGV[2])
+-- third arg: current time with millis unit
+local now = tonumber(ARGV[3])
+-- fourth arg: permit id
+local permitId = ARGV[4]
+-- release expired permits of crashed holders, member score is the lease expire time
+redis.call('zremrangebyscore', key, '-inf', now)
+local count = redis.call('zcard', key)
+if count < permits then
+    redis.call('zadd', key, now + leaseTime, permitId)
+    redis.call('pexpire', key, leaseTime)
+    return {1, permits - count - 1, 0}
+end
+-- wait for the earliest lease expire at most
+local first = redis.call('zrange', key, 0, 0, 'WITHSCORES')
+return {0, 0, math.ceil(tonumber(first[2]) - now)}
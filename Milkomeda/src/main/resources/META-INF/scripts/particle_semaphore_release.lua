@@ -0,0 +1,2 @@
+-- release the permit, result: removed count
+return redis.call('zrem', KEYS[1], ARGV[1])
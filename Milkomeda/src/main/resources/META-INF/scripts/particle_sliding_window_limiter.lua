@@ -0,0 +1,45 @@
+-- sliding window counter, result: {allowed, remaining, retry after millis}
+local key = KEYS[1]
+-- first arg: max allow count in window
+local limit = tonumber(ARGV[1])
+-- second arg: window with millis unit
+local window = tonumber(ARGV[2])
+-- third arg: current time with millis unit
+local now = tonumber(ARGV[3])
+local index = math.floor(now / window)
+local elapsed = now - index * window
+local data = redis.call('hmget', key, 'w', 'c', 'p')
+local w = tonumber(data[1] or '-1')
+local curr = tonumber(data[2] or '0')
+local prev = tonumber(data[3] or '0')
+-- slide to current window
+if w ~= index then
+    if w == index - 1 then
+        prev = curr
+    else
+        prev = 0
+    end
+    curr = 0
+end
+-- previous window count weighted by the overlap
+local estimated = prev * (window - elapsed) / window + curr
+if estimated + 1 > limit then
+    local retry = 0
+    local need = limit - 1 - curr
+    if need >= 0 then
+        retry = math.ceil(window - need * window / prev - elapsed)
+    else
+        retry = window - elapsed
+        if curr > limit - 1 then
+            retry = retry + math.ceil(window - (limit - 1) * window / curr)
+        end
+    end
+    if retry < 1 then
+        retry = 1
+    end
+    return {0, 0, retry}
+end
+curr = curr + 1
+redis.call('hmset', key, 'w', index, 'c', curr, 'p', prev)
+redis.call('pexpire', key, window * 2)
+return {1, math.floor(limit - estimated - 1), 0}
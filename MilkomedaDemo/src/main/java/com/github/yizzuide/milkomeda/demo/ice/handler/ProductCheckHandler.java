@@ -5,6 +5,8 @@ import com.github.yizzuide.milkomeda.ice.*;
 import lombok.extern.slf4j.Slf4j;
 
 import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
 
 /**
  * ProductCheckHandler
@@ -36,6 +38,23 @@ public class ProductCheckHandler {
         log.info("接收到Product: {}", product);
     }
 
+    // 批量接收，返回每个Job的处理结果（没有返回结果的Job视为处理成功）
+    @IceListener(topic = "topic_product_check_batch")
+    public List<JobResult> handleBatch(List<Job<Product>> productJobs) {
+        List<JobResult> results = new ArrayList<>();
+        for (Job<Product> productJob : productJobs) {
+            Product product = productJob.getBody();
+            if (product.getPrice() <= 0) {
+                // 数据错误，放入Dead queue
+                results.add(JobResult.dead(productJob));
+            } else if (product.getName() == null) {
+                // 5秒后重试
+                results.add(JobResult.retryAfter(productJob, Duration.ofSeconds(5)));
+            }
+        }
+        return results;
+    }
+
     // 该方法被上面SpEL调用
     public String topicName() {
         return "topic_product_check";
@@ -33,8 +33,8 @@ public class ProductCheckTask {
     // 批量处理
     private void processBatch() {
         try {
-            // 从待处理队列获取（如果有10个，则取10个，不足取实际容量）
-            List<Job<Product>> jobs = ice.pop("topic_product_check", 10);
+            // 从待处理队列获取（如果有10个，则取10个，不足取实际容量），业务数据直接解码为Product
+            List<Job<Product>> jobs = ice.pop("topic_product_check", 10, Product.class);
             if (CollectionUtils.isEmpty(jobs)) {
                 return;
             }
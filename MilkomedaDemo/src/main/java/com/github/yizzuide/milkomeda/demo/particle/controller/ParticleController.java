@@ -11,6 +11,7 @@ import javax.annotation.PostConstruct;
 import javax.annotation.Resource;
 import javax.servlet.http.HttpServletResponse;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.Map;
 
 /**
@@ -207,4 +208,62 @@ public class ParticleController {
         Thread.sleep(5000);
         return "OK";
     }
+
+    // 由过滤器通过滑动窗口限制器限制
+    @RequestMapping("send3")
+    public String send3(String phone) {
+        return "发送成功";
+    }
+
+    // 由过滤器通过GCRA限制器限制
+    @RequestMapping("rate")
+    public String rate() {
+        return "OK";
+    }
+
+    // 由过滤器通过租用配额限制器限制（热点接口）
+    @RequestMapping("hot")
+    public String hot() {
+        return "OK";
+    }
+
+    // 由过滤器通过自适应并发限制器限制（下游耗时不稳定的接口）
+    @RequestMapping("slow")
+    public String slow() throws InterruptedException {
+        Thread.sleep(50);
+        return "OK";
+    }
+
+    // 由过滤器通过分布式信号量限制器限制（耗资源的导出任务）
+    @RequestMapping("export")
+    public String export() throws InterruptedException {
+        // 模拟导出耗时
+        Thread.sleep(3000);
+        return "OK";
+    }
+
+    // 由过滤器通过分层配额限制器限制（全局、租户、用户配额）
+    @RequestMapping("report")
+    public String report() {
+        return "OK";
+    }
+
+    // 重放模式的去重限制器：重复提交直接返回第一次提交的结果，执行中的重复提交等待结果
+    @RequestMapping("submit")
+    @Limit(name = "order:submit", key = "#orderNo", expire = 60L, limiterBeanName = "replayLimiter")
+    public Map<String, Object> submit(String orderNo, Particle particle/*这个状态值自动注入*/) throws InterruptedException {
+        if (particle.isLimited()) {
+            Map<String, Object> result = new HashMap<>();
+            result.put("code", -1);
+            result.put("message", "订单处理中，请稍后再试");
+            return result;
+        }
+        // 模拟业务处理耗时
+        Thread.sleep(1000);
+        Map<String, Object> result = new HashMap<>();
+        result.put("code", 0);
+        result.put("orderNo", orderNo);
+        result.put("createTime", System.currentTimeMillis());
+        return result;
+    }
 }
@@ -0,0 +1,143 @@
+package com.github.yizzuide.milkomeda.atom;
+
+import com.github.yizzuide.milkomeda.demo.MilkomedaDemoApplication;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.test.context.junit4.SpringRunner;
+
+import java.time.Duration;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * RedisTemplateAtomTest
+ * 基于RedisTemplate的分布式锁测试：加解锁、可重入、看门狗续期、解锁后唤醒所有等待线程
+ *
+ * @author yizzuide
+ * Create at 2026/10/19 00:10
+ */
+@RunWith(SpringRunner.class)
+@SpringBootTest(classes = MilkomedaDemoApplication.class)
+public class RedisTemplateAtomTest {
+
+    private static final String KEY = "atom_redis_template_test";
+
+    @Autowired
+    private StringRedisTemplate redisTemplate;
+
+    @Autowired
+    private RedisConnectionFactory connectionFactory;
+
+    private RedisMessageListenerContainer listenerContainer;
+
+    private RedisTemplateAtom atom;
+
+    private final ExecutorService executor = Executors.newFixedThreadPool(3);
+
+    @Before
+    public void setUp() {
+        redisTemplate.delete(KEY);
+        listenerContainer = new RedisMessageListenerContainer();
+        listenerContainer.setConnectionFactory(connectionFactory);
+        listenerContainer.afterPropertiesSet();
+        listenerContainer.start();
+        // 看门狗租期较长，没有被解锁消息唤醒时等待者会一直等到超时
+        atom = new RedisTemplateAtom(redisTemplate, listenerContainer, Duration.ofSeconds(10));
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        executor.shutdownNow();
+        atom.destroy();
+        listenerContainer.destroy();
+        redisTemplate.delete(KEY);
+    }
+
+    @Test
+    public void testLockAndReentrant() throws Exception {
+        AtomLockInfo lockInfo = atom.tryLock(KEY, AtomLockType.NON_FAIR, false);
+        Assert.assertTrue(lockInfo.isLocked());
+        AtomLockInfo reentrantLockInfo = atom.tryLock(KEY, AtomLockType.NON_FAIR, false);
+        Assert.assertTrue(reentrantLockInfo.isLocked());
+        Assert.assertSame(lockInfo.getLock(), reentrantLockInfo.getLock());
+        Assert.assertEquals(2, ((RedisTemplateAtom.RedisLock) lockInfo.getLock()).holdCount);
+
+        // 其它线程获取失败
+        Assert.assertFalse(executor.submit(() -> atom.tryLock(KEY, AtomLockType.NON_FAIR, false).isLocked()).get());
+
+        atom.unlock(reentrantLockInfo.getLock());
+        Assert.assertTrue(atom.isLocked(lockInfo.getLock()));
+        Assert.assertTrue(redisTemplate.hasKey(KEY));
+        atom.unlock(lockInfo.getLock());
+        Assert.assertFalse(atom.isLocked(lockInfo.getLock()));
+        Assert.assertFalse(redisTemplate.hasKey(KEY));
+
+        // 释放后其它线程可以获取
+        Assert.assertTrue(executor.submit(() -> {
+            AtomLockInfo otherLockInfo = atom.tryLock(KEY, AtomLockType.NON_FAIR, false);
+            atom.unlock(otherLockInfo.getLock());
+            return otherLockInfo.isLocked();
+        }).get());
+    }
+
+    @Test
+    public void testWatchdog() throws Exception {
+        RedisTemplateAtom shortAtom = new RedisTemplateAtom(redisTemplate, listenerContainer, Duration.ofMillis(300));
+        try {
+            AtomLockInfo lockInfo = shortAtom.lock(KEY, Duration.ZERO, AtomLockType.NON_FAIR, false);
+            Assert.assertTrue(lockInfo.isLocked());
+            // 超过多个租期后仍然持有
+            Thread.sleep(1000);
+            Assert.assertTrue(redisTemplate.hasKey(KEY));
+            Long ttl = redisTemplate.getExpire(KEY, TimeUnit.MILLISECONDS);
+            Assert.assertTrue(ttl != null && ttl > 0 && ttl <= 300);
+            shortAtom.unlock(lockInfo.getLock());
+            Assert.assertFalse(redisTemplate.hasKey(KEY));
+        } finally {
+            shortAtom.destroy();
+        }
+    }
+
+    @Test
+    public void testUnlockWakeup() throws Exception {
+        AtomLockInfo lockInfo = atom.lock(KEY, Duration.ZERO, AtomLockType.NON_FAIR, false);
+        int waiterCount = 3;
+        CountDownLatch started = new CountDownLatch(waiterCount);
+        AtomicInteger acquired = new AtomicInteger();
+        Future<?>[] futures = new Future<?>[waiterCount];
+        for (int i = 0; i < waiterCount; i++) {
+            futures[i] = executor.submit(() -> {
+                started.countDown();
+                AtomLockInfo waiterLockInfo = atom.tryLock(KEY, Duration.ofSeconds(5), Duration.ZERO, AtomLockType.NON_FAIR, false);
+                if (waiterLockInfo.isLocked()) {
+                    acquired.incrementAndGet();
+                    atom.unlock(waiterLockInfo.getLock());
+                }
+                return null;
+            });
+        }
+        started.await();
+        // 等待者已订阅并进入长时间等待
+        Thread.sleep(500);
+        long unlockTime = System.currentTimeMillis();
+        atom.unlock(lockInfo.getLock());
+        for (Future<?> future : futures) {
+            future.get(5, TimeUnit.SECONDS);
+        }
+        // 所有等待者都被解锁消息唤醒，不需要等到锁过期
+        Assert.assertEquals(waiterCount, acquired.get());
+        Assert.assertTrue(System.currentTimeMillis() - unlockTime < 2000);
+    }
+}
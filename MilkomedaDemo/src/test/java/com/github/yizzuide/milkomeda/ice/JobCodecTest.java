@@ -0,0 +1,76 @@
+package com.github.yizzuide.milkomeda.ice;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.JavaType;
+import com.github.yizzuide.milkomeda.demo.ice.pojo.Product;
+import com.github.yizzuide.milkomeda.util.JSONUtil;
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * JobCodecTest
+ * 二进制编解码器的往返测试（包括超过压缩阈值的大业务数据和旧JSON格式的兼容）
+ *
+ * @author yizzuide
+ * Create at 2026/10/18 23:10
+ */
+public class JobCodecTest {
+
+    private static final JavaType JOB_TYPE = JSONUtil.mapper.getTypeFactory().constructType(new TypeReference<Job<Product>>() {});
+
+    private static final int COMPRESS_THRESHOLD = 1024;
+
+    private final JobCodec binaryJobCodec = new BinaryJobCodec(COMPRESS_THRESHOLD);
+
+    @Test
+    public void testRoundTrip() {
+        Job<Product> job = new Job<>("topic_codec-1", "topic_codec", 5000, 30000, 3, new Product("1", "iPhone", 8900));
+        job.setStatus(JobStatus.RESERVED);
+        byte[] data = binaryJobCodec.encode(job);
+        Assert.assertTrue(BinaryJobCodec.isBinary(data));
+        Assert.assertEquals(0, data[1]);
+        assertJobEquals(job, binaryJobCodec.decode(data, JOB_TYPE));
+    }
+
+    // 超过压缩阈值时压缩存储，并且可以完整还原
+    @Test
+    public void testCompressedRoundTrip() {
+        StringBuilder desc = new StringBuilder();
+        for (int i = 0; i < 200; i++) {
+            desc.append("Milkomeda Ice large body description ");
+        }
+        String[] pics = new String[20];
+        for (int i = 0; i < pics.length; i++) {
+            pics[i] = "https://img.example.com/product/" + i + ".png";
+        }
+        Job<Product> job = new Job<>("topic_codec-2", "topic_codec", 0, 30000, 3, new Product("2", "iPhone", 8900, pics, desc.toString()));
+        job.setPriority(-2);
+        job.setRetryCount(1);
+        byte[] data = binaryJobCodec.encode(job);
+        Assert.assertTrue(BinaryJobCodec.isBinary(data));
+        Assert.assertEquals(1, data[1]);
+        Assert.assertTrue(data.length < COMPRESS_THRESHOLD);
+        assertJobEquals(job, binaryJobCodec.decode(data, JOB_TYPE));
+    }
+
+    // 可以解码JSON格式的任务
+    @Test
+    public void testDecodeJson() {
+        Job<Product> job = new Job<>("topic_codec-3", "topic_codec", 1000, 30000, 3, new Product("3", "iPhone", 8900));
+        job.setStatus(JobStatus.DELAY);
+        byte[] data = new JsonJobCodec().encode(job);
+        Assert.assertFalse(BinaryJobCodec.isBinary(data));
+        assertJobEquals(job, binaryJobCodec.decode(data, JOB_TYPE));
+    }
+
+    private static void assertJobEquals(Job<Product> expected, Job<Product> actual) {
+        Assert.assertEquals(expected.getId(), actual.getId());
+        Assert.assertEquals(expected.getTopic(), actual.getTopic());
+        Assert.assertEquals(expected.getDelay(), actual.getDelay());
+        Assert.assertEquals(expected.getTtr(), actual.getTtr());
+        Assert.assertEquals(expected.getRetryCount(), actual.getRetryCount());
+        Assert.assertEquals(expected.getPriority(), actual.getPriority());
+        Assert.assertEquals(expected.getStatus(), actual.getStatus());
+        Assert.assertEquals(expected.getBody(), actual.getBody());
+    }
+}
@@ -0,0 +1,146 @@
+package com.github.yizzuide.milkomeda.ice;
+
+import com.github.yizzuide.milkomeda.universe.metadata.HandlerMetaData;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Proxy;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * TopicJobHandlerTest
+ * Topic消费处理器的批次预留和背压测试（处理器阻塞时不再拉取，拉取后的任务不会被线程池拒绝）
+ *
+ * @author yizzuide
+ * Create at 2026/10/18 22:10
+ */
+public class TopicJobHandlerTest {
+
+    private static final String TOPIC = "topic_handler_test";
+
+    // 每次拉取请求的个数
+    private final List<Integer> popCounts = new CopyOnWriteArrayList<>();
+
+    private final BlockingListener listener = new BlockingListener();
+
+    private final Ice ice = (Ice) Proxy.newProxyInstance(Ice.class.getClassLoader(), new Class[]{Ice.class}, (proxy, method, args) -> {
+        if ("pop".equals(method.getName()) && args.length == 3) {
+            int count = (int) args[1];
+            popCounts.add(count);
+            List<Job<Object>> jobs = new ArrayList<>(count);
+            for (int i = 0; i < count; i++) {
+                jobs.add(new Job<>(TOPIC + "-" + i, TOPIC, 0, 30000, 3, null));
+            }
+            return jobs;
+        }
+        return null;
+    });
+
+    private Map<String, List<HandlerMetaData>> originTopicMap;
+
+    private TopicJobHandler handler;
+
+    @Before
+    public void setUp() throws Exception {
+        originTopicMap = IceContext.getTopicMap();
+        Map<String, List<HandlerMetaData>> topicMap = new HashMap<>();
+        topicMap.put(TOPIC, Collections.singletonList(new HandlerMetaData(TOPIC, null, listener,
+                BlockingListener.class.getMethod("handle"))));
+        setTopicMap(topicMap);
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        listener.latch.countDown();
+        if (handler != null) {
+            handler.shutdown();
+        }
+        setTopicMap(originTopicMap);
+    }
+
+    // 线程池可接收的批次用完后停止拉取
+    @Test
+    public void testStopPopWhenSaturated() throws Exception {
+        IceProperties props = new IceProperties();
+        props.setTaskTopicConcurrency(1);
+        props.setTaskTopicQueueSize(1);
+        props.setTaskTopicPopMaxSize(5);
+        handler = new TopicJobHandler(TOPIC, ice, props, Duration.ofSeconds(1));
+
+        // 第一批执行中，第二批在队列中等待，第三次不再拉取
+        handler.run();
+        handler.run();
+        handler.run();
+        Assert.assertEquals(2, popCounts.size());
+        Assert.assertEquals(0, handler.getAvailableBatchSlots());
+        Assert.assertEquals(10, handler.getInFlight());
+
+        listener.latch.countDown();
+        awaitIdle(2);
+        Assert.assertEquals(2, listener.handled.get());
+        Assert.assertEquals(0, handler.getInFlight());
+    }
+
+    // 背压模式下拉取个数不超过剩余的处理中Job数
+    @Test
+    public void testBackpressure() throws Exception {
+        IceProperties props = new IceProperties();
+        props.setTaskTopicConcurrency(1);
+        props.setTaskTopicQueueSize(4);
+        props.setTaskTopicPopMaxSize(5);
+        props.setEnableTaskBackpressure(true);
+        props.setTaskTopicMaxInFlight(7);
+        handler = new TopicJobHandler(TOPIC, ice, props, Duration.ofSeconds(1));
+
+        handler.run();
+        handler.run();
+        handler.run();
+        Assert.assertEquals(2, popCounts.size());
+        Assert.assertEquals(5, (int) popCounts.get(0));
+        Assert.assertEquals(2, (int) popCounts.get(1));
+        Assert.assertEquals(7, handler.getInFlight());
+        // 没有拉取的批次已归还
+        Assert.assertEquals(3, handler.getAvailableBatchSlots());
+
+        listener.latch.countDown();
+        awaitIdle(5);
+        Assert.assertEquals(0, handler.getInFlight());
+    }
+
+    private void awaitIdle(int slots) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + TimeUnit.SECONDS.toMillis(5);
+        while ((handler.getInFlight() > 0 || handler.getAvailableBatchSlots() < slots) && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        Assert.assertEquals(slots, handler.getAvailableBatchSlots());
+    }
+
+    private static void setTopicMap(Map<String, List<HandlerMetaData>> topicMap) throws Exception {
+        Field field = IceContext.class.getDeclaredField("topicMap");
+        field.setAccessible(true);
+        field.set(null, topicMap);
+    }
+
+    public static class BlockingListener {
+        final CountDownLatch latch = new CountDownLatch(1);
+
+        final AtomicInteger handled = new AtomicInteger();
+
+        public void handle() throws InterruptedException {
+            latch.await();
+            handled.incrementAndGet();
+        }
+    }
+}
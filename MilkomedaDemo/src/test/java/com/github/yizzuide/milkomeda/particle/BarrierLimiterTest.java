@@ -0,0 +1,101 @@
+package com.github.yizzuide.milkomeda.particle;
+
+import com.github.yizzuide.milkomeda.demo.MilkomedaDemoApplication;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.test.context.junit4.SpringRunner;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * BarrierLimiterTest
+ * 组合模式与链模式的对比测试：拒绝的位置和拒绝的限制器相同，被后面的节点拒绝时前面的节点不计数
+ *
+ * @author yizzuide
+ * Create at 2026/10/18 23:50
+ */
+@RunWith(SpringRunner.class)
+@SpringBootTest(classes = MilkomedaDemoApplication.class)
+public class BarrierLimiterTest {
+
+    private static final String CHAIN_KEY = "barrier_chain_test";
+
+    private static final String COMPOSITE_KEY = "barrier_composite_test";
+
+    @Autowired
+    private StringRedisTemplate redisTemplate;
+
+    @Before
+    public void setUp() {
+        clean();
+    }
+
+    @After
+    public void tearDown() {
+        clean();
+    }
+
+    // 第一个节点先达到限制
+    @Test
+    public void testFirstLinkReject() throws Throwable {
+        BarrierLimiter chain = createBarrier(false, 3, 5);
+        BarrierLimiter composite = createBarrier(true, 3, 5);
+        List<Class<?>> chainResults = run(chain, CHAIN_KEY, 6);
+        List<Class<?>> compositeResults = run(composite, COMPOSITE_KEY, 6);
+        Assert.assertEquals(Arrays.asList(null, null, null, TimesLimiter.class, TimesLimiter.class, TimesLimiter.class), chainResults);
+        Assert.assertEquals(chainResults, compositeResults);
+    }
+
+    // 后面的节点先达到限制
+    @Test
+    public void testLastLinkReject() throws Throwable {
+        BarrierLimiter chain = createBarrier(false, 5, 3);
+        BarrierLimiter composite = createBarrier(true, 5, 3);
+        List<Class<?>> chainResults = run(chain, CHAIN_KEY, 5);
+        List<Class<?>> compositeResults = run(composite, COMPOSITE_KEY, 5);
+        Assert.assertEquals(Arrays.asList(null, null, null, SlidingWindowLimiter.class, SlidingWindowLimiter.class), chainResults);
+        Assert.assertEquals(chainResults, compositeResults);
+
+        // 链模式下被拒绝的请求也消耗了前面节点的次数，组合模式不计数
+        Assert.assertEquals("5", redisTemplate.opsForValue().get(CHAIN_KEY + ":times"));
+        Assert.assertEquals("3", redisTemplate.opsForValue().get(COMPOSITE_KEY + ":times"));
+    }
+
+    /**
+     * 创建组合限制器：次数限制器 + 滑动窗口限制器（按分钟限制，测试期间不会跨过计数周期）
+     */
+    private BarrierLimiter createBarrier(boolean composite, long timesLimit, long slidingLimit) {
+        SlidingWindowLimiter slidingWindowLimiter = new SlidingWindowLimiter();
+        slidingWindowLimiter.setTimesType(TimesType.MIN);
+        slidingWindowLimiter.setLimitTimes(slidingLimit);
+        BarrierLimiter barrierLimiter = new BarrierLimiter();
+        barrierLimiter.setComposite(composite);
+        barrierLimiter.setChain(Arrays.asList("timesLimiter", "slidingWindowLimiter"));
+        barrierLimiter.addLimitHandlerList(Arrays.asList(new TimesLimiter(TimesType.MIN, timesLimit), slidingWindowLimiter));
+        return barrierLimiter;
+    }
+
+    /**
+     * 调用多次，记录每次拒绝的限制器（通过时为null）
+     */
+    private List<Class<?>> run(BarrierLimiter barrierLimiter, String key, int times) throws Throwable {
+        List<Class<?>> results = new ArrayList<>(times);
+        for (int i = 0; i < times; i++) {
+            results.add(barrierLimiter.limit(key, 60, particle -> particle.isLimited() ? particle.getType() : null));
+        }
+        return results;
+    }
+
+    private void clean() {
+        redisTemplate.delete(Arrays.asList(CHAIN_KEY + ":times", CHAIN_KEY + ":sliding",
+                COMPOSITE_KEY + ":times", COMPOSITE_KEY + ":sliding"));
+    }
+}
@@ -0,0 +1,114 @@
+package com.github.yizzuide.milkomeda.particle;
+
+import com.github.yizzuide.milkomeda.demo.MilkomedaDemoApplication;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.redis.connection.BitFieldSubCommands;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * BloomLimiterTest
+ * 布隆限制器的bit位顺序（BITFIELD、本地镜像与SETBIT/GETBIT一致）和本地镜像刷新测试
+ *
+ * @author yizzuide
+ * Create at 2026/10/18 23:40
+ */
+@RunWith(SpringRunner.class)
+@SpringBootTest(classes = MilkomedaDemoApplication.class)
+public class BloomLimiterTest {
+
+    private static final String BIT_KEY = "bit_bloom_test";
+
+    private static final int BITS = 1024;
+
+    @Autowired
+    private StringRedisTemplate redisTemplate;
+
+    @Before
+    public void setUp() {
+        clean();
+    }
+
+    @After
+    public void tearDown() {
+        clean();
+    }
+
+    @Test
+    public void testBitOrder() {
+        int[] offsets = {0, 1, 7, 8, 13, 63, 64, 511, 1000, BITS - 1};
+        for (int offset : offsets) {
+            redisTemplate.opsForValue().setBit(BIT_KEY, offset, true);
+        }
+
+        BitFieldSubCommands subCommands = BitFieldSubCommands.create();
+        for (int i = 0; i < BITS; i++) {
+            subCommands = subCommands.get(BitFieldSubCommands.BitFieldType.unsigned(1)).valueAt(i);
+        }
+        List<Long> bits = redisTemplate.opsForValue().bitField(BIT_KEY, subCommands);
+        Assert.assertNotNull(bits);
+        byte[] data = redisTemplate.execute((RedisCallback<byte[]>) connection ->
+                connection.getRange(BIT_KEY.getBytes(StandardCharsets.UTF_8), 0, BITS / 8 - 1));
+        BloomLimiter.MirrorChunk chunk = new BloomLimiter.MirrorChunk(0, data, System.currentTimeMillis());
+
+        for (int i = 0; i < BITS; i++) {
+            boolean expected = Boolean.TRUE.equals(redisTemplate.opsForValue().getBit(BIT_KEY, i));
+            Assert.assertEquals(Arrays.binarySearch(offsets, i) >= 0, expected);
+            Assert.assertEquals("BITFIELD bit " + i, expected, bits.get(i) == 1);
+            Assert.assertEquals("mirror bit " + i, expected, chunk.get(i));
+        }
+    }
+
+    @Test
+    public void testMirrorRefresh() throws Throwable {
+        BloomLimiter mirrorLimiter = createLimiter(true);
+        // 模拟另一个节点
+        BloomLimiter otherMirrorLimiter = createLimiter(true);
+        Assert.assertTrue(isLimited(mirrorLimiter, "u1"));
+        Assert.assertTrue(isLimited(otherMirrorLimiter, "u1"));
+
+        mirrorLimiter.add("u1");
+        // 当前节点立即重新拉取修改过的分块
+        Assert.assertFalse(isLimited(mirrorLimiter, "u1"));
+        // 其它节点在检测间隔内使用已拉取的分块
+        Assert.assertTrue(isLimited(otherMirrorLimiter, "u1"));
+        // 不开启镜像时直接通过BITFIELD获取
+        Assert.assertFalse(isLimited(createLimiter(false), "u1"));
+
+        // 超过检测间隔后，分块版本号变化，重新拉取
+        Thread.sleep(600);
+        Assert.assertFalse(isLimited(otherMirrorLimiter, "u1"));
+        Assert.assertTrue(isLimited(otherMirrorLimiter, "u2"));
+    }
+
+    private BloomLimiter createLimiter(boolean localMirror) {
+        BloomLimiter limiter = new BloomLimiter();
+        ReflectionTestUtils.setField(limiter, "bitKey", BIT_KEY);
+        ReflectionTestUtils.setField(limiter, "insertions", 10000);
+        ReflectionTestUtils.setField(limiter, "localMirror", localMirror);
+        ReflectionTestUtils.setField(limiter, "mirrorChunkSize", 64);
+        ReflectionTestUtils.setField(limiter, "mirrorRefreshInterval", 500L);
+        limiter.setRedisTemplate(redisTemplate);
+        return limiter;
+    }
+
+    private boolean isLimited(BloomLimiter limiter, String value) throws Throwable {
+        return limiter.limit(BIT_KEY + "_" + value, Particle::isLimited);
+    }
+
+    private void clean() {
+        redisTemplate.delete(Arrays.asList(BIT_KEY, BIT_KEY + ":version"));
+    }
+}
@@ -0,0 +1,58 @@
+package com.github.yizzuide.milkomeda.test;
+
+import com.github.yizzuide.milkomeda.demo.MilkomedaDemoApplication;
+import com.github.yizzuide.milkomeda.ice.IceMetrics;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.junit4.SpringRunner;
+
+import javax.annotation.Resource;
+
+/**
+ * IceMetricsTest
+ * 通过@EnableIce导入的指标配置在应用启动后绑定MeterRegistry
+ *
+ * @author yizzuide
+ * Create at 2026/10/18 22:30
+ */
+@RunWith(SpringRunner.class)
+@SpringBootTest(classes = MilkomedaDemoApplication.class, properties = "milkomeda.ice.enable-metrics=true")
+@Import(IceMetricsTest.MeterRegistryConfig.class)
+public class IceMetricsTest {
+
+    @Resource
+    private IceMetrics iceMetrics;
+
+    @Resource
+    private MeterRegistry meterRegistry;
+
+    @Test
+    public void testMeters() {
+        iceMetrics.sample();
+        iceMetrics.recordHandle("topic_metrics_test", 2, 1000000, true);
+        iceMetrics.recordTtrRedelivery("topic_metrics_test");
+
+        Assert.assertTrue(meterRegistry instanceof SimpleMeterRegistry);
+        Assert.assertFalse(meterRegistry.find("ice.bucket.due").gauges().isEmpty());
+        Assert.assertFalse(meterRegistry.find("ice.ready.size").gauges().isEmpty());
+        Assert.assertNotNull(meterRegistry.find("ice.dead.size").gauge());
+        Assert.assertEquals(1, meterRegistry.find("ice.handler.duration").tag("topic", "topic_metrics_test").timer().count());
+        Assert.assertEquals(2.0, meterRegistry.find("ice.handler.jobs").tag("outcome", "success").counter().count(), 0);
+        Assert.assertEquals(1.0, meterRegistry.find("ice.job.ttr.redelivery").counter().count(), 0);
+    }
+
+    @TestConfiguration
+    static class MeterRegistryConfig {
+        @Bean
+        public SimpleMeterRegistry simpleMeterRegistry() {
+            return new SimpleMeterRegistry();
+        }
+    }
+}
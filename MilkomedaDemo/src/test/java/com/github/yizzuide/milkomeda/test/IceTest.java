@@ -0,0 +1,158 @@
+package com.github.yizzuide.milkomeda.test;
+
+import com.github.yizzuide.milkomeda.demo.MilkomedaDemoApplication;
+import com.github.yizzuide.milkomeda.demo.ice.pojo.Product;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.JavaType;
+import com.github.yizzuide.milkomeda.ice.*;
+import com.github.yizzuide.milkomeda.util.JSONUtil;
+import lombok.extern.slf4j.Slf4j;
+import org.databene.contiperf.PerfTest;
+import org.databene.contiperf.junit.ContiPerfRule;
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.util.CollectionUtils;
+
+import javax.annotation.Resource;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * IceTest
+ * 准备队列吞吐测试（通过 milkomeda.ice.ready-queue-type 切换LIST/STREAM对比），任务编解码性能及大小对比，
+ * 批量大业务数据的监听器参数类型转换对比
+ *
+ * @author yizzuide
+ * Create at 2026/10/18 11:40
+ */
+@Slf4j
+@RunWith(SpringRunner.class)
+@SpringBootTest(classes = MilkomedaDemoApplication.class)
+public class IceTest {
+
+    private static final String TOPIC = "topic_ice_perf";
+
+    private static final JavaType JOB_TYPE = JSONUtil.mapper.getTypeFactory().constructType(new TypeReference<Job<Product>>() {});
+
+    private static final Job<Product> CODEC_JOB = new Job<>("topic_ice_perf-1", TOPIC, 5000, 30000, 3, new Product("1", "iPhone", 8900));
+
+    private static final JavaType MAP_JOB_TYPE = JSONUtil.mapper.getTypeFactory().constructType(new TypeReference<Job<Object>>() {});
+
+    // 100个带大业务数据的任务
+    private static final List<byte[]> BATCH_JOB_DATA = new ArrayList<>();
+
+    static {
+        StringBuilder desc = new StringBuilder();
+        for (int i = 0; i < 200; i++) {
+            desc.append("Milkomeda Ice large body description ");
+        }
+        String[] pics = new String[20];
+        for (int i = 0; i < pics.length; i++) {
+            pics[i] = "https://img.example.com/product/" + i + ".png";
+        }
+        JobCodec codec = new JsonJobCodec();
+        for (int i = 0; i < 100; i++) {
+            Product product = new Product(String.valueOf(i), "iPhone", 8900, pics, desc.toString());
+            BATCH_JOB_DATA.add(codec.encode(new Job<>(TOPIC + "-" + i, TOPIC, 0, 30000, 3, product)));
+        }
+    }
+
+    private final JobCodec jsonJobCodec = new JsonJobCodec();
+
+    private final JobCodec binaryJobCodec = new BinaryJobCodec(1024);
+
+    @Resource
+    private Ice ice;
+
+    @Rule
+    public ContiPerfRule contiPerfRule = new ContiPerfRule();
+
+    // 10个线程添加1000个Job
+    @PerfTest(invocations = 1000, threads = 10)
+    @Test
+    public void testAdd() {
+        String id = UUID.randomUUID().toString();
+        ice.add(id, TOPIC, new Product(id, "iPhone", 8900), 0);
+    }
+
+    // 10个线程每次批量添加100个Job
+    @SuppressWarnings("rawtypes")
+    @PerfTest(invocations = 100, threads = 10)
+    @Test
+    public void testAddAll() {
+        List<Job> jobs = new ArrayList<>(100);
+        for (int i = 0; i < 100; i++) {
+            String id = UUID.randomUUID().toString();
+            jobs.add(ice.build(id, TOPIC, new Product(id, "iPhone", 8900), 0));
+        }
+        List<String> acceptedIds = ice.addAll(jobs);
+        log.info("accepted jobs: {}", acceptedIds.size());
+        // id不重复，全部添加成功
+        Assert.assertEquals(100, acceptedIds.size());
+    }
+
+    // 10个线程消费并确认
+    @PerfTest(invocations = 200, threads = 10)
+    @Test
+    public void testPopAndFinish() {
+        List<Job<Product>> jobs = ice.pop(TOPIC, 10, Product.class);
+        if (CollectionUtils.isEmpty(jobs)) {
+            return;
+        }
+        Assert.assertTrue(jobs.size() <= 10);
+        for (Job<Product> job : jobs) {
+            Assert.assertEquals(TOPIC, job.getTopic());
+            Assert.assertTrue(job.getBody() instanceof Product);
+        }
+        ice.finish(jobs);
+    }
+
+    // 编码后的字节数对比
+    @Test
+    public void testCodecSize() {
+        int jsonSize = jsonJobCodec.encode(CODEC_JOB).length;
+        int binarySize = binaryJobCodec.encode(CODEC_JOB).length;
+        log.info("json bytes: {}, binary bytes: {}", jsonSize, binarySize);
+        Assert.assertTrue(binarySize < jsonSize);
+    }
+
+    @PerfTest(invocations = 100000, threads = 4)
+    @Test
+    public void testJsonCodec() {
+        Job<Product> job = jsonJobCodec.decode(jsonJobCodec.encode(CODEC_JOB), JOB_TYPE);
+        Assert.assertEquals(CODEC_JOB.getBody(), job.getBody());
+    }
+
+    @PerfTest(invocations = 100000, threads = 4)
+    @Test
+    public void testBinaryCodec() {
+        Job<Product> job = binaryJobCodec.decode(binaryJobCodec.encode(CODEC_JOB), JOB_TYPE);
+        Assert.assertEquals(CODEC_JOB.getBody(), job.getBody());
+    }
+
+    // 批量任务先解码为Map，再通过JSON字符串转换为监听器参数类型
+    @PerfTest(invocations = 1000, threads = 4)
+    @Test
+    public void testBatchBodyConvert() {
+        for (byte[] data : BATCH_JOB_DATA) {
+            Job<Object> job = jsonJobCodec.decode(data, MAP_JOB_TYPE);
+            job.setBody(JSONUtil.parse(JSONUtil.serialize(job.getBody()), Product.class));
+            Assert.assertTrue(job.getBody() instanceof Product);
+        }
+    }
+
+    // 批量任务按监听器参数类型直接解码
+    @PerfTest(invocations = 1000, threads = 4)
+    @Test
+    public void testBatchBodyTypedDecode() {
+        for (byte[] data : BATCH_JOB_DATA) {
+            Job<Product> job = jsonJobCodec.decode(data, JOB_TYPE);
+            Assert.assertEquals(20, job.getBody().getPics().length);
+        }
+    }
+}
@@ -2,20 +2,34 @@ package com.github.yizzuide.milkomeda.test;
 
 import com.github.yizzuide.milkomeda.demo.MilkomedaDemoApplication;
 import com.github.yizzuide.milkomeda.moon.Moon;
+import com.github.yizzuide.milkomeda.moon.MoonNode;
+import com.github.yizzuide.milkomeda.moon.MoonStrategy;
+import com.github.yizzuide.milkomeda.moon.PercentMoonStrategy;
+import com.github.yizzuide.milkomeda.moon.PeriodicMoonStrategy;
+import com.github.yizzuide.milkomeda.moon.SmoothWeightedMoonStrategy;
+import com.github.yizzuide.milkomeda.universe.context.ApplicationContextHolder;
 import lombok.extern.slf4j.Slf4j;
 import org.databene.contiperf.PerfTest;
 import org.databene.contiperf.junit.ContiPerfRule;
+import org.junit.Assert;
 import org.junit.Rule;
 import org.junit.Test;
 import org.junit.runner.RunWith;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.context.annotation.Lazy;
+import org.springframework.data.redis.core.RedisTemplate;
 import org.springframework.test.context.junit4.SpringRunner;
 
 import javax.annotation.Resource;
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
 
 /**
  * MoonTest
+ * 分布式环形分配测试，各环形策略本地计算阶段值的性能对比（包括原链表遍历和累计求和的实现），百分比策略脚本模式与租用模式的一致性
  *
  * @author yizzuide
  * Create at 2020/05/28 10:55
@@ -24,10 +38,20 @@ import javax.annotation.Resource;
 @RunWith(SpringRunner.class)
 @SpringBootTest(classes = MilkomedaDemoApplication.class)
 public class MoonTest {
+    private static final Moon<String> PERIODIC_MOON = createMoon(new PeriodicMoonStrategy(), "p0", "p1", "p2", "p3", "p4", "p5", "p6", "p7", "p8", "p9");
+
+    private static final Moon<Integer> PERCENT_MOON = createMoon(new PercentMoonStrategy(), 5, 10, 15, 20, 25, 25);
+
+    private static final Moon<Integer> SMOOTH_MOON = createMoon(new SmoothWeightedMoonStrategy(), 5, 10, 15, 20, 25, 25);
+
     @Lazy
     @Resource
     private Moon<Integer> abTestMoon;
 
+    @Lazy
+    @Resource
+    private Moon<Integer> abTestLeaseMoon;
+
     // 引入性能测试规则
     @Rule
     public ContiPerfRule contiPerfRule = new ContiPerfRule();
@@ -42,4 +66,112 @@ public class MoonTest {
         Integer phase2 = Moon.getPhase("ab-456", abTestMoon);
         log.info("ab-456: {}",  phase2);
     }
+
+    // 租用模式：10个线程调用10000次
+    @PerfTest(invocations = 10000, threads = 10)
+    @Test
+    public void testAbTestLease() {
+        Moon.getPhase("ab-lease", abTestLeaseMoon);
+    }
+
+    // 周期性分配（原实现）：从链头向后拔动p次获取阶段
+    @PerfTest(invocations = 1000000, threads = 4)
+    @Test
+    public void testPeriodicPhaseByList() {
+        int p = ThreadLocalRandom.current().nextInt(10);
+        MoonNode<String> next = PERIODIC_MOON.getHeader();
+        for (int i = 0; i < p; i++) {
+            next = next.getNext();
+        }
+        Assert.assertEquals("p" + p, next.getData());
+    }
+
+    // 周期性分配：通过数组下标获取阶段
+    @PerfTest(invocations = 1000000, threads = 4)
+    @Test
+    public void testPeriodicPhase() {
+        PERIODIC_MOON.getMoonStrategy().getPhase("local", ThreadLocalRandom.current().nextInt(10), PERIODIC_MOON);
+    }
+
+    // 百分比分配（原实现）：每次遍历阶段列表累计百分比
+    @PerfTest(invocations = 1000000, threads = 4)
+    @Test
+    public void testPercentPhaseBySum() {
+        int p = ThreadLocalRandom.current().nextInt(100);
+        int sum = 0;
+        int index = -1;
+        for (int i = 0; i < PERCENT_MOON.getLen(); i++) {
+            sum += PERCENT_MOON.getPhaseNames().get(i);
+            if (p < sum) {
+                index = i;
+                break;
+            }
+        }
+        Assert.assertEquals(index, (int) PERCENT_MOON.getMoonStrategy().getPhase("local", p, PERCENT_MOON));
+    }
+
+    // 百分比分配：前缀和二分查找
+    @PerfTest(invocations = 1000000, threads = 4)
+    @Test
+    public void testPercentPhase() {
+        PERCENT_MOON.getMoonStrategy().getPhase("local", ThreadLocalRandom.current().nextInt(100), PERCENT_MOON);
+    }
+
+    // 平滑加权轮询：查询预先计算的序列
+    @PerfTest(invocations = 1000000, threads = 4)
+    @Test
+    public void testSmoothWeightedPhase() {
+        SMOOTH_MOON.getMoonStrategy().getPhase("local", ThreadLocalRandom.current().nextInt(100), SMOOTH_MOON);
+    }
+
+    // 平滑加权轮询：权重5/1/1的一个周期为 a a b a c a a
+    @Test
+    public void testSmoothWeightedSequence() {
+        Moon<Integer> moon = createMoon(new SmoothWeightedMoonStrategy(), 5, 1, 1);
+        String names = "abc";
+        StringBuilder sequence = new StringBuilder();
+        for (int p = 0; p < 7; p++) {
+            Integer index = moon.getMoonStrategy().getPhase("local", p, moon);
+            sequence.append(names.charAt(index));
+        }
+        Assert.assertEquals("aabacaa", sequence.toString());
+    }
+
+    // 脚本模式与租用模式的分配结果一致（3个以上阶段时按累计百分比分配）
+    @SuppressWarnings("unchecked")
+    @Test
+    public void testPercentScriptAndLease() throws Exception {
+        String key = "percent-mode-test";
+        RedisTemplate<String, Serializable> jsonRedisTemplate = ApplicationContextHolder.get().getBean("jsonRedisTemplate", RedisTemplate.class);
+        jsonRedisTemplate.delete(Arrays.asList("moon:percent-" + key, "moon:percent-lease-" + key));
+        Moon<Integer> scriptMoon = createMoon(createPercentStrategy(0), 1, 5, 4);
+        Moon<Integer> leaseMoon = createMoon(createPercentStrategy(10), 1, 5, 4);
+        List<Integer> scriptPhases = new ArrayList<>();
+        List<Integer> leasePhases = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            scriptPhases.add(scriptMoon.getMoonStrategy().getPhaseFast(key, scriptMoon));
+            leasePhases.add(leaseMoon.getMoonStrategy().getPhaseFast(key, leaseMoon));
+        }
+        jsonRedisTemplate.delete(Arrays.asList("moon:percent-" + key, "moon:percent-lease-" + key));
+        List<Integer> period = Arrays.asList(0, 1, 1, 1, 1, 1, 2, 2, 2, 2);
+        List<Integer> expected = new ArrayList<>(period);
+        expected.addAll(period);
+        Assert.assertEquals(expected, scriptPhases);
+        Assert.assertEquals(scriptPhases, leasePhases);
+    }
+
+    private static PercentMoonStrategy createPercentStrategy(int leaseSize) throws Exception {
+        PercentMoonStrategy moonStrategy = new PercentMoonStrategy();
+        moonStrategy.setLuaScript(moonStrategy.loadLuaScript());
+        moonStrategy.setLeaseSize(leaseSize);
+        return moonStrategy;
+    }
+
+    @SafeVarargs
+    private static <T> Moon<T> createMoon(MoonStrategy moonStrategy, T... phases) {
+        Moon<T> moon = new Moon<>();
+        moon.setMoonStrategy(moonStrategy);
+        moon.add(phases);
+        return moon;
+    }
 }
@@ -1,7 +1,10 @@
 package com.github.yizzuide.milkomeda.test;
 
 import com.github.yizzuide.milkomeda.demo.MilkomedaDemoApplication;
+import com.github.yizzuide.milkomeda.particle.AdaptiveLimiter;
+import com.github.yizzuide.milkomeda.particle.AdaptiveType;
 import lombok.val;
+import org.junit.Assert;
 import org.junit.Before;
 import org.junit.Test;
 import org.junit.runner.RunWith;
@@ -15,6 +18,13 @@ import org.springframework.test.web.servlet.result.MockMvcResultMatchers;
 import org.springframework.test.web.servlet.setup.MockMvcBuilders;
 import org.springframework.web.context.WebApplicationContext;
 
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
 /**
  * ParticleTest
  *
@@ -123,4 +133,159 @@ public class ParticleTest {
                 .andReturn().getResponse().getContentAsString();
         System.out.println(ret);
     }
+
+    @Test
+    public void send3() throws Exception {
+        for (int i = 0; i < 5; i++) {
+            val ret = mockMvc.perform(MockMvcRequestBuilders.get("/particle/send3")
+                    .param("phone", "151")
+                    .contentType(MediaType.APPLICATION_FORM_URLENCODED_VALUE))
+                    .andReturn().getResponse();
+            System.out.println(ret.getStatus() + ": " + ret.getContentAsString());
+        }
+    }
+
+    @Test
+    public void rate() throws Exception {
+        for (int i = 0; i < 15; i++) {
+            val ret = mockMvc.perform(MockMvcRequestBuilders.get("/particle/rate")
+                    .header("Token", "123321"))
+                    .andReturn().getResponse();
+            System.out.println(ret.getStatus() + ", Retry-After: " + ret.getHeader("Retry-After"));
+        }
+    }
+
+    @Test
+    public void hot() throws Exception {
+        int limited = 0;
+        for (int i = 0; i < 1200; i++) {
+            val ret = mockMvc.perform(MockMvcRequestBuilders.get("/particle/hot"))
+                    .andReturn().getResponse();
+            if (ret.getStatus() == 429) {
+                limited++;
+            }
+        }
+        System.out.println("limited: " + limited);
+    }
+
+    @Test
+    public void submit() throws Exception {
+        // 重复提交返回相同的结果（createTime相同）
+        for (int i = 0; i < 3; i++) {
+            val ret = mockMvc.perform(MockMvcRequestBuilders.get("/particle/submit")
+                    .param("orderNo", "1001")
+                    .contentType(MediaType.APPLICATION_FORM_URLENCODED_VALUE))
+                    .andExpect(MockMvcResultMatchers.status().isOk())
+                    .andReturn().getResponse().getContentAsString();
+            System.out.println(ret);
+        }
+    }
+
+    @Test
+    public void export() throws Exception {
+        // 同时发起5个导出请求，只有2个可以执行
+        ExecutorService executor = Executors.newFixedThreadPool(5);
+        for (int i = 0; i < 5; i++) {
+            executor.submit(() -> {
+                val ret = mockMvc.perform(MockMvcRequestBuilders.get("/particle/export"))
+                        .andReturn().getResponse();
+                System.out.println(ret.getStatus() + ", Retry-After: " + ret.getHeader("Retry-After"));
+                return null;
+            });
+        }
+        executor.shutdown();
+        executor.awaitTermination(10, TimeUnit.SECONDS);
+    }
+
+    @Test
+    public void report() throws Exception {
+        // 同一个用户超过5次后被用户配额限制
+        for (int i = 0; i < 7; i++) {
+            val ret = mockMvc.perform(MockMvcRequestBuilders.get("/particle/report")
+                    .header("Tenant", "t1")
+                    .header("Token", "123321"))
+                    .andReturn().getResponse();
+            System.out.println(ret.getStatus() + ": " + ret.getContentAsString());
+        }
+    }
+
+    @Test
+    public void adaptiveSimulation() throws Exception {
+        for (AdaptiveType adaptiveType : AdaptiveType.values()) {
+            simulateAdaptive(adaptiveType);
+        }
+    }
+
+    // 模拟下游：并发处理能力为20，超过后排队导致耗时线性增长，运行中途下游变慢3倍
+    private void simulateAdaptive(AdaptiveType adaptiveType) throws Exception {
+        AdaptiveLimiter limiter = new AdaptiveLimiter();
+        limiter.setAdaptiveType(adaptiveType);
+        limiter.setTimeout(100);
+        int capacity = 20;
+        AtomicLong baseLatency = new AtomicLong(10);
+        AtomicInteger downstream = new AtomicInteger();
+        AtomicInteger passed = new AtomicInteger();
+        AtomicInteger limited = new AtomicInteger();
+        AtomicReference<Throwable> error = new AtomicReference<>();
+        int clients = 100;
+        long endTime = System.currentTimeMillis() + 6000;
+        ExecutorService executor = Executors.newFixedThreadPool(clients);
+        for (int i = 0; i < clients; i++) {
+            executor.submit(() -> {
+                while (System.currentTimeMillis() < endTime) {
+                    try {
+                        limiter.limit("simulation", 0, particle -> {
+                            if (particle.isLimited()) {
+                                limited.incrementAndGet();
+                                Thread.sleep(2);
+                                return null;
+                            }
+                            int inFlight = downstream.incrementAndGet();
+                            try {
+                                Thread.sleep(Math.max(baseLatency.get(), baseLatency.get() * inFlight / capacity));
+                            } finally {
+                                downstream.decrementAndGet();
+                            }
+                            passed.incrementAndGet();
+                            return null;
+                        });
+                    } catch (Throwable e) {
+                        error.compareAndSet(null, e);
+                        return;
+                    }
+                }
+            });
+        }
+        int limitBefore = 0;
+        int minLimitAfter = Integer.MAX_VALUE;
+        int passedBefore = 0;
+        long slowdownTime = 0;
+        for (int i = 0; i < 12; i++) {
+            Thread.sleep(500);
+            int limit = limiter.getLimit("simulation");
+            if (i == 5) {
+                limitBefore = limit;
+            } else if (i == 6) {
+                baseLatency.set(30);
+                passedBefore = passed.get();
+                slowdownTime = System.currentTimeMillis();
+            } else if (i > 6) {
+                minLimitAfter = Math.min(minLimitAfter, limit);
+            }
+            System.out.println(adaptiveType + " limit: " + limit + ", passed: " + passed.get() + ", limited: " + limited.get());
+        }
+        int passedAfter = passed.get() - passedBefore;
+        long elapsed = System.currentTimeMillis() - slowdownTime;
+        executor.shutdown();
+        Assert.assertTrue(executor.awaitTermination(5, TimeUnit.SECONDS));
+        if (error.get() != null) {
+            throw new AssertionError(adaptiveType + " simulation failed", error.get());
+        }
+        // 下游变慢后并发上限下降
+        Assert.assertTrue(adaptiveType + " limit before: " + limitBefore + ", after: " + minLimitAfter, minLimitAfter < limitBefore);
+        // 通过的请求数不超过下游处理能力（允许20%的误差）
+        long capacityAfter = capacity * elapsed / baseLatency.get();
+        Assert.assertTrue(adaptiveType + " passed: " + passedAfter + ", capacity: " + capacityAfter, passedAfter <= capacityAfter * 1.2);
+        Assert.assertTrue(limited.get() > 0);
+    }
 }